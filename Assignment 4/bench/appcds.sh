@@ -0,0 +1,107 @@
+#!/bin/sh
+# Builds an application class-data sharing (AppCDS) archive for the command line modes and
+# measures how long a one-line script takes from a cold JVM with and without it.
+#
+#   mvn package -DskipTests && sh bench/appcds.sh [directory] [runs]
+#
+# A training script loads, edits and saves images in every format, and the classes it loads
+# (the JDK, image I/O and the controller and model, but none of the Swing view) are dumped
+# into the archive. The JVM only uses an archive when started with the same class path it was
+# dumped with, and it can't use one whose class path holds a space, so the jar is copied next
+# to the archive, into target/cds or, if that path holds a space, a temporary directory. The
+# last lines printed are the command to run the program with the archive.
+set -e
+
+cd "$(dirname "$0")/.."
+JAR=target/image-processing-1.0-SNAPSHOT.jar
+RUNS=${2:-15}
+
+if [ ! -f "$JAR" ]; then
+  echo "Missing $JAR; run mvn package -DskipTests first" >&2
+  exit 1
+fi
+
+OUT=${1:-$PWD/target/cds}
+case "$OUT" in
+  *" "*) OUT=$(mktemp -d "${TMPDIR:-/tmp}/image-processing-cds.XXXXXX") ;;
+esac
+mkdir -p "$OUT"
+OUT=$(cd "$OUT" && pwd)
+cp "$JAR" "$OUT/image-processing.jar"
+APP="$OUT/image-processing.jar"
+ARCHIVE="$OUT/cli.jsa"
+CLASSES="$OUT/cli.classlist"
+
+WORK=$(mktemp -d)
+trap 'rm -rf "$WORK"' EXIT
+cp res/back.jpg "$WORK/in.jpg"
+cat > "$WORK/train.txt" <<EOF
+load $WORK/in.jpg a
+blur a b
+sharpen b c
+sepia c d
+luma d e
+brighten 10 a f
+horizontal-flip f g
+compress 50 a h
+histogram a i
+levels-adjust 20 100 255 a j
+color-correct a k
+rgb-split a r gr bl
+rgb-combine m r gr bl
+save $WORK/out.jpg b
+save $WORK/out.png c
+save $WORK/out.ppm d
+save $WORK/out-binary.ppm e binary
+save $WORK/g.png g
+save $WORK/h.png h
+save $WORK/i.png i
+save $WORK/j.png j
+save $WORK/k.png k
+save $WORK/m.png m
+load $WORK/out.ppm n
+load $WORK/out-binary.ppm o
+load $WORK/out.png p
+save $WORK/n.jpg n
+save $WORK/o.png o
+save $WORK/p.ppm p
+EOF
+
+# 1. Record the classes the command line modes load.
+java -Xshare:off -XX:DumpLoadedClassList="$CLASSES" -jar "$APP" -file "$WORK/train.txt"
+# 2. Dump them into the archive, with the same class path the program runs with.
+java -Xshare:dump -XX:SharedClassListFile="$CLASSES" -XX:SharedArchiveFile="$ARCHIVE" \
+    -cp "$APP" > /dev/null
+echo "Wrote $ARCHIVE ($(grep -cv '^[#@]' "$CLASSES") classes)"
+
+# 3. Time a one-line script on a small image from a cold JVM.
+printf 'P3\n8 8\n255\n' > "$WORK/small.ppm"
+i=0
+while [ "$i" -lt 64 ]; do
+  echo "$((i * 4)) 128 $((255 - i * 4))" >> "$WORK/small.ppm"
+  i=$((i + 1))
+done
+printf 'load %s/small.ppm a\nsave %s/small.jpg a\n' "$WORK" "$WORK" > "$WORK/convert.txt"
+java -jar "$APP" -file "$WORK/convert.txt"
+printf 'load %s/small.jpg a\nsave %s/small.png a\n' "$WORK" "$WORK" > "$WORK/one.txt"
+
+median() {
+  sort -n | awk '{ t[NR] = $1 } END { print t[int((NR + 1) / 2)] }'
+}
+time_runs() {
+  i=0
+  while [ "$i" -lt "$RUNS" ]; do
+    start=$(date +%s%N)
+    java "$@" -jar "$APP" -file "$WORK/one.txt" > /dev/null
+    end=$(date +%s%N)
+    echo $(((end - start) / 1000000))
+    i=$((i + 1))
+  done | median
+}
+echo "Median time of a one-line script over $RUNS runs:"
+echo "  JDK archive only:         $(time_runs -Xshare:auto) ms"
+echo "  AppCDS:                   $(time_runs -XX:SharedArchiveFile="$ARCHIVE") ms"
+echo "  AppCDS, C1 compiler only: $(time_runs -XX:SharedArchiveFile="$ARCHIVE" \
+    -XX:TieredStopAtLevel=1) ms"
+echo "Run with:"
+echo "  java -XX:SharedArchiveFile=$ARCHIVE -jar $APP -file script.txt"
@@ -0,0 +1,43 @@
+package benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+
+/**
+ * This class is the entry point of the benchmarks jar. It accepts the usual JMH command line
+ * options and always adds the GC profiler, so every result reports its allocation rate next to
+ * its running time.
+ */
+public final class BenchmarkMain {
+
+  private BenchmarkMain() {
+  }
+
+  /**
+   * Runs the benchmarks selected by the given JMH options.
+   *
+   * @param args JMH command line options, for example a benchmark name pattern.
+   * @throws RunnerException           if a benchmark fails.
+   * @throws CommandLineOptionException if the options cannot be parsed.
+   * @throws IOException               if the benchmark list cannot be read.
+   */
+  public static void main(String[] args) throws RunnerException, CommandLineOptionException,
+          IOException {
+    CommandLineOptions options = new CommandLineOptions(args);
+    if (options.shouldHelp() || options.shouldList() || options.shouldListProfilers()
+            || options.shouldListResultFormats()) {
+      org.openjdk.jmh.Main.main(args);
+      return;
+    }
+    new Runner(new OptionsBuilder()
+            .parent(options)
+            .addProfiler(GCProfiler.class)
+            .build()).run();
+  }
+}
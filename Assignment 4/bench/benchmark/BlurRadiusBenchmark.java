@@ -0,0 +1,54 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import model.Image;
+import model.PackedColorImage;
+
+/**
+ * This class measures the box and gaussian blurs of any radius, whose cost should not depend on
+ * the radius. ImageOperationsBenchmark.blur measures the fixed 3x3 blur kernel to compare with.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class BlurRadiusBenchmark {
+
+  @Param({"1", "12", "48"})
+  public int megapixels;
+
+  @Param({"1", "16", "256"})
+  public int radius;
+
+  private PackedColorImage image;
+
+  @Setup
+  public void setUp() {
+    image = ImageFixtures.randomImage(megapixels);
+  }
+
+  @Benchmark
+  public Image box() {
+    return image.blur(radius, false);
+  }
+
+  @Benchmark
+  public Image gaussian() {
+    return image.blur(radius, true);
+  }
+}
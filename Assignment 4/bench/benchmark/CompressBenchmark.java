@@ -0,0 +1,50 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import model.Image;
+import model.PackedColorImage;
+
+/**
+ * This class measures wavelet compression. It is kept apart from the other operations because
+ * its cost depends on the percentage as well as the size, and a 48 megapixel image is padded to
+ * 8192 x 8192 with three channels of doubles, which needs a larger heap.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms6g", "-Xmx6g"})
+public class CompressBenchmark {
+
+  @Param({"1", "12", "48"})
+  public int megapixels;
+
+  @Param({"10", "50", "90"})
+  public float percentage;
+
+  private PackedColorImage image;
+
+  @Setup
+  public void setUp() {
+    image = ImageFixtures.randomImage(megapixels);
+  }
+
+  @Benchmark
+  public Image compress() {
+    return image.compress(percentage);
+  }
+}
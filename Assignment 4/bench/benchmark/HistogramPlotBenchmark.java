@@ -0,0 +1,57 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import model.Histogram;
+import model.HistogramPlot;
+import model.PackedColorImage;
+
+/**
+ * This class measures drawing the histogram plot without its cache. The plot is always 256x256,
+ * so the cost does not depend on the size of the image; each call draws the next of a set of
+ * different histograms.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HistogramPlotBenchmark {
+
+  private static final int HISTOGRAMS = 64;
+
+  private Histogram[] histograms;
+  private int next;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(12);
+    histograms = new Histogram[HISTOGRAMS];
+    for (int h = 0; h < HISTOGRAMS; h++) {
+      int[] rgb = new int[10_000 + random.nextInt(10_000)];
+      for (int i = 0; i < rgb.length; i++) {
+        rgb[i] = random.nextInt(0x1000000);
+      }
+      histograms[h] = Histogram.of(rgb, rgb.length, 1);
+    }
+  }
+
+  @Benchmark
+  public PackedColorImage draw() {
+    next = (next + 1) % HISTOGRAMS;
+    return HistogramPlot.draw(histograms[next]);
+  }
+}
@@ -0,0 +1,78 @@
+package benchmark;
+
+import java.util.Random;
+
+import model.PackedColorImage;
+
+/**
+ * This class creates the images the benchmarks run on. Images have a 4:3 aspect ratio and
+ * random pixels, so no operation can take a shortcut on uniform input.
+ */
+final class ImageFixtures {
+
+  static final float[][] BLUR = {
+          {0.0625F, 0.125F, 0.0625F},
+          {0.125F, 0.25F, 0.125F},
+          {0.0625F, 0.125F, 0.0625F}
+  };
+
+  static final float[][] SHARPEN = {
+          {-0.125F, -0.125F, -0.125F, -0.125F, -0.125F},
+          {-0.125F, 0.25F, 0.25F, 0.25F, -0.125F},
+          {-0.125F, 0.25F, 1F, 0.25F, -0.125F},
+          {-0.125F, 0.25F, 0.25F, 0.25F, -0.125F},
+          {-0.125F, -0.125F, -0.125F, -0.125F, -0.125F}
+  };
+
+  static final float[][] SEPIA = {
+          {0.393F, 0.769F, 0.189F},
+          {0.349F, 0.686F, 0.186F},
+          {0.272F, 0.534F, 0.131F}
+  };
+
+  static final float[][] DISC = disc(15);
+
+  private ImageFixtures() {
+  }
+
+  /**
+   * Creates a normalised disc kernel, which is not rank-1 and so is convolved directly or in the
+   * frequency domain, never as two passes.
+   */
+  private static float[][] disc(int radius) {
+    int size = 2 * radius + 1;
+    float[][] kernel = new float[size][size];
+    int taps = 0;
+    for (int a = 0; a < size; a++) {
+      for (int b = 0; b < size; b++) {
+        if ((a - radius) * (a - radius) + (b - radius) * (b - radius) <= radius * radius) {
+          kernel[a][b] = 1;
+          taps++;
+        }
+      }
+    }
+    for (float[] row : kernel) {
+      for (int b = 0; b < size; b++) {
+        row[b] /= taps;
+      }
+    }
+    return kernel;
+  }
+
+  /**
+   * Creates a random image with about the given number of megapixels.
+   *
+   * @param megapixels the size of the image in millions of pixels.
+   * @return the image.
+   */
+  static PackedColorImage randomImage(int megapixels) {
+    int width = (int) Math.round(Math.sqrt(megapixels * 1_000_000.0 * 4 / 3));
+    int height = width * 3 / 4;
+    Random random = new Random(megapixels);
+    int[] rgb = new int[width * height];
+    for (int i = 0; i < rgb.length; i++) {
+      rgb[i] = random.nextInt(0x1000000);
+    }
+    return new PackedColorImage(width, height, rgb);
+  }
+}
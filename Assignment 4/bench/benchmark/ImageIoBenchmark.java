@@ -0,0 +1,122 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import controller.ImageController;
+import controller.ImageUtil;
+import model.Image;
+import model.PackedColorImage;
+import model.Pixel;
+
+/**
+ * This class measures reading and writing PPM files and the conversions between the image
+ * model and BufferedImage. The files live in a temporary directory removed after the run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g", "-Djava.awt.headless=true"})
+public class ImageIoBenchmark {
+
+  @Param({"1", "12", "48"})
+  public int megapixels;
+
+  private File directory;
+  private String textFile;
+  private String binaryFile;
+  private String outputFile;
+  private PackedColorImage image;
+  private BufferedImage bufferedImage;
+  private Pixel[][] pixels;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("image-bench").toFile();
+    textFile = new File(directory, "text.ppm").getPath();
+    binaryFile = new File(directory, "binary.ppm").getPath();
+    outputFile = new File(directory, "out.ppm").getPath();
+    image = ImageFixtures.randomImage(megapixels);
+    ImageUtil.writePPM(image, textFile, false);
+    ImageUtil.writePPM(image, binaryFile, true);
+    bufferedImage = ImageController.convertToBufferedImage(image);
+    pixels = image.getPixels();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    for (File file : directory.listFiles()) {
+      file.delete();
+    }
+    directory.delete();
+  }
+
+  @Benchmark
+  public Image readTextPPM() throws IOException {
+    return ImageUtil.readPPMImage(textFile);
+  }
+
+  @Benchmark
+  public Image readBinaryPPM() throws IOException {
+    return ImageUtil.readPPMImage(binaryFile);
+  }
+
+  @Benchmark
+  public BufferedImage readPPM() throws IOException {
+    return ImageUtil.readPPM(binaryFile);
+  }
+
+  @Benchmark
+  public void writeTextPPM() throws IOException {
+    ImageUtil.writePPM(image, outputFile, false);
+  }
+
+  @Benchmark
+  public void writeBinaryPPM() throws IOException {
+    ImageUtil.writePPM(image, outputFile, true);
+  }
+
+  @Benchmark
+  public void writeBufferedPPM() throws IOException {
+    ImageUtil.writePPM(bufferedImage, outputFile);
+  }
+
+  @Benchmark
+  public Pixel[][] convertToPixels() {
+    return ImageController.convertToPixels(bufferedImage);
+  }
+
+  @Benchmark
+  public Image convertToImage() {
+    return ImageController.convertToImage(bufferedImage);
+  }
+
+  @Benchmark
+  public BufferedImage convertPixelsToBufferedImage() {
+    return ImageController.convertToBufferedImage(pixels);
+  }
+
+  @Benchmark
+  public BufferedImage convertImageToBufferedImage() {
+    return ImageController.convertToBufferedImage(image);
+  }
+}
@@ -0,0 +1,145 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import model.Image;
+import model.PackedColorImage;
+
+/**
+ * This class measures every operation of the image model on 1, 12 and 48 megapixel images.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class ImageOperationsBenchmark {
+
+  @Param({"1", "12", "48"})
+  public int megapixels;
+
+  private PackedColorImage image;
+  private Image red;
+  private Image green;
+  private Image blue;
+
+  @Setup
+  public void setUp() {
+    image = ImageFixtures.randomImage(megapixels);
+    red = image.getRedChannel();
+    green = image.getGreenChannel();
+    blue = image.getBlueChannel();
+  }
+
+  @Benchmark
+  public Image blur() {
+    return image.filter(ImageFixtures.BLUR);
+  }
+
+  @Benchmark
+  public Image sharpen() {
+    return image.filter(ImageFixtures.SHARPEN);
+  }
+
+  @Benchmark
+  public Image disc31x31() {
+    return image.filter(ImageFixtures.DISC);
+  }
+
+  @Benchmark
+  public Image sepia() {
+    return image.linearTransform(ImageFixtures.SEPIA);
+  }
+
+  @Benchmark
+  public Image brighten() {
+    return image.brighten(40);
+  }
+
+  @Benchmark
+  public Image adjustLevels() {
+    return image.adjustLevels("20", "100", "230");
+  }
+
+  @Benchmark
+  public Image colorCorrect() {
+    return uncounted().colorCorrect();
+  }
+
+  @Benchmark
+  public Image histogram() {
+    return uncounted().getHistogram();
+  }
+
+  @Benchmark
+  public Image horizontalFlip() {
+    return image.horizontalFlip();
+  }
+
+  @Benchmark
+  public Image verticalFlip() {
+    return image.verticalFlip();
+  }
+
+  @Benchmark
+  public Image redComponent() {
+    return image.visualizeRedComponent();
+  }
+
+  @Benchmark
+  public Image value() {
+    return image.getValue();
+  }
+
+  @Benchmark
+  public Image intensity() {
+    return image.getIntensity();
+  }
+
+  @Benchmark
+  public Image luma() {
+    return image.getLuma();
+  }
+
+  @Benchmark
+  public Image redChannel() {
+    return image.getRedChannel();
+  }
+
+  @Benchmark
+  public Image combineChannel() {
+    return image.combineChannel(red, green, blue);
+  }
+
+  @Benchmark
+  public Image colorCorrectSplit() {
+    return uncounted().colorCorrectWithSplit(50);
+  }
+
+  /**
+   * Wraps the pixels of the image in a new image, which has not counted its histogram yet, so
+   * the operations that need the histogram count the pixels on every call.
+   */
+  private PackedColorImage uncounted() {
+    return new PackedColorImage(image.getWidth(), image.getHeight(), image.getRgbData());
+  }
+
+  @Benchmark
+  public Image blurSplit() {
+    return image.filterSplit(ImageFixtures.BLUR, 50);
+  }
+
+}
@@ -1,10 +1,16 @@
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Scanner;
 
+import controller.BatchRunner;
 import controller.ImageController;
+import controller.ImageStore;
+import controller.ScriptClient;
+import controller.ScriptServer;
+import model.RowScheduler;
 import view.ImageProcessingGUI;
 import view.View;
 
@@ -13,18 +19,33 @@ import view.View;
  */
 public class Main {
 
+  private static final List<String> MODES =
+          Arrays.asList("-file", "-text", "-batch", "-server", "-client");
+
+  private static long memoryBudget = ImageStore.defaultBudget();
+
   /**
    * The main method to run the application.
    *
-   * @param args to run a file/interactive mode via command line.
+   * @param args to run a file/interactive/batch/server/client mode via command line, optionally
+   *             with -threads N to set the number of threads used by image operations and
+   *             -memory MB to set how many megabytes of images scripts keep in memory and
+   *             -sequential to run script commands one after the other.
    */
   public static void main(String[] args) {
     ImageController imageController = new ImageController();
-    Scanner scanner = new Scanner(System.in);
 
     try {
+      args = applyThreadOption(args);
+      args = applyMemoryOption(args, imageController);
+      args = applySequentialOption(args, imageController);
       if (args.length > 0) {
         String choice = args[0];
+        // The command line modes never open a window, so image I/O needs no display. The
+        // options are stripped first, so that options alone still open the GUI.
+        if (MODES.contains(choice) && System.getProperty("java.awt.headless") == null) {
+          System.setProperty("java.awt.headless", "true");
+        }
 
         switch (choice) {
           case "-file":
@@ -37,21 +58,153 @@ public class Main {
             imageController.interactiveMode();
             break;
 
+          case "-batch":
+            runBatch(args);
+            break;
+
+          case "-server":
+            runServer(args);
+            break;
+
+          case "-client":
+            runClient(args);
+            break;
+
           default:
             throw new IOException("Invalid command");
         }
       } else {
-        View view = new ImageProcessingGUI();
-        imageController.setView(view);
+        Gui.start(imageController);
       }
     } catch (IOException e) {
       System.err.println("An error occurred: " + e.getMessage());
       e.printStackTrace();
-    } finally {
-      scanner.close();
     }
   }
 
-}
+  /**
+   * Runs a script template over a directory: -batch script -in dir -out dir [-glob pattern].
+   */
+  private static void runBatch(String[] args) throws IOException {
+    List<String> options = Arrays.asList(args);
+    if (args.length < 2) {
+      throw new IOException("Missing batch script");
+    }
+    String input = batchOption(options, "-in", null);
+    String output = batchOption(options, "-out", null);
+    String glob = batchOption(options, "-glob", "*");
+    List<String> script = Files.readAllLines(Paths.get(args[1]));
+    BatchRunner runner = new BatchRunner(script, RowScheduler.getParallelism(), memoryBudget);
+    List<BatchRunner.Result> results = runner.run(Paths.get(input), glob, Paths.get(output));
+    System.out.print(BatchRunner.summary(results));
+  }
 
+  /**
+   * Serves scripts until the program is stopped: -server [port].
+   */
+  private static void runServer(String[] args) throws IOException {
+    int port = args.length > 1 ? parsePort(args[1]) : ScriptServer.DEFAULT_PORT;
+    try (ScriptServer server = new ScriptServer(port, memoryBudget)) {
+      System.out.println("Listening on port " + server.getPort() + ", token in "
+              + server.getTokenFile());
+      server.serve();
+    }
+  }
 
+  /**
+   * Submits scripts to a running server and prints its answers: -client port script...
+   */
+  private static void runClient(String[] args) throws IOException {
+    if (args.length < 3) {
+      throw new IOException("Usage: -client port script...");
+    }
+    try (ScriptClient client = new ScriptClient(parsePort(args[1]), Paths.get(""))) {
+      for (int i = 2; i < args.length; i++) {
+        List<String> script = Files.readAllLines(Paths.get(args[i]));
+        System.out.println(args[i] + ": " + client.submit(script));
+      }
+    }
+  }
+
+  private static int parsePort(String port) throws IOException {
+    try {
+      return Integer.parseInt(port);
+    } catch (NumberFormatException e) {
+      throw new IOException("Invalid port: " + port);
+    }
+  }
+
+  private static String batchOption(List<String> options, String name, String fallback)
+          throws IOException {
+    int index = options.indexOf(name);
+    if (index < 0 || index + 1 >= options.size()) {
+      if (fallback == null) {
+        throw new IOException("Missing batch option " + name);
+      }
+      return fallback;
+    }
+    return options.get(index + 1);
+  }
+
+  private static String[] applyThreadOption(String[] args) throws IOException {
+    List<String> remaining = new ArrayList<>(Arrays.asList(args));
+    int index = remaining.indexOf("-threads");
+    if (index < 0) {
+      return args;
+    }
+    if (index + 1 >= remaining.size()) {
+      throw new IOException("Missing thread count");
+    }
+    try {
+      RowScheduler.setParallelism(Integer.parseInt(remaining.get(index + 1)));
+    } catch (IllegalArgumentException e) {
+      throw new IOException("Invalid thread count: " + remaining.get(index + 1));
+    }
+    remaining.remove(index + 1);
+    remaining.remove(index);
+    return remaining.toArray(new String[0]);
+  }
+
+  private static String[] applySequentialOption(String[] args,
+                                                ImageController imageController) {
+    List<String> remaining = new ArrayList<>(Arrays.asList(args));
+    if (!remaining.remove("-sequential")) {
+      return args;
+    }
+    imageController.setSequential(true);
+    return remaining.toArray(new String[0]);
+  }
+
+  private static String[] applyMemoryOption(String[] args, ImageController imageController)
+          throws IOException {
+    List<String> remaining = new ArrayList<>(Arrays.asList(args));
+    int index = remaining.indexOf("-memory");
+    if (index < 0) {
+      return args;
+    }
+    if (index + 1 >= remaining.size()) {
+      throw new IOException("Missing memory budget");
+    }
+    try {
+      long megabytes = Long.parseLong(remaining.get(index + 1));
+      imageController.setImageStore(new ImageStore(megabytes << 20));
+      memoryBudget = megabytes << 20;
+    } catch (IllegalArgumentException e) {
+      throw new IOException("Invalid memory budget: " + remaining.get(index + 1));
+    }
+    remaining.remove(index + 1);
+    remaining.remove(index);
+    return remaining.toArray(new String[0]);
+  }
+
+  /**
+   * Opens the GUI. It is kept apart from Main so that the command line modes, which run
+   * headless, never load the Swing classes of the view.
+   */
+  private static final class Gui {
+    private static void start(ImageController imageController) {
+      View view = new ImageProcessingGUI();
+      imageController.setView(view);
+    }
+  }
+}
@@ -0,0 +1,256 @@
+package controller;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * This class runs one script over every file of a directory that matches a glob, in a single
+ * JVM. The script is a template: on every line {in} is replaced by the path of the input file,
+ * {out} by the output directory, {name} by the file name without its extension and {ext} by the
+ * extension. Files are processed at the same time by a fixed number of workers, each with its
+ * own ImageController whose images share the memory budget, so the memory in use is bounded
+ * by the budget however many files there are. The commands of each file run in order, since
+ * the files already keep every worker busy.
+ *
+ * <p>Reading and writing files overlaps with computing: input files are read ahead on an
+ * IoPipeline, a bounded number at a time, and saved files are written by the pipeline while
+ * the workers move on to the next file.
+ */
+public class BatchRunner {
+
+  private final List<String> script;
+  private final int workers;
+  private final long memoryBudget;
+
+  /**
+   * Constructs a batch runner.
+   *
+   * @param script       the lines of the script template.
+   * @param workers      the number of files processed at the same time, at least 1.
+   * @param memoryBudget the bytes of images kept in memory by all workers together.
+   */
+  public BatchRunner(List<String> script, int workers, long memoryBudget) {
+    if (workers < 1) {
+      throw new IllegalArgumentException("Number of workers should be at least 1");
+    }
+    this.script = new ArrayList<>(script);
+    this.workers = workers;
+    this.memoryBudget = memoryBudget;
+  }
+
+  /**
+   * Runs the script over every matching file of the input directory. A file whose script fails,
+   * with an exception or an error, is reported in its result and does not stop the other files.
+   *
+   * @param inputDirectory  the directory of the input files.
+   * @param glob            the pattern the names of the input files match, such as *.jpg.
+   * @param outputDirectory the directory substituted for {out}; it is created if missing.
+   * @return the result of every file, in the order of the file names.
+   * @throws IOException if the directories cannot be read or created.
+   */
+  public List<Result> run(Path inputDirectory, String glob, Path outputDirectory)
+          throws IOException {
+    List<Path> files = new ArrayList<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(inputDirectory, glob)) {
+      for (Path file : stream) {
+        if (Files.isRegularFile(file)) {
+          files.add(file);
+        }
+      }
+    }
+    Collections.sort(files);
+    Files.createDirectories(outputDirectory);
+
+    IoPipeline io = new IoPipeline(2 * workers);
+    ExecutorService compute = Executors.newFixedThreadPool(workers);
+    Semaphore inFlight = new Semaphore(2 * workers);
+    try {
+      List<CompletableFuture<Result>> pending = new ArrayList<>();
+      for (Path file : files) {
+        inFlight.acquire();
+        pending.add(process(file, outputDirectory, io, compute, inFlight));
+      }
+      List<Result> results = new ArrayList<>();
+      for (CompletableFuture<Result> result : pending) {
+        results.add(IoPipeline.await(result));
+      }
+      return results;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while running the batch", e);
+    } finally {
+      compute.shutdownNow();
+      io.close();
+    }
+  }
+
+  /**
+   * Runs the script over one file in three stages: the file is read on the I/O pipeline, the
+   * script runs on the compute pool once it is read, and the files it saves are written on the
+   * pipeline. The permit of the file is released when the script is done, so only a bounded
+   * number of files are read ahead of the compute pool. The compute time of the file is taken
+   * on its worker, so it leaves out the time the file waits to be read and for a free worker.
+   */
+  private CompletableFuture<Result> process(Path file, Path outputDirectory, IoPipeline io,
+                                            ExecutorService compute, Semaphore inFlight) {
+    long submitted = System.nanoTime();
+    long[] computeNanos = new long[1];
+    ImageController controller = new ImageController();
+    controller.setSequential(true);
+    controller.setIoPipeline(io);
+    ImageStore store = new ImageStore(memoryBudget / workers);
+    controller.setImageStore(store);
+    return controller.preload(file.toString())
+            .handle((image, error) -> null)
+            .thenApplyAsync(ignored -> {
+              long start = System.nanoTime();
+              try {
+                controller.processCommands(expand(file, outputDirectory));
+                return null;
+              } catch (Exception e) {
+                return e;
+              } catch (Throwable e) {
+                // Even an error such as running out of memory fails only this file.
+                return new Exception(e);
+              } finally {
+                computeNanos[0] = System.nanoTime() - start;
+                try {
+                  store.close();
+                } catch (IOException e) {
+                  // The spill files are deleted on exit instead.
+                }
+                inFlight.release();
+              }
+            }, compute)
+            .thenCompose(scriptError -> controller.whenWritten().handle((written, writeError) -> {
+              Exception error = scriptError;
+              if (error == null && writeError != null) {
+                Throwable cause = writeError instanceof CompletionException
+                        ? writeError.getCause() : writeError;
+                error = cause instanceof Exception ? (Exception) cause : new Exception(cause);
+              }
+              return new Result(file, computeNanos[0] / 1_000_000,
+                      (System.nanoTime() - submitted) / 1_000_000, error);
+            }));
+  }
+
+  private List<String> expand(Path file, Path outputDirectory) {
+    String fileName = file.getFileName().toString();
+    int dot = fileName.lastIndexOf('.');
+    String name = dot < 0 ? fileName : fileName.substring(0, dot);
+    String extension = dot < 0 ? "" : fileName.substring(dot + 1);
+    List<String> lines = new ArrayList<>();
+    for (String line : script) {
+      if (line.trim().isEmpty()) {
+        continue;
+      }
+      lines.add(line.replace("{in}", file.toString())
+              .replace("{out}", outputDirectory.toString())
+              .replace("{name}", name)
+              .replace("{ext}", extension));
+    }
+    return lines;
+  }
+
+  /**
+   * Formats a summary of a batch: one line per file with its compute time, its time from being
+   * submitted to being written and its error if any, then the totals. Only compute times are
+   * added up, since the files overlap while they wait.
+   *
+   * @param results the results of the batch.
+   * @return the summary.
+   */
+  public static String summary(List<Result> results) {
+    StringBuilder summary = new StringBuilder();
+    int failed = 0;
+    long total = 0;
+    for (Result result : results) {
+      total += result.getMillis();
+      if (result.isSuccess()) {
+        summary.append(String.format("OK    %6d ms (%6d ms in all)  %s%n", result.getMillis(),
+                result.getTotalMillis(), result.getFile()));
+      } else {
+        failed++;
+        summary.append(String.format("FAIL  %6d ms (%6d ms in all)  %s: %s%n",
+                result.getMillis(), result.getTotalMillis(), result.getFile(),
+                result.getError()));
+      }
+    }
+    summary.append(String.format("%d files, %d succeeded, %d failed, %d ms of processing%n",
+            results.size(), results.size() - failed, failed, total));
+    return summary.toString();
+  }
+
+  /**
+   * The outcome of running the script over one file.
+   */
+  public static final class Result {
+    private final Path file;
+    private final long millis;
+    private final long totalMillis;
+    private final Exception error;
+
+    private Result(Path file, long millis, long totalMillis, Exception error) {
+      this.file = file;
+      this.millis = millis;
+      this.totalMillis = totalMillis;
+      this.error = error;
+    }
+
+    /**
+     * Retrieves the input file.
+     *
+     * @return the path of the file.
+     */
+    public Path getFile() {
+      return file;
+    }
+
+    /**
+     * Retrieves how long the script ran on its worker, without the time the file waited.
+     *
+     * @return the time in milliseconds.
+     */
+    public long getMillis() {
+      return millis;
+    }
+
+    /**
+     * Retrieves how long the file took from being submitted until its saved files were written,
+     * including the time it waited to be read and for a free worker.
+     *
+     * @return the time in milliseconds.
+     */
+    public long getTotalMillis() {
+      return totalMillis;
+    }
+
+    /**
+     * Retrieves why the script failed on the file.
+     *
+     * @return the error, or null if the script succeeded.
+     */
+    public Exception getError() {
+      return error;
+    }
+
+    /**
+     * Tells whether the script succeeded on the file.
+     *
+     * @return true if the script ran without error.
+     */
+    public boolean isSuccess() {
+      return error == null;
+    }
+  }
+}
@@ -1,5 +1,8 @@
 package controller;
 
+import java.util.Collections;
+import java.util.List;
+
 import model.Image;
 
 /**
@@ -32,4 +35,13 @@ public class BlueComponentCommand implements Command {
     controller.imageMap.put(outputImageKey, blueComponent);
   }
 
+  @Override
+  public List<String> getInputKeys() {
+    return Collections.singletonList(inputImageKey);
+  }
+
+  @Override
+  public List<String> getOutputKeys() {
+    return Collections.singletonList(outputImageKey);
+  }
 }
@@ -1,6 +1,8 @@
 package controller;
 
-import model.ColorImage;
+import java.util.Collections;
+import java.util.List;
+
 import model.Image;
 
 /**
@@ -30,7 +32,7 @@ public class BlurCommand implements Command {
 
   @Override
   public void execute() {
-    ColorImage imageToTransform1 = (ColorImage) controller.imageMap.get(inputImageKey);
+    Image imageToTransform1 = controller.imageMap.get(inputImageKey);
     float[][] blurKernel = {
             {0.0625F, 0.125F, 0.0625F},
             {0.125F, 0.25F, 0.125F},
@@ -44,4 +46,14 @@ public class BlurCommand implements Command {
     }
     controller.imageMap.put(outputImageKey, transformedImage1);
   }
-}
\ No newline at end of file
+
+  @Override
+  public List<String> getInputKeys() {
+    return Collections.singletonList(inputImageKey);
+  }
+
+  @Override
+  public List<String> getOutputKeys() {
+    return Collections.singletonList(outputImageKey);
+  }
+}
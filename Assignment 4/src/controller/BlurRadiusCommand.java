@@ -0,0 +1,52 @@
+package controller;
+
+import java.util.Collections;
+import java.util.List;
+
+import model.Image;
+
+/**
+ * A command that blurs the image with a box, or an approximate gaussian, of any radius.
+ */
+public class BlurRadiusCommand implements Command {
+  private ImageController controller;
+  private int radius;
+  private boolean gaussian;
+  private String inputImageKey;
+  private String outputImageKey;
+
+  /**
+   * Constructs a new BlurRadiusCommand with the specified parameters.
+   *
+   * @param controller     to facilitate image processing operations.
+   * @param radius         number of pixels on each side of a pixel that are averaged.
+   * @param gaussian       whether to approximate a gaussian blur instead of a box blur.
+   * @param inputImageKey  used to retrieve the input image.
+   * @param outputImageKey used to store the processed image.
+   */
+  public BlurRadiusCommand(ImageController controller, int radius, boolean gaussian,
+                           String inputImageKey, String outputImageKey) {
+    this.controller = controller;
+    this.radius = radius;
+    this.gaussian = gaussian;
+    this.inputImageKey = inputImageKey;
+    this.outputImageKey = outputImageKey;
+  }
+
+  @Override
+  public void execute() {
+    Image imageToBlur = controller.imageMap.get(inputImageKey);
+    Image blurredImage = imageToBlur.blur(radius, gaussian);
+    controller.imageMap.put(outputImageKey, blurredImage);
+  }
+
+  @Override
+  public List<String> getInputKeys() {
+    return Collections.singletonList(inputImageKey);
+  }
+
+  @Override
+  public List<String> getOutputKeys() {
+    return Collections.singletonList(outputImageKey);
+  }
+}
@@ -1,6 +1,8 @@
 package controller;
 
-import model.ColorImage;
+import java.util.Collections;
+import java.util.List;
+
 import model.Image;
 
 /**
@@ -30,8 +32,18 @@ public class BrightenCommand implements Command {
 
   @Override
   public void execute() {
-    ColorImage imageToBrighten = (ColorImage) controller.imageMap.get(inputImageKey);
+    Image imageToBrighten = controller.imageMap.get(inputImageKey);
     Image brightenedImage = imageToBrighten.brighten(alpha);
     controller.imageMap.put(outputImageKey, brightenedImage);
   }
+
+  @Override
+  public List<String> getInputKeys() {
+    return Collections.singletonList(inputImageKey);
+  }
+
+  @Override
+  public List<String> getOutputKeys() {
+    return Collections.singletonList(outputImageKey);
+  }
 }
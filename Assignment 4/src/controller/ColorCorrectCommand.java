@@ -1,5 +1,8 @@
 package controller;
 
+import java.util.Collections;
+import java.util.List;
+
 import model.Image;
 
 /**
@@ -38,5 +41,14 @@ public class ColorCorrectCommand implements Command {
     }
     controller.imageMap.put(outputImageKey, correctedImage);
   }
-}
 
+  @Override
+  public List<String> getInputKeys() {
+    return Collections.singletonList(inputImageKey);
+  }
+
+  @Override
+  public List<String> getOutputKeys() {
+    return Collections.singletonList(outputImageKey);
+  }
+}
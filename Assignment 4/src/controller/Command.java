@@ -1,6 +1,8 @@
 package controller;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * This interface represents a Command.
@@ -12,5 +14,37 @@ public interface Command {
    * @throws IOException if an I/O error occurs.
    */
   void execute() throws IOException;
-}
 
+  /**
+   * Returns the keys of the images this command reads.
+   *
+   * @return the input keys.
+   */
+  List<String> getInputKeys();
+
+  /**
+   * Returns the keys of the images this command stores. A command that stores no image is run
+   * for its effect outside the image map, such as writing a file.
+   *
+   * @return the output keys.
+   */
+  List<String> getOutputKeys();
+
+  /**
+   * Returns the paths of the files this command reads.
+   *
+   * @return the input files, none by default.
+   */
+  default List<String> getInputFiles() {
+    return Collections.emptyList();
+  }
+
+  /**
+   * Returns the paths of the files this command writes.
+   *
+   * @return the output files, none by default.
+   */
+  default List<String> getOutputFiles() {
+    return Collections.emptyList();
+  }
+}
@@ -0,0 +1,236 @@
+package controller;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import model.Image;
+
+/**
+ * This class runs the live commands of a script on a pool of threads, running commands that
+ * do not depend on each other at the same time. A command waits for the last command that
+ * stored each image it reads (read after write), and a command that stores an image waits for
+ * the last command that stored it and for every command that read it since (write after write
+ * and write after read). Files are tracked the same way, so a load waits for an earlier save of
+ * the same file. Removing an image after its last read counts as storing it, so it waits for
+ * every reader and the next command that stores the image waits for the removal. Every command
+ * therefore sees the same images as it would running the script in order.
+ *
+ * <p>If a command fails, no command later in the script is started, the ones running are
+ * finished, and the commands earlier in the script still run, so the error thrown is the one
+ * running the script in order would throw. Commands later in the script that did not depend
+ * on the failed one may already have run.
+ */
+public final class CommandScheduler {
+
+  private final Map<String, Image> imageMap;
+  private final int threads;
+  private int remaining;
+  private int running;
+  private Node failed;
+  private Throwable failure;
+
+  /**
+   * Constructs a scheduler for scripts that store their images in the given map.
+   *
+   * @param imageMap the images of the script; it is used from several threads.
+   * @param threads  the number of commands to run at the same time, at least 1.
+   */
+  public CommandScheduler(Map<String, Image> imageMap, int threads) {
+    if (threads < 1) {
+      throw new IllegalArgumentException("Number of threads should be at least 1");
+    }
+    this.imageMap = imageMap;
+    this.threads = threads;
+  }
+
+  /**
+   * Runs the live commands of a script and removes every image after its last read, as
+   * running them in order would.
+   *
+   * @param script   the commands in the order they appear in the script.
+   * @param liveness the liveness of the script.
+   * @throws IOException if a command fails to read or write a file.
+   */
+  public void run(List<? extends Command> script, ScriptLiveness liveness) throws IOException {
+    List<Node> graph = buildGraph(script, liveness);
+    ExecutorService pool = Executors.newFixedThreadPool(threads, new WorkerFactory());
+    try {
+      synchronized (this) {
+        remaining = graph.size();
+        running = 0;
+        failed = null;
+        failure = null;
+        for (Node node : graph) {
+          if (node.pending == 0) {
+            submit(pool, node);
+          }
+        }
+        while (remaining > 0 && (failed == null || running > 0)) {
+          try {
+            wait();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while running the script", e);
+          }
+        }
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+    rethrow(failure);
+  }
+
+  private List<Node> buildGraph(List<? extends Command> script, ScriptLiveness liveness) {
+    List<Node> graph = new ArrayList<>();
+    Map<String, Node> lastWriter = new HashMap<>();
+    Map<String, List<Node>> readersSince = new HashMap<>();
+    for (int i = 0; i < script.size(); i++) {
+      if (!liveness.isLive(i)) {
+        continue;
+      }
+      Command command = script.get(i);
+      List<String> reads = new ArrayList<>(command.getInputKeys());
+      List<String> writes = new ArrayList<>(command.getOutputKeys());
+      for (String file : command.getInputFiles()) {
+        reads.add(fileKey(file));
+      }
+      for (String file : command.getOutputFiles()) {
+        writes.add(fileKey(file));
+      }
+      graph.add(link(new Node(i, command, null), reads, writes, lastWriter, readersSince));
+      for (String key : liveness.getDeadAfter(i)) {
+        graph.add(link(new Node(i, null, key), new ArrayList<>(),
+                Collections.singletonList(key), lastWriter, readersSince));
+      }
+    }
+    return graph;
+  }
+
+  private static Node link(Node node, List<String> reads, List<String> writes,
+                           Map<String, Node> lastWriter, Map<String, List<Node>> readersSince) {
+    Set<Node> dependencies = new LinkedHashSet<>();
+    for (String key : reads) {
+      Node writer = lastWriter.get(key);
+      if (writer != null) {
+        dependencies.add(writer);
+      }
+    }
+    for (String key : writes) {
+      Node writer = lastWriter.get(key);
+      if (writer != null) {
+        dependencies.add(writer);
+      }
+      dependencies.addAll(readersSince.getOrDefault(key, new ArrayList<>()));
+    }
+    dependencies.remove(node);
+    for (String key : reads) {
+      readersSince.computeIfAbsent(key, k -> new ArrayList<>()).add(node);
+    }
+    for (String key : writes) {
+      lastWriter.put(key, node);
+      readersSince.remove(key);
+    }
+    node.pending = dependencies.size();
+    for (Node dependency : dependencies) {
+      dependency.dependents.add(node);
+    }
+    return node;
+  }
+
+  private static String fileKey(String path) {
+    return "file:" + Paths.get(path).toAbsolutePath().normalize();
+  }
+
+  private void submit(ExecutorService pool, Node node) {
+    running++;
+    pool.execute(() -> {
+      Throwable error = null;
+      if (!hasFailedBefore(node)) {
+        try {
+          if (node.command != null) {
+            node.command.execute();
+          } else {
+            imageMap.remove(node.drop);
+          }
+        } catch (IOException | RuntimeException | Error e) {
+          error = e;
+        }
+      }
+      finish(pool, node, error);
+    });
+  }
+
+  private synchronized boolean hasFailedBefore(Node node) {
+    return failed != null && failed.index < node.index;
+  }
+
+  private synchronized void finish(ExecutorService pool, Node node, Throwable error) {
+    running--;
+    remaining--;
+    if (error != null && (failed == null || node.index < failed.index)) {
+      failed = node;
+      failure = error;
+    }
+    for (Node dependent : node.dependents) {
+      if (--dependent.pending == 0 && (failed == null || dependent.index < failed.index)) {
+        submit(pool, dependent);
+      }
+    }
+    notifyAll();
+  }
+
+  private static void rethrow(Throwable failure) throws IOException {
+    if (failure instanceof IOException) {
+      throw (IOException) failure;
+    }
+    if (failure instanceof RuntimeException) {
+      throw (RuntimeException) failure;
+    }
+    if (failure instanceof Error) {
+      throw (Error) failure;
+    }
+  }
+
+  /**
+   * A command of the script, or the removal of an image after its last read, with the nodes
+   * that wait for it.
+   */
+  private static final class Node {
+    private final int index;
+    private final Command command;
+    private final String drop;
+    private int pending;
+    private final List<Node> dependents = new ArrayList<>();
+
+    private Node(int index, Command command, String drop) {
+      this.index = index;
+      this.command = command;
+      this.drop = drop;
+    }
+  }
+
+  /**
+   * Creates the daemon threads that run the commands.
+   */
+  private static final class WorkerFactory implements ThreadFactory {
+    private final AtomicInteger count = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable, "script-worker-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+}
@@ -1,6 +1,8 @@
 package controller;
 
-import model.ColorImage;
+import java.util.Collections;
+import java.util.List;
+
 import model.Image;
 
 /**
@@ -30,8 +32,18 @@ public class CompressCommand implements Command {
 
   @Override
   public void execute() {
-    ColorImage imageToCompress = (ColorImage) controller.imageMap.get(inputImageKey);
+    Image imageToCompress = controller.imageMap.get(inputImageKey);
     Image compressedImage = imageToCompress.compress(percentage);
     controller.imageMap.put(outputImageKey, compressedImage);
   }
+
+  @Override
+  public List<String> getInputKeys() {
+    return Collections.singletonList(inputImageKey);
+  }
+
+  @Override
+  public List<String> getOutputKeys() {
+    return Collections.singletonList(outputImageKey);
+  }
 }
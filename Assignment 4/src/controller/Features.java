@@ -111,7 +111,8 @@ public interface Features {
    * Adjusts the levels of a portion of the image.
    *
    * @param splitPercentage percentage of the image to apply the operation to.
-   * @return an image with the operation effect applied to a portion of it.
+   * @return an image with the operation effect applied to a portion of it, or null if no
+   *         levels were entered.
    */
   BufferedImage levelsAdjustImageWithSplit(int splitPercentage);
 
@@ -130,4 +131,17 @@ public interface Features {
    * @return an image with the operation effect applied to a portion of it.
    */
   BufferedImage colorCorrectionImageWithSplit(int splitPercentage);
+
+  /**
+   * Moves the split of the last preview without running its operation again.
+   *
+   * @param splitPercentage the new percentage of the image to show the operation on.
+   * @return the updated preview, the same image as before, or null if there is no preview.
+   */
+  BufferedImage updateSplitPreview(int splitPercentage);
+
+  /**
+   * Cancels the operation that is still running, if any.
+   */
+  void cancel();
 }
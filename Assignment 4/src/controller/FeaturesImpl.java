@@ -1,22 +1,41 @@
 package controller;
 
+import java.awt.Dimension;
 import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.function.UnaryOperator;
 
-import model.ColorImage;
-import model.GreyscaleImage;
 import model.Image;
+import model.ImagePyramid;
+import model.PackedColorImage;
+import model.PointOp;
 import view.View;
 
 /**
  * Implementation of the Features interface, providing various image processing operations.
  * This class handles image transformations such as flipping, color adjustments, filtering,
- * and compression, etc., using the methods defined in the ColorImage class.
+ * and compression, etc., using the methods defined in the Image interface.
  */
 public class FeaturesImpl implements Features {
 
-  private Image image;
+  private static final int PREVIEW_CACHE_SIZE = 8;
+
   private View view;
+  private final TaskRunner tasks;
+  private BufferedImage shownImage;
+  private Image shownModel;
+  private ImagePyramid pyramid;
+  private Image pyramidSource;
+  private Image previewLevel;
+  private SplitPreview preview;
+  private final Map<String, Image> previews =
+          new LinkedHashMap<String, Image>(PREVIEW_CACHE_SIZE, 0.75F, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Image> eldest) {
+              return size() > PREVIEW_CACHE_SIZE;
+            }
+          };
 
   private final float[][] sharpenKernel = {
           {-0.125F, -0.125F, -0.125F, -0.125F, -0.125F},
@@ -45,7 +64,80 @@ public class FeaturesImpl implements Features {
    * @param view     view interface to interact with the user interface.
    */
   public FeaturesImpl(Map<String, Image> imageMap, View view) {
+    this(imageMap, view, TaskRunner.direct());
+  }
+
+  /**
+   * Constructs a FeaturesImpl that runs image operations with the given task runner. With a
+   * background runner the view stays responsive while an operation runs, shows its progress,
+   * and can cancel it.
+   *
+   * @param imageMap map linking image names to their respective Image objects.
+   * @param view     view interface to interact with the user interface.
+   * @param tasks    runs the image operations and publishes their results.
+   */
+  public FeaturesImpl(Map<String, Image> imageMap, View view, TaskRunner tasks) {
     this.view = view;
+    this.tasks = tasks;
+  }
+
+  /**
+   * Returns the model of the image shown by the view. The model of an image this class
+   * displayed is kept, so its cached histogram is reused by the histogram panel and by
+   * color correction instead of counting the pixels again.
+   */
+  private Image currentImage() {
+    BufferedImage bufferedImage = view.getImage();
+    if (bufferedImage != shownImage || shownModel == null) {
+      shownModel = ImageController.convertToImage(bufferedImage);
+      shownImage = bufferedImage;
+    }
+    return shownModel;
+  }
+
+  /**
+   * Returns the level of the mipmap pyramid of the current image that fits in the preview,
+   * building the pyramid when the current image changes. Split previews run on this level
+   * instead of the full resolution image.
+   */
+  private Image previewImage() {
+    Image image = currentImage();
+    if (pyramid == null || pyramidSource != image) {
+      pyramid = new ImagePyramid(image);
+      pyramidSource = image;
+    }
+    Dimension size = view.getPreviewSize();
+    return pyramid.levelFor(size.width, size.height);
+  }
+
+  private void display(Image result) {
+    BufferedImage bufferedImage = ImageController.convertToBufferedImage(result);
+    view.displayImage(bufferedImage);
+    shownImage = bufferedImage;
+    shownModel = result;
+  }
+
+  /**
+   * Runs an operation on the current image and displays its result. The result is converted
+   * and its histogram plotted by the task runner, so only displaying is left to the view.
+   */
+  private void apply(String name, UnaryOperator<Image> operation) {
+    Image image = currentImage();
+    view.showProgress(name);
+    tasks.submit(() -> {
+      Image result = operation.apply(image);
+      Image histogram = result.getHistogram();
+      return new Image[]{result, histogram};
+    }, images -> {
+      display(images[0]);
+      view.displayHistogram(ImageController.convertToBufferedImage(images[1]));
+    }, view::hideProgress);
+  }
+
+  @Override
+  public void cancel() {
+    tasks.cancel();
+    view.hideProgress();
   }
 
   @Override
@@ -61,177 +153,144 @@ public class FeaturesImpl implements Features {
 
   @Override
   public void verticalFlip() {
-    BufferedImage bufferedImage = view.getImage();
-    Image imageToFlip = new ColorImage(ImageController.convertToPixels(bufferedImage));
-    Image flipped = imageToFlip.verticalFlip();
-    view.displayImage(ImageController.convertToBufferedImage(flipped.getPixels()));
-    this.loadHistogram();
+    apply("Flip Vertical", Image::verticalFlip);
   }
 
   @Override
   public void horizontalFlip() {
-    BufferedImage bufferedImage = view.getImage();
-    Image imageToFlip = new ColorImage(ImageController.convertToPixels(bufferedImage));
-    Image flipped = imageToFlip.horizontalFlip();
-    view.displayImage(ImageController.convertToBufferedImage(flipped.getPixels()));
-    this.loadHistogram();
+    apply("Flip Horizontal", Image::horizontalFlip);
   }
 
   @Override
   public void visualizeRedComponent() {
-    BufferedImage bufferedImage = view.getImage();
-    Image image = new ColorImage(ImageController.convertToPixels(bufferedImage));
-    Image redComponent = image.visualizeRedComponent();
-    view.displayImage(ImageController.convertToBufferedImage(redComponent.getPixels()));
-    this.loadHistogram();
+    apply("Visualize Red Component", Image::visualizeRedComponent);
   }
 
   @Override
   public void visualizeGreenComponent() {
-    BufferedImage bufferedImage = view.getImage();
-    Image image = new ColorImage(ImageController.convertToPixels(bufferedImage));
-    Image greenComponent = image.visualizeGreenComponent();
-    view.displayImage(ImageController.convertToBufferedImage(greenComponent.getPixels()));
-    this.loadHistogram();
+    apply("Visualize Green Component", Image::visualizeGreenComponent);
   }
 
   @Override
   public void visualizeBlueComponent() {
-    BufferedImage bufferedImage = view.getImage();
-    Image image = new ColorImage(ImageController.convertToPixels(bufferedImage));
-    Image blueComponent = image.visualizeBlueComponent();
-    view.displayImage(ImageController.convertToBufferedImage(blueComponent.getPixels()));
-    this.loadHistogram();
+    apply("Visualize Blue Component", Image::visualizeBlueComponent);
   }
 
   @Override
   public void loadHistogram() {
-    BufferedImage bufferedImage = view.getImage();
-    Image image = new ColorImage(ImageController.convertToPixels(bufferedImage));
+    Image image = currentImage();
     Image histogram = image.getHistogram();
-    view.displayHistogram(ImageController.convertToBufferedImage(histogram.getPixels()));
+    view.displayHistogram(ImageController.convertToBufferedImage(histogram));
   }
 
   @Override
   public void blurImage() {
-    BufferedImage bufferedImage = view.getImage();
-    Image image = new ColorImage(ImageController.convertToPixels(bufferedImage));
-    Image blurImg = image.filter(blurKernel);
-    view.displayImage(ImageController.convertToBufferedImage(blurImg.getPixels()));
-    this.loadHistogram();
+    apply("Blur", image -> image.filter(blurKernel));
   }
 
   @Override
   public void applySharpen() {
-    BufferedImage bufferedImage = view.getImage();
-    Image image = new ColorImage(ImageController.convertToPixels(bufferedImage));
-    Image sharpenImg = image.filter(sharpenKernel);
-    view.displayImage(ImageController.convertToBufferedImage(sharpenImg.getPixels()));
-    this.loadHistogram();
+    apply("Sharpen", image -> image.filter(sharpenKernel));
   }
 
   @Override
   public void convertToGreyscale() {
-    BufferedImage bufferedImage = view.getImage();
-    Image image = new ColorImage(ImageController.convertToPixels(bufferedImage));
-    GreyscaleImage lumaComponent = (GreyscaleImage) image.getLuma();
-    view.displayImage(ImageController.convertToBufferedImage(lumaComponent.getPixels()));
-    this.loadHistogram();
+    apply("Convert to Greyscale", Image::getLuma);
   }
 
   @Override
   public void convertToSepia() {
-    BufferedImage bufferedImage = view.getImage();
-    Image image = new ColorImage(ImageController.convertToPixels(bufferedImage));
-    Image sepiaImg = image.linearTransform(sepiaMatrix);
-    view.displayImage(ImageController.convertToBufferedImage(sepiaImg.getPixels()));
-    this.loadHistogram();
+    apply("Convert to Sepia", image -> image.linearTransform(sepiaMatrix));
   }
 
   @Override
   public void applyCompression() {
     float compressionPercentage = view.getCompressionPercentage();
-    BufferedImage bufferedImage = view.getImage();
-    Image image = new ColorImage(ImageController.convertToPixels(bufferedImage));
-    Image compressedImage = image.compress(compressionPercentage);
-    view.displayImage(ImageController.convertToBufferedImage(compressedImage.getPixels()));
-    this.loadHistogram();
+    apply("Compress", image -> image.compress(compressionPercentage));
   }
 
   @Override
   public void colorCorrect() {
-    BufferedImage bufferedImage = view.getImage();
-    Image image = new ColorImage(ImageController.convertToPixels(bufferedImage));
-    Image colorCorrectImg = image.colorCorrect();
-    view.displayImage(ImageController.convertToBufferedImage(colorCorrectImg.getPixels()));
-    this.loadHistogram();
+    apply("Color Correct", Image::colorCorrect);
   }
 
   @Override
   public void adjustLevels() {
     String[] levelValues = view.getLevelAdjustments();
-    BufferedImage bufferedImage = view.getImage();
-    Image image = new ColorImage(ImageController.convertToPixels(bufferedImage));
-    Image adjustLevelsImg = image.adjustLevels(levelValues[0], levelValues[1], levelValues[2]);
-    view.displayImage(ImageController.convertToBufferedImage(adjustLevelsImg.getPixels()));
-    this.loadHistogram();
+    if (levelValues == null) {
+      return;
+    }
+    apply("Adjust Levels", image -> image.adjustLevels(levelValues[0], levelValues[1],
+            levelValues[2]));
   }
 
   @Override
   public BufferedImage blurImageWithSplit(int splitPercentage) {
-    BufferedImage bufferedImage = view.getImage();
-    Image image = new ColorImage(ImageController.convertToPixels(bufferedImage));
-    Image blurImg = image.filterSplit(blurKernel, splitPercentage);
-    BufferedImage img = ImageController.convertToBufferedImage(blurImg.getPixels());
-    return img;
+    return splitPreview("blur", image -> image.filter(blurKernel), splitPercentage);
   }
 
   @Override
   public BufferedImage sharpenImageWithSplit(int splitPercentage) {
-    BufferedImage bufferedImage = view.getImage();
-    Image image = new ColorImage(ImageController.convertToPixels(bufferedImage));
-    Image sharpenImg = image.filterSplit(sharpenKernel, splitPercentage);
-    BufferedImage img = ImageController.convertToBufferedImage(sharpenImg.getPixels());
-    return img;
+    return splitPreview("sharpen", image -> image.filter(sharpenKernel), splitPercentage);
   }
 
   @Override
   public BufferedImage sepiaImageWithSplit(int splitPercentage) {
-    BufferedImage bufferedImage = view.getImage();
-    Image image = new ColorImage(ImageController.convertToPixels(bufferedImage));
-    Image sepiaImg = image.linearTransformWithSplit(sepiaMatrix, splitPercentage);
-    BufferedImage img = ImageController.convertToBufferedImage(sepiaImg.getPixels());
-    return img;
+    return splitPreview("sepia", image -> image.linearTransform(sepiaMatrix), splitPercentage);
   }
 
   @Override
   public BufferedImage levelsAdjustImageWithSplit(int splitPercentage) {
     String[] levelValues = view.getLevelAdjustments();
-    BufferedImage bufferedImage = view.getImage();
-    Image image = new ColorImage(ImageController.convertToPixels(bufferedImage));
-    Image adjustLevelsImg = image.levelAdjustWithSplit(levelValues[0],
-            levelValues[1], levelValues[2], splitPercentage);
-    BufferedImage img = ImageController.convertToBufferedImage(adjustLevelsImg.getPixels());
-    return img;
+    if (levelValues == null) {
+      return null;
+    }
+    return splitPreview("levels-adjust " + String.join(" ", levelValues),
+            image -> image.adjustLevels(levelValues[0], levelValues[1], levelValues[2]),
+            splitPercentage);
   }
 
   @Override
   public BufferedImage greyscaleImageWithSplit(int splitPercentage) {
-    BufferedImage bufferedImage = view.getImage();
-    Image image = new ColorImage(ImageController.convertToPixels(bufferedImage));
-    Image lumaComponent = image.lumaWithSplit(splitPercentage);
-    BufferedImage img = ImageController.convertToBufferedImage(lumaComponent.getPixels());
-    return img;
+    return splitPreview("luma", Image::getLuma, splitPercentage);
   }
 
   @Override
   public BufferedImage colorCorrectionImageWithSplit(int splitPercentage) {
-    BufferedImage bufferedImage = view.getImage();
-    Image image = new ColorImage(ImageController.convertToPixels(bufferedImage));
-    Image colorCorrectImg = image.colorCorrectWithSplit(splitPercentage);
-    BufferedImage img = ImageController.convertToBufferedImage(colorCorrectImg.getPixels());
-    return img;
+    // The peaks of the averaged preview level differ from the full image's, so the offsets come
+    // from the full-resolution histogram and only the resulting point operation runs on the level.
+    return splitPreview("color-correct", level -> PointOp.colorCorrection(
+            PackedColorImage.from(currentImage()).getChannelHistogram())
+            .apply(PackedColorImage.from(level)), splitPercentage);
   }
 
+  @Override
+  public BufferedImage updateSplitPreview(int splitPercentage) {
+    if (preview == null) {
+      return null;
+    }
+    preview.setSplitPercentage(splitPercentage);
+    return preview.getImage();
+  }
 
+  /**
+   * Starts a split preview of an operation on the preview level of the current image. The
+   * whole level is transformed once per operation and parameters and kept, so showing the
+   * same preview again, or moving its split, does not run the operation.
+   */
+  private BufferedImage splitPreview(String key, UnaryOperator<Image> operation,
+                                     int splitPercentage) {
+    Image level = previewImage();
+    if (level != previewLevel) {
+      previews.clear();
+      previewLevel = level;
+    }
+    Image transformed = previews.get(key);
+    if (transformed == null) {
+      transformed = operation.apply(level);
+      previews.put(key, transformed);
+    }
+    preview = new SplitPreview(level, transformed, splitPercentage);
+    return preview.getImage();
+  }
 }
@@ -0,0 +1,64 @@
+package controller;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+import model.Image;
+
+/**
+ * A command that filters the image with a kernel read from a text file.
+ */
+public class FilterCommand implements Command {
+  private ImageController controller;
+  private String kernelPath;
+  private String inputImageKey;
+  private String outputImageKey;
+  private Integer percentage;
+
+  /**
+   * Constructs a new FilterCommand with the specified parameters.
+   *
+   * @param controller     to facilitate image processing operations.
+   * @param kernelPath     path of the file holding the kernel.
+   * @param inputImageKey  used to retrieve the input image.
+   * @param outputImageKey used to store the processed image.
+   * @param percentage     percentage used for split, or null to filter the whole image.
+   */
+  public FilterCommand(ImageController controller, String kernelPath, String inputImageKey,
+                       String outputImageKey, Integer percentage) {
+    this.controller = controller;
+    this.kernelPath = kernelPath;
+    this.inputImageKey = inputImageKey;
+    this.outputImageKey = outputImageKey;
+    this.percentage = percentage;
+  }
+
+  @Override
+  public void execute() throws IOException {
+    float[][] kernel = controller.readKernel(kernelPath);
+    Image imageToFilter = controller.imageMap.get(inputImageKey);
+    Image filteredImage;
+    if (percentage != null) {
+      filteredImage = imageToFilter.filterSplit(kernel, percentage);
+    } else {
+      filteredImage = imageToFilter.filter(kernel);
+    }
+    controller.imageMap.put(outputImageKey, filteredImage);
+  }
+
+  @Override
+  public List<String> getInputKeys() {
+    return Collections.singletonList(inputImageKey);
+  }
+
+  @Override
+  public List<String> getOutputKeys() {
+    return Collections.singletonList(outputImageKey);
+  }
+
+  @Override
+  public List<String> getInputFiles() {
+    return Collections.singletonList(kernelPath);
+  }
+}
@@ -1,5 +1,8 @@
 package controller;
 
+import java.util.Collections;
+import java.util.List;
+
 import model.Image;
 
 /**
@@ -30,4 +33,14 @@ public class GreenComponentCommand implements Command {
     Image greenComponent = imageToGreenTransform.visualizeGreenComponent();
     controller.imageMap.put(outputImageKey, greenComponent);
   }
+
+  @Override
+  public List<String> getInputKeys() {
+    return Collections.singletonList(inputImageKey);
+  }
+
+  @Override
+  public List<String> getOutputKeys() {
+    return Collections.singletonList(outputImageKey);
+  }
 }
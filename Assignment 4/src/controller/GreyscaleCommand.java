@@ -1,6 +1,8 @@
 package controller;
 
-import model.ColorImage;
+import java.util.Collections;
+import java.util.List;
+
 import model.Image;
 
 /**
@@ -30,7 +32,7 @@ public class GreyscaleCommand implements Command {
 
   @Override
   public void execute() {
-    ColorImage imageToTransform3 = (ColorImage) controller.imageMap.get(inputImageKey);
+    Image imageToTransform3 = controller.imageMap.get(inputImageKey);
     float[][] greyscaleMatrix = {
             {0.2126F, 0.7152F, 0.0722F},
             {0.2126F, 0.7152F, 0.0722F},
@@ -44,4 +46,14 @@ public class GreyscaleCommand implements Command {
     }
     controller.imageMap.put(outputImageKey, transformedImage3);
   }
+
+  @Override
+  public List<String> getInputKeys() {
+    return Collections.singletonList(inputImageKey);
+  }
+
+  @Override
+  public List<String> getOutputKeys() {
+    return Collections.singletonList(outputImageKey);
+  }
 }
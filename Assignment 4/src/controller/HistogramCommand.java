@@ -1,5 +1,8 @@
 package controller;
 
+import java.util.Collections;
+import java.util.List;
+
 import model.Image;
 
 /**
@@ -29,5 +32,14 @@ public class HistogramCommand implements Command {
     Image histogramImage = imageForHistogram.getHistogram();
     controller.imageMap.put(outputImageKey, histogramImage);
   }
-}
 
+  @Override
+  public List<String> getInputKeys() {
+    return Collections.singletonList(inputImageKey);
+  }
+
+  @Override
+  public List<String> getOutputKeys() {
+    return Collections.singletonList(outputImageKey);
+  }
+}
@@ -1,6 +1,8 @@
 package controller;
 
-import model.ColorImage;
+import java.util.Collections;
+import java.util.List;
+
 import model.Image;
 
 /**
@@ -27,8 +29,18 @@ public class HorizontalFlipCommand implements Command {
 
   @Override
   public void execute() {
-    ColorImage imageToHFlip = (ColorImage) controller.imageMap.get(inputImageKey);
+    Image imageToHFlip = controller.imageMap.get(inputImageKey);
     Image flipImage = imageToHFlip.horizontalFlip();
     controller.imageMap.put(outputImageKey, flipImage);
   }
+
+  @Override
+  public List<String> getInputKeys() {
+    return Collections.singletonList(inputImageKey);
+  }
+
+  @Override
+  public List<String> getOutputKeys() {
+    return Collections.singletonList(outputImageKey);
+  }
 }
@@ -1,18 +1,22 @@
 package controller;
 
-import java.awt.Color;
+import java.awt.EventQueue;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
-import java.util.HashMap;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Scanner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.imageio.ImageIO;
 
-import model.ColorPixel;
+import model.PackedColorImage;
 import model.Pixel;
+import model.RowScheduler;
 import view.View;
 
 /**
@@ -20,21 +24,156 @@ import view.View;
  */
 public class ImageController {
 
-  Map<String, model.Image> imageMap = new HashMap<>();
+  Map<String, model.Image> imageMap = new ImageStore(ImageStore.defaultBudget());
   Features features;
   View view;
+  boolean lazy = true;
+  boolean sequential = false;
+  private IoPipeline io;
+  private Path directory;
+  private final Map<String, CompletableFuture<model.Image>> preloaded = new ConcurrentHashMap<>();
+  private final List<CompletableFuture<Void>> pendingWrites = new ArrayList<>();
 
   /**
-   * Sets the view for this controller and initializes the features.
+   * Sets the view for this controller and initializes the features. Image operations started
+   * from the view run on a background thread and are displayed on the event dispatch thread.
    *
    * @param view to be associated with this controller.
    */
   public void setView(View view) {
     this.view = view;
-    features = new FeaturesImpl(imageMap, view);
+    features = new FeaturesImpl(imageMap, view, TaskRunner.background(EventQueue::invokeLater));
     view.addFeatures(features);
   }
 
+  /**
+   * Sets whether script commands are evaluated lazily. When lazy, loaded images are wrapped in
+   * LazyImage so that commands only record what to do, per-pixel commands are fused into one
+   * pass, and pixels are computed when an image is saved. Lazy evaluation is on by default.
+   *
+   * @param lazy true to evaluate lazily, false to compute every command as it runs.
+   */
+  public void setLazyEvaluation(boolean lazy) {
+    this.lazy = lazy;
+  }
+
+  /**
+   * Sets whether the commands of a script run one after the other. By default commands that do
+   * not depend on each other's images or files run at the same time, on as many threads as
+   * image operations use; the results are the same either way.
+   *
+   * @param sequential true to run script commands in order on the calling thread.
+   */
+  public void setSequential(boolean sequential) {
+    this.sequential = sequential;
+  }
+
+  /**
+   * Sets the pipeline that load and save commands read and write files through. With a
+   * pipeline, saves return once the image is computed and the file is written in the
+   * background; {@link #whenWritten()} tells when they are done. Without one, files are read and written
+   * by the command itself.
+   *
+   * @param io the pipeline, or null to read and write files directly.
+   */
+  public void setIoPipeline(IoPipeline io) {
+    this.io = io;
+  }
+
+  /**
+   * Starts reading a file through the pipeline before the script loads it, so the file is
+   * decoded while other work runs. The load command of that path takes the image instead of
+   * reading the file.
+   *
+   * @param path the path of the file, exactly as the load command names it.
+   * @return the image once read.
+   * @throws IllegalStateException if no pipeline is set.
+   */
+  public CompletableFuture<model.Image> preload(String path) {
+    if (io == null) {
+      throw new IllegalStateException("Preloading needs an I/O pipeline");
+    }
+    CompletableFuture<model.Image> image = io.read(path);
+    preloaded.put(path, image);
+    return image;
+  }
+
+  /**
+   * Returns a future that completes once the files saved so far through the pipeline are
+   * written, exceptionally if one of them could not be written.
+   *
+   * @return the future of the pending writes.
+   */
+  public CompletableFuture<Void> whenWritten() {
+    synchronized (pendingWrites) {
+      CompletableFuture<Void> all = CompletableFuture.allOf(
+              pendingWrites.toArray(new CompletableFuture<?>[0]));
+      pendingWrites.clear();
+      return all;
+    }
+  }
+
+  /**
+   * Reads an image for a load command, taking a preloaded image if there is one.
+   */
+  model.Image read(String path) throws IOException {
+    CompletableFuture<model.Image> image = preloaded.remove(path);
+    path = resolve(path);
+    if (image == null && io != null) {
+      image = io.read(path);
+    }
+    return image == null ? readImage(path) : IoPipeline.await(image);
+  }
+
+  /**
+   * Reads the kernel of a filter command.
+   */
+  float[][] readKernel(String path) throws IOException {
+    return ImageUtil.readKernel(resolve(path));
+  }
+
+  /**
+   * Writes an image for a save command, in the background if there is a pipeline.
+   */
+  void write(model.Image image, String format, String path, boolean binary)
+          throws IOException {
+    path = resolve(path);
+    if (io == null) {
+      writeImage(image, format, path, binary);
+      return;
+    }
+    CompletableFuture<Void> write = io.write(image, format, path, binary);
+    synchronized (pendingWrites) {
+      pendingWrites.add(write);
+    }
+  }
+
+  /**
+   * Sets the directory that relative paths in load, save and filter commands are resolved
+   * against.
+   *
+   * @param directory the directory, or null to use the working directory of the program.
+   */
+  public void setWorkingDirectory(Path directory) {
+    this.directory = directory;
+  }
+
+  private String resolve(String path) {
+    return directory == null ? path : directory.resolve(path).toString();
+  }
+
+  /**
+   * Sets the map that script commands store their images in. Images already stored are moved
+   * to the new map. By default images are kept in an ImageStore with half the heap as its
+   * budget.
+   *
+   * @param store the map to store images in.
+   */
+  public void setImageStore(Map<String, model.Image> store) {
+    store.putAll(imageMap);
+    imageMap = store;
+  }
+
   /**
    * Load an image from the given path.
    *
@@ -55,6 +194,39 @@ public class ImageController {
     }
   }
 
+  /**
+   * Load an image from the given path. PPM files are read straight into a packed image.
+   *
+   * @param path the path where the image is located.
+   * @return the loaded image.
+   * @throws IOException if the image can't be loaded.
+   */
+  public static model.Image readImage(String path) throws IOException {
+    String extension = path.substring(path.lastIndexOf(".") + 1);
+    if (extension.equalsIgnoreCase("ppm")) {
+      return ImageUtil.readPPMImage(path);
+    }
+    return convertToImage(loadImage(path));
+  }
+
+  /**
+   * Save an image to a file. PPM files are written straight from the image data.
+   *
+   * @param image  the image to save.
+   * @param format the format in which to save the image.
+   * @param path   the location where to save the image.
+   * @param binary true to write a PPM file in the binary (P6) format instead of P3.
+   * @throws IOException if the image can't be saved.
+   */
+  public static void writeImage(model.Image image, String format, String path, boolean binary)
+          throws IOException {
+    if (format.equalsIgnoreCase("ppm")) {
+      ImageUtil.writePPM(image, path, binary);
+    } else {
+      saveImage(convertToBufferedImage(image), format, path);
+    }
+  }
+
   /**
    * Save a given BufferedImage to a file.
    *
@@ -78,58 +250,76 @@ public class ImageController {
    * @return 2D array of Pixels.
    */
   public static Pixel[][] convertToPixels(BufferedImage image) {
-    int width = image.getWidth();
-    int height = image.getHeight();
-    Pixel[][] pixels = new ColorPixel[height][width];
-
-    for (int y = 0; y < height; y++) {
-      for (int x = 0; x < width; x++) {
-        Color color = new Color(image.getRGB(x, y));
-        pixels[y][x] = new ColorPixel(color.getRed(), color.getGreen(), color.getBlue());
-      }
-    }
-    return pixels;
+    return RasterBridge.toImage(image).getPixels();
   }
 
   /**
-   * Convert a 2D array of Pixels into a BufferedImage.
+   * Convert a 2D array of Pixels into a BufferedImage. Channel values are clamped to [0, 255].
    *
    * @param pixels the 2D array of Pixels to convert.
    * @return BufferedImage of the Pixels.
    */
   public static BufferedImage convertToBufferedImage(Pixel[][] pixels) {
-    int height = pixels.length;
-    int width = pixels[0].length;
-    BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
-
-    for (int y = 0; y < height; y++) {
-      for (int x = 0; x < width; x++) {
-        ColorPixel pixel = (ColorPixel) pixels[y][x];
-        int red = pixel.getRedValue();
-        red = Math.min(255, Math.max(0, red));
-
-        int green = pixel.getGreenValue();
-        green = Math.min(255, Math.max(0, green));
+    return RasterBridge.toBufferedImage(new PackedColorImage(pixels));
+  }
 
-        int blue = pixel.getBlueValue();
-        blue = Math.min(255, Math.max(0, blue));
+  /**
+   * Convert a BufferedImage into a packed image without creating pixel objects. A TYPE_INT_RGB
+   * image is wrapped without copying its pixels.
+   *
+   * @param image the image to convert.
+   * @return the packed image.
+   */
+  public static model.Image convertToImage(BufferedImage image) {
+    return RasterBridge.toImage(image);
+  }
 
-        Color color = new Color(red, green, blue);
-        image.setRGB(x, y, color.getRGB());
-      }
-    }
-    return image;
+  /**
+   * Convert an image into a BufferedImage that shares the pixels of the image.
+   *
+   * @param image the image to convert.
+   * @return BufferedImage of the image.
+   */
+  public static BufferedImage convertToBufferedImage(model.Image image) {
+    return RasterBridge.toBufferedImage(image);
   }
 
   /**
-   * Process a list of script commands.
+   * Process a list of script commands. The whole script is parsed first and analysed for the
+   * last use of every image: commands whose images are never saved are skipped, and images
+   * are removed from the image map right after the last command that reads them. Unless the
+   * controller is sequential, independent commands run at the same time. The commands before
+   * an invalid command are run before its error is thrown.
    *
    * @param commands list of commands to be processed.
    * @throws IOException if there's an error while command segregation.
    */
   public void processCommands(List<String> commands) throws IOException {
+    List<Command> script = new ArrayList<>();
+    RuntimeException invalidCommand = null;
     for (String command : commands) {
-      processCommand(command);
+      try {
+        script.add(parseCommand(command));
+      } catch (RuntimeException e) {
+        invalidCommand = e;
+        break;
+      }
+    }
+    ScriptLiveness liveness = ScriptLiveness.analyze(script);
+    if (sequential) {
+      for (int i = 0; i < script.size(); i++) {
+        if (liveness.isLive(i)) {
+          script.get(i).execute();
+          for (String key : liveness.getDeadAfter(i)) {
+            imageMap.remove(key);
+          }
+        }
+      }
+    } else {
+      new CommandScheduler(imageMap, RowScheduler.getParallelism()).run(script, liveness);
+    }
+    if (invalidCommand != null) {
+      throw invalidCommand;
     }
   }
 
@@ -157,6 +347,17 @@ public class ImageController {
    * @throws IOException if there's an error while processing the command.
    */
   public void processCommand(String commandLine) throws IOException {
+    parseCommand(commandLine).execute();
+  }
+
+  /**
+   * Parses a script command into the command that runs it.
+   *
+   * @param commandLine the command and its arguments separated by spaces.
+   * @return the command.
+   * @throws IllegalArgumentException if the command is not valid.
+   */
+  public Command parseCommand(String commandLine) {
     String[] parts = commandLine.split(" ");
     controller.Command command;
 
@@ -250,6 +451,20 @@ public class ImageController {
         command = new BlurCommand(this, parts[1], parts[2], blurPercentage);
         break;
 
+      case "blur-radius":
+        int radius = Integer.parseInt(parts[1]);
+        boolean gaussian = parts.length == 5 && "gaussian".equals(parts[4]);
+        command = new BlurRadiusCommand(this, radius, gaussian, parts[2], parts[3]);
+        break;
+
+      case "filter":
+        Integer filterPercentage = null;
+        if (parts.length == 6 && "split".equals(parts[4])) {
+          filterPercentage = Integer.parseInt(parts[5]);
+        }
+        command = new FilterCommand(this, parts[1], parts[2], parts[3], filterPercentage);
+        break;
+
       case "sharpen":
         Integer sharpenPercentage = null;
         if (parts.length == 5 && "split".equals(parts[3])) {
@@ -259,7 +474,8 @@ public class ImageController {
         break;
 
       case "save":
-        command = new SaveCommand(this, parts[1], parts[2]);
+        boolean binary = parts.length == 4 && "binary".equals(parts[3]);
+        command = new SaveCommand(this, parts[1], parts[2], binary);
         break;
 
       case "brighten":
@@ -276,6 +492,6 @@ public class ImageController {
         throw new IllegalArgumentException("Please enter a valid command!");
     }
 
-    command.execute();
+    return command;
   }
 }
\ No newline at end of file
@@ -0,0 +1,478 @@
+package controller;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import model.Image;
+import model.LazyImage;
+import model.PackedColorImage;
+import model.PackedGreyscaleImage;
+
+/**
+ * This class stores the images a script names, keeping the ones used most recently in memory
+ * within a budget of bytes. An image is counted at four bytes a pixel, the size of its packed
+ * pixels; a lazy image that has not been computed holds no pixels of its own and is not
+ * counted. When the images in memory go over the budget, the least recently used computed
+ * images are spilled to raw files in a temporary directory, three bytes a pixel or one for
+ * greyscale images, and read back through a memory mapped file the next time they are asked
+ * for. A spilled lazy image comes back as a computed lazy image, so later commands on it stay
+ * lazy.
+ *
+ * <p>An image that a pending lazy image still reads from stays in memory whether or not it is
+ * stored, so it is counted but never spilled: spilling it would free nothing. Computed images
+ * that pending images read from without being stored are counted too.
+ *
+ * <p>The store is a map, so commands use it as they would any other map of images. Replacing or
+ * removing a spilled image returns null instead of reading it back. It is safe to use from
+ * several threads, and spill files are written outside its lock, so a slow spill does not hold
+ * up other threads. Closing it deletes the spill files; a store left open has them deleted when
+ * the program exits, by one shutdown hook for its whole spill directory.
+ */
+public class ImageStore extends AbstractMap<String, Image> implements Closeable {
+
+  private static final int CHUNK_PIXELS = 1 << 18;
+
+  private final long budget;
+  private final Path parent;
+  private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75F, true);
+  private Path directory;
+  private Thread cleanup;
+  private long residentBytes;
+  private long fileCount;
+
+  /**
+   * Constructs a store that spills images to a new directory in the default temporary
+   * directory.
+   *
+   * @param budget the number of bytes of images to keep in memory.
+   */
+  public ImageStore(long budget) {
+    this(budget, null);
+  }
+
+  /**
+   * Constructs a store that spills images to a new directory in the given directory.
+   *
+   * @param budget the number of bytes of images to keep in memory.
+   * @param parent the directory to create the spill directory in, or null for the default
+   *               temporary directory.
+   * @throws IllegalArgumentException if the budget is negative.
+   */
+  public ImageStore(long budget, Path parent) {
+    if (budget < 0) {
+      throw new IllegalArgumentException("Memory budget cannot be negative");
+    }
+    this.budget = budget;
+    this.parent = parent;
+  }
+
+  /**
+   * Returns the budget used when none is given: half of the maximum heap.
+   *
+   * @return the default budget in bytes.
+   */
+  public static long defaultBudget() {
+    return Runtime.getRuntime().maxMemory() / 2;
+  }
+
+  @Override
+  public Image get(Object key) {
+    Image image;
+    List<Entry> victims;
+    synchronized (this) {
+      Entry entry = entries.get(key);
+      if (entry == null) {
+        return null;
+      }
+      if (entry.image != null && !entry.spilling) {
+        return entry.image;
+      }
+      if (entry.image == null) {
+        entry.image = reload(entry);
+      }
+      // An image still being written to its spill file stays in memory after all.
+      entry.spilling = false;
+      image = entry.image;
+      victims = trim(entry);
+    }
+    spill(victims);
+    return image;
+  }
+
+  @Override
+  public Image put(String key, Image image) {
+    Image replaced;
+    List<Entry> victims;
+    synchronized (this) {
+      Entry entry = new Entry(image);
+      Entry previous = entries.put(key, entry);
+      replaced = previous == null ? null : discard(previous);
+      victims = trim(entry);
+    }
+    spill(victims);
+    return replaced;
+  }
+
+  @Override
+  public synchronized Image remove(Object key) {
+    Entry entry = entries.remove(key);
+    return entry == null ? null : discard(entry);
+  }
+
+  @Override
+  public synchronized boolean containsKey(Object key) {
+    return entries.containsKey(key);
+  }
+
+  @Override
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  @Override
+  public synchronized void clear() {
+    for (Entry entry : entries.values()) {
+      discard(entry);
+    }
+    entries.clear();
+    residentBytes = 0;
+  }
+
+  @Override
+  public Set<Map.Entry<String, Image>> entrySet() {
+    return new AbstractSet<Map.Entry<String, Image>>() {
+      @Override
+      public Iterator<Map.Entry<String, Image>> iterator() {
+        List<String> keys;
+        synchronized (ImageStore.this) {
+          keys = new ArrayList<>(entries.keySet());
+        }
+        Iterator<String> iterator = keys.iterator();
+        return new Iterator<Map.Entry<String, Image>>() {
+          private String current;
+
+          @Override
+          public boolean hasNext() {
+            return iterator.hasNext();
+          }
+
+          @Override
+          public Map.Entry<String, Image> next() {
+            current = iterator.next();
+            return new SimpleImmutableEntry<>(current, get(current));
+          }
+
+          @Override
+          public void remove() {
+            ImageStore.this.remove(current);
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return ImageStore.this.size();
+      }
+    };
+  }
+
+  /**
+   * Returns the number of bytes the images kept in memory are counted as.
+   *
+   * @return the bytes in memory.
+   */
+  public synchronized long getResidentBytes() {
+    return residentBytes;
+  }
+
+  /**
+   * Tells whether the image stored under a key is spilled to disk.
+   *
+   * @param key the name of the image.
+   * @return true if the image is stored and is not in memory.
+   */
+  public synchronized boolean isSpilled(String key) {
+    Entry entry = entries.get(key);
+    return entry != null && entry.image == null;
+  }
+
+
+  /**
+   * Deletes every spill file and the spill directory. The store is empty afterwards.
+   *
+   * @throws IOException if the files cannot be deleted.
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    clear();
+    if (directory != null) {
+      Files.deleteIfExists(directory);
+      directory = null;
+      try {
+        Runtime.getRuntime().removeShutdownHook(cleanup);
+      } catch (IllegalStateException e) {
+        // The program is exiting and the hook is running or has run.
+      }
+      cleanup = null;
+    }
+  }
+
+  private static long footprint(Image image) {
+    if (image instanceof LazyImage && !((LazyImage) image).isEvaluated()) {
+      return 0;
+    }
+    return 4L * image.getWidth() * image.getHeight();
+  }
+
+  private Image discard(Entry entry) {
+    residentBytes -= entry.bytes;
+    entry.bytes = 0;
+    deleteFile(entry);
+    entry.spilling = false;
+    return entry.image;
+  }
+
+  /**
+   * Counts the images in memory again, since lazy images may have been computed since they were
+   * stored, and picks the least recently used images, other than the one just used and those
+   * pending images read from, to spill until the rest fit in the budget. The picked images are
+   * marked as spilling and no longer counted; the caller writes them once it has released the
+   * lock.
+   */
+  private List<Entry> trim(Entry keep) {
+    Set<Image> pinned = pinned();
+    Set<Image> stored = Collections.newSetFromMap(new IdentityHashMap<>());
+    residentBytes = 0;
+    for (Entry entry : entries.values()) {
+      if (entry.image != null) {
+        stored.add(entry.image);
+        entry.bytes = entry.spilling ? 0 : footprint(entry.image);
+        residentBytes += entry.bytes;
+      }
+    }
+    for (Image image : pinned) {
+      if (!stored.contains(image)) {
+        residentBytes += footprint(image);
+      }
+    }
+    List<Entry> victims = new ArrayList<>();
+    Iterator<Entry> eldest = entries.values().iterator();
+    while (residentBytes > budget && eldest.hasNext()) {
+      Entry entry = eldest.next();
+      if (entry != keep && entry.bytes > 0 && !pinned.contains(entry.image)) {
+        residentBytes -= entry.bytes;
+        entry.bytes = 0;
+        entry.spilling = true;
+        victims.add(entry);
+      }
+    }
+    return victims;
+  }
+
+  /**
+   * Returns every image that a stored pending lazy image reads from, directly or through other
+   * pending images.
+   */
+  private Set<Image> pinned() {
+    Set<Image> reached = Collections.newSetFromMap(new IdentityHashMap<>());
+    Deque<Image> pending = new ArrayDeque<>();
+    for (Entry entry : entries.values()) {
+      if (entry.image instanceof LazyImage) {
+        pending.addAll(((LazyImage) entry.image).getPendingInputs());
+      }
+    }
+    while (!pending.isEmpty()) {
+      Image image = pending.pop();
+      if (reached.add(image) && image instanceof LazyImage) {
+        pending.addAll(((LazyImage) image).getPendingInputs());
+      }
+    }
+    return reached;
+  }
+
+  /**
+   * Writes the images picked by trim to their spill files and drops them from memory, unless
+   * they were asked for, replaced or removed in the meantime. An image that cannot be written
+   * stays in memory and is counted again by the next trim.
+   */
+  private void spill(List<Entry> victims) {
+    IOException failure = null;
+    for (Entry victim : victims) {
+      try {
+        spill(victim);
+      } catch (IOException e) {
+        synchronized (this) {
+          victim.spilling = false;
+        }
+        failure = e;
+      }
+    }
+    if (failure != null) {
+      throw new UncheckedIOException("Could not spill image to disk", failure);
+    }
+  }
+
+  private void spill(Entry victim) throws IOException {
+    Image image;
+    Path file;
+    synchronized (this) {
+      if (!victim.spilling) {
+        return;
+      }
+      image = victim.image;
+      file = newFile();
+    }
+    PackedColorImage packed = PackedColorImage.from(image);
+    boolean greyscale = packed instanceof PackedGreyscaleImage;
+    try {
+      write(packed.getRgbData(), greyscale ? 1 : 3, file);
+    } catch (IOException e) {
+      deleteFile(file);
+      throw e;
+    }
+    synchronized (this) {
+      if (victim.spilling) {
+        victim.file = file;
+        victim.width = packed.getWidth();
+        victim.height = packed.getHeight();
+        victim.greyscale = greyscale;
+        victim.lazy = image instanceof LazyImage;
+        victim.image = null;
+        victim.spilling = false;
+        return;
+      }
+    }
+    deleteFile(file);
+  }
+
+  private Path newFile() throws IOException {
+    if (directory == null) {
+      directory = parent == null ? Files.createTempDirectory("image-store")
+              : Files.createTempDirectory(parent, "image-store");
+      Path created = directory;
+      cleanup = new Thread(() -> deleteDirectory(created));
+      Runtime.getRuntime().addShutdownHook(cleanup);
+    }
+    return directory.resolve((fileCount++) + ".raw");
+  }
+
+  /**
+   * Deletes a spill directory and the files left in it, as the program exits without the store
+   * being closed.
+   */
+  private static void deleteDirectory(Path directory) {
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+      for (Path file : files) {
+        deleteFile(file);
+      }
+    } catch (IOException e) {
+      // Nothing more can be done while exiting.
+    }
+    deleteFile(directory);
+  }
+
+  private static void write(int[] rgb, int bytesPerPixel, Path file) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(CHUNK_PIXELS * bytesPerPixel);
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      for (int from = 0; from < rgb.length; from += CHUNK_PIXELS) {
+        int to = Math.min(rgb.length, from + CHUNK_PIXELS);
+        buffer.clear();
+        for (int i = from; i < to; i++) {
+          int p = rgb[i];
+          if (bytesPerPixel == 1) {
+            buffer.put((byte) p);
+          } else {
+            buffer.put((byte) (p >> 16)).put((byte) (p >> 8)).put((byte) p);
+          }
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+          channel.write(buffer);
+        }
+      }
+    }
+  }
+
+  private Image reload(Entry entry) {
+    int bytesPerPixel = entry.greyscale ? 1 : 3;
+    int[] rgb = new int[entry.width * entry.height];
+    try (FileChannel channel = FileChannel.open(entry.file, StandardOpenOption.READ)) {
+      for (int from = 0; from < rgb.length; from += CHUNK_PIXELS) {
+        int to = Math.min(rgb.length, from + CHUNK_PIXELS);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY,
+                (long) from * bytesPerPixel, (long) (to - from) * bytesPerPixel);
+        for (int i = from; i < to; i++) {
+          if (bytesPerPixel == 1) {
+            int value = buffer.get() & 0xFF;
+            rgb[i] = (value << 16) | (value << 8) | value;
+          } else {
+            rgb[i] = ((buffer.get() & 0xFF) << 16) | ((buffer.get() & 0xFF) << 8)
+                    | (buffer.get() & 0xFF);
+          }
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not read spilled image", e);
+    }
+    deleteFile(entry);
+    PackedColorImage image = entry.greyscale
+            ? new PackedGreyscaleImage(entry.width, entry.height, rgb)
+            : new PackedColorImage(entry.width, entry.height, rgb);
+    return entry.lazy ? new LazyImage(image) : image;
+  }
+
+  private static void deleteFile(Entry entry) {
+    if (entry.file != null) {
+      deleteFile(entry.file);
+      entry.file = null;
+    }
+  }
+
+  private static void deleteFile(Path file) {
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      // The file is deleted with its directory when the store closes or the program exits.
+    }
+  }
+
+  /**
+   * An image in the store, either in memory or in a spill file.
+   */
+  private static final class Entry {
+    private Image image;
+    private long bytes;
+    private Path file;
+    private int width;
+    private int height;
+    private boolean greyscale;
+    private boolean lazy;
+    private boolean spilling;
+
+    private Entry(Image image) {
+      this.image = image;
+      this.bytes = footprint(image);
+    }
+  }
+}
@@ -1,95 +1,325 @@
 package controller;
 
-import java.awt.Color;
 import java.awt.image.BufferedImage;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.util.Scanner;
-import java.io.FileNotFoundException;
-import java.io.FileInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import model.Image;
+import model.PackedColorImage;
 
 
 /**
  * This class contains utility methods to read and write a PPM image.
+ * Both the plain (P3) and the binary (P6) formats are streamed through a FileChannel, and
+ * pixels are read straight into, or written straight from, the packed array of the image.
  */
 public class ImageUtil {
 
+  private static final int BUFFER_SIZE = 1 << 16;
+
   /**
    * Read an image file in the PPM format from a given path.
    *
    * @param filename the path of the file.
    */
   public static BufferedImage readPPM(String filename) throws IOException {
-    Scanner sc;
+    return ImageController.convertToBufferedImage(readPPMImage(filename));
+  }
 
+  /**
+   * Read an image file in the plain (P3) or binary (P6) PPM format from a given path.
+   *
+   * @param filename the path of the file.
+   * @return the packed image.
+   * @throws IOException if the file can't be read or is not a valid PPM file.
+   */
+  public static PackedColorImage readPPMImage(String filename) throws IOException {
+    FileChannel channel;
     try {
-      sc = new Scanner(new FileInputStream(filename));
-    } catch (FileNotFoundException e) {
+      channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ);
+    } catch (NoSuchFileException e) {
       throw new IOException("File " + filename + " not found!", e);
     }
-    StringBuilder builder = new StringBuilder();
 
-    while (sc.hasNextLine()) {
-      String s = sc.nextLine();
-      if (s.charAt(0) != '#') {
-        builder.append(s + System.lineSeparator());
+    try (PpmReader reader = new PpmReader(channel)) {
+      String token = reader.nextToken();
+      boolean binary = token.equals("P6");
+      if (!binary && !token.equals("P3")) {
+        throw new IOException("Invalid PPM file: file should begin with P3 or P6");
       }
-    }
 
-    sc = new Scanner(builder.toString());
+      int width = reader.nextInt();
+      int height = reader.nextInt();
+      int maxValue = reader.nextInt();
 
-    String token = sc.next();
+      if (maxValue > 255) {
+        throw new IOException("Unsupported range.");
+      }
+      if (width <= 0 || height <= 0) {
+        throw new IOException("Invalid PPM file: bad image size");
+      }
 
-    if (!token.equals("P3")) {
-      throw new IOException("Invalid PPM file: plain RAW file should begin with P3");
+      int[] rgb;
+      try {
+        rgb = new int[Math.multiplyExact(width, height)];
+      } catch (ArithmeticException e) {
+        throw new IOException("Invalid PPM file: bad image size", e);
+      }
+      if (binary) {
+        reader.skipSingleWhitespace();
+        reader.readBinary(rgb);
+      } else {
+        for (int i = 0; i < rgb.length; i++) {
+          int r = checkSample(reader.nextInt());
+          int g = checkSample(reader.nextInt());
+          int b = checkSample(reader.nextInt());
+          rgb[i] = (r << 16) | (g << 8) | b;
+        }
+      }
+      return new PackedColorImage(width, height, rgb);
     }
+  }
 
-    int width = sc.nextInt();
-    int height = sc.nextInt();
-    int maxValue = sc.nextInt();
-
-    if (maxValue > 255) {
-      throw new IOException("Unsupported range.");
+  private static int checkSample(int value) throws IOException {
+    if (value > 255) {
+      throw new IOException("Invalid PPM file: sample out of range");
     }
+    return value;
+  }
+
+  /**
+   * Write an image file in the PPM format to the given path.
+   *
+   * @param filename the path of the file.
+   */
+  public static void writePPM(BufferedImage image, String filename) throws IOException {
+    writePPM(ImageController.convertToImage(image), filename, false);
+  }
 
-    BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+  /**
+   * Write an image file in the plain (P3) or binary (P6) PPM format to the given path.
+   *
+   * @param image    the image to write.
+   * @param filename the path of the file.
+   * @param binary   true to write P6, false to write P3.
+   * @throws IOException if the file can't be written.
+   */
+  public static void writePPM(Image image, String filename, boolean binary) throws IOException {
+    PackedColorImage packed = PackedColorImage.from(image);
+    int width = packed.getWidth();
+    int height = packed.getHeight();
+    int[] rgb = packed.getRgbData();
+
+    try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+      String header = (binary ? "P6\n" : "P3\n") + width + " " + height + "\n255\n";
+      for (int i = 0; i < header.length(); i++) {
+        buffer.put((byte) header.charAt(i));
+      }
 
-    for (int i = 0; i < height; i++) {
-      for (int j = 0; j < width; j++) {
-        int r = sc.nextInt();
-        int g = sc.nextInt();
-        int b = sc.nextInt();
-        image.setRGB(j, i, new Color(r, g, b).getRGB());
+      if (binary) {
+        for (int p : rgb) {
+          if (buffer.remaining() < 3) {
+            drain(channel, buffer);
+          }
+          buffer.put((byte) (p >> 16)).put((byte) (p >> 8)).put((byte) p);
+        }
+      } else {
+        for (int y = 0; y < height; y++) {
+          int offset = y * width;
+          for (int x = 0; x < width; x++) {
+            if (buffer.remaining() < 12) {
+              drain(channel, buffer);
+            }
+            int p = rgb[offset + x];
+            putSample(buffer, (p >> 16) & 0xFF);
+            putSample(buffer, (p >> 8) & 0xFF);
+            putSample(buffer, p & 0xFF);
+          }
+          if (!buffer.hasRemaining()) {
+            drain(channel, buffer);
+          }
+          buffer.put((byte) '\n');
+        }
       }
+      drain(channel, buffer);
     }
+  }
+
+  private static void putSample(ByteBuffer buffer, int value) {
+    if (value >= 100) {
+      buffer.put((byte) ('0' + value / 100));
+    }
+    if (value >= 10) {
+      buffer.put((byte) ('0' + value / 10 % 10));
+    }
+    buffer.put((byte) ('0' + value % 10)).put((byte) ' ');
+  }
 
-    return image;
+  private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    buffer.clear();
   }
 
   /**
-   * Write an image file in the PPM format to the given path.
+   * Read a filter kernel from a text file. Each line holds one row of the kernel as numbers
+   * separated by whitespace; blank lines and lines starting with # are skipped.
    *
    * @param filename the path of the file.
+   * @return the kernel.
+   * @throws IOException if the file can't be read, or its rows are not numbers of equal, odd
+   *                     length in an odd number of lines.
    */
-  public static void writePPM(BufferedImage image, String filename) throws IOException {
-    try (FileWriter writer = new FileWriter(filename)) {
-      int width = image.getWidth();
-      int height = image.getHeight();
-
-      writer.write("P3\n");
-      writer.write(width + " " + height + "\n");
-      writer.write("255\n");
-
-      for (int y = 0; y < height; y++) {
-        for (int x = 0; x < width; x++) {
-          Color color = new Color(image.getRGB(x, y));
-          writer.write(color.getRed() + " ");
-          writer.write(color.getGreen() + " ");
-          writer.write(color.getBlue() + " ");
+  public static float[][] readKernel(String filename) throws IOException {
+    List<String> lines;
+    try {
+      lines = Files.readAllLines(Paths.get(filename), StandardCharsets.UTF_8);
+    } catch (NoSuchFileException e) {
+      throw new IOException("File " + filename + " not found!", e);
+    }
+    List<float[]> rows = new ArrayList<>();
+    for (String line : lines) {
+      String trimmed = line.trim();
+      if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+        continue;
+      }
+      String[] tokens = trimmed.split("\\s+");
+      float[] row = new float[tokens.length];
+      for (int i = 0; i < tokens.length; i++) {
+        try {
+          row[i] = Float.parseFloat(tokens[i]);
+        } catch (NumberFormatException e) {
+          throw new IOException("Invalid kernel file: " + tokens[i] + " is not a number", e);
         }
-        writer.write("\n");
       }
+      if (!rows.isEmpty() && row.length != rows.get(0).length) {
+        throw new IOException("Invalid kernel file: rows should have the same length");
+      }
+      rows.add(row);
     }
+    if (rows.size() % 2 == 0 || rows.get(0).length % 2 == 0) {
+      throw new IOException("Invalid kernel file: kernel should have an odd number of rows"
+              + " and columns");
+    }
+    return rows.toArray(new float[0][]);
   }
-}
 
+  /**
+   * Reads the tokens and raw samples of a PPM file through a buffer that is refilled from the
+   * channel as needed.
+   */
+  private static final class PpmReader implements AutoCloseable {
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+
+    PpmReader(FileChannel channel) {
+      this.channel = channel;
+      this.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+      this.buffer.flip();
+    }
+
+    private boolean fill() throws IOException {
+      buffer.compact();
+      int read = channel.read(buffer);
+      buffer.flip();
+      return read > 0;
+    }
+
+    private int next() throws IOException {
+      if (!buffer.hasRemaining() && !fill()) {
+        return -1;
+      }
+      return buffer.get() & 0xFF;
+    }
+
+    private int peek() throws IOException {
+      if (!buffer.hasRemaining() && !fill()) {
+        return -1;
+      }
+      return buffer.get(buffer.position()) & 0xFF;
+    }
+
+    private int skipWhitespaceAndComments() throws IOException {
+      int c = next();
+      while (c != -1) {
+        if (c == '#') {
+          while (c != -1 && c != '\n' && c != '\r') {
+            c = next();
+          }
+        } else if (!Character.isWhitespace(c)) {
+          return c;
+        } else {
+          c = next();
+        }
+      }
+      throw new IOException("Invalid PPM file: unexpected end of file");
+    }
+
+    String nextToken() throws IOException {
+      StringBuilder token = new StringBuilder();
+      token.append((char) skipWhitespaceAndComments());
+      int c = peek();
+      while (c != -1 && !Character.isWhitespace(c) && c != '#') {
+        token.append((char) next());
+        c = peek();
+      }
+      return token.toString();
+    }
+
+    int nextInt() throws IOException {
+      int c = skipWhitespaceAndComments();
+      if (c < '0' || c > '9') {
+        throw new IOException("Invalid PPM file: expected a number");
+      }
+      int value = c - '0';
+      c = peek();
+      while (c >= '0' && c <= '9') {
+        next();
+        value = value * 10 + (c - '0');
+        if (value > 0xFFFFFF) {
+          throw new IOException("Invalid PPM file: number too large");
+        }
+        c = peek();
+      }
+      return value;
+    }
+
+    void skipSingleWhitespace() throws IOException {
+      int c = next();
+      if (c == -1 || !Character.isWhitespace(c)) {
+        throw new IOException("Invalid PPM file: missing separator before binary data");
+      }
+    }
+
+    void readBinary(int[] rgb) throws IOException {
+      int i = 0;
+      while (i < rgb.length) {
+        if (buffer.remaining() < 3 && !fill()) {
+          throw new IOException("Invalid PPM file: unexpected end of file");
+        }
+        int end = Math.min(rgb.length, i + buffer.remaining() / 3);
+        for (; i < end; i++) {
+          rgb[i] = ((buffer.get() & 0xFF) << 16) | ((buffer.get() & 0xFF) << 8)
+                  | (buffer.get() & 0xFF);
+        }
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      channel.close();
+    }
+  }
+}
@@ -1,7 +1,9 @@
 package controller;
 
+import java.util.Collections;
+import java.util.List;
+
 import model.Image;
-import model.GreyscaleImage;
 
 /**
  * A command that shows intensity of the image.
@@ -28,7 +30,17 @@ public class IntensityCommand implements Command {
   @Override
   public void execute() {
     Image imageToIntensityTransform = controller.imageMap.get(inputImageKey);
-    GreyscaleImage intensityComponent = (GreyscaleImage) imageToIntensityTransform.getIntensity();
+    Image intensityComponent = imageToIntensityTransform.getIntensity();
     controller.imageMap.put(outputImageKey, intensityComponent);
   }
+
+  @Override
+  public List<String> getInputKeys() {
+    return Collections.singletonList(inputImageKey);
+  }
+
+  @Override
+  public List<String> getOutputKeys() {
+    return Collections.singletonList(outputImageKey);
+  }
 }
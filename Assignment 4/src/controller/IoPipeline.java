@@ -0,0 +1,198 @@
+package controller;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import model.Image;
+import model.PackedColorImage;
+
+/**
+ * This class reads and writes image files away from the threads that compute images, so that
+ * decoding and encoding overlap with image operations. Files are read and written on virtual
+ * threads when the running Java version has them, and on a growing pool of daemon threads
+ * otherwise. An image is computed by the thread that asks for it to be written, and only the
+ * encoding and writing are handed over. The number of writes in flight is bounded: asking for
+ * another write waits until one finishes, so a fast computation cannot fill the heap with
+ * images waiting for a slow disk. Reading a file waits for a pending write of the same file,
+ * and writes of the same file happen in the order they were asked for.
+ */
+public class IoPipeline implements Closeable {
+
+  private final ExecutorService io;
+  private final boolean virtual;
+  private final Semaphore writePermits;
+  private final Map<String, CompletableFuture<Void>> pendingWrites = new HashMap<>();
+
+  /**
+   * Constructs a pipeline.
+   *
+   * @param maxPendingWrites the number of writes that can be in flight, at least 1.
+   */
+  public IoPipeline(int maxPendingWrites) {
+    if (maxPendingWrites < 1) {
+      throw new IllegalArgumentException("Number of pending writes should be at least 1");
+    }
+    ExecutorService virtualThreads = newVirtualThreadExecutor();
+    this.virtual = virtualThreads != null;
+    this.io = virtual ? virtualThreads : Executors.newCachedThreadPool(new IoThreadFactory());
+    this.writePermits = new Semaphore(maxPendingWrites);
+  }
+
+  /**
+   * Creates an executor that starts a virtual thread per task, or returns null before Java 21.
+   * The method is looked up at run time so the code still compiles for older versions.
+   */
+  private static ExecutorService newVirtualThreadExecutor() {
+    try {
+      return (ExecutorService) Executors.class
+              .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (ReflectiveOperationException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Tells whether files are read and written on virtual threads.
+   *
+   * @return true on Java 21 and later.
+   */
+  public boolean usesVirtualThreads() {
+    return virtual;
+  }
+
+  /**
+   * Starts reading an image file.
+   *
+   * @param path the path of the file.
+   * @return the image once read; it completes with an IOException if the file can't be read.
+   */
+  public CompletableFuture<Image> read(String path) {
+    CompletableFuture<Void> write;
+    synchronized (this) {
+      write = pendingWrites.get(key(path));
+    }
+    CompletableFuture<Void> before = write == null ? CompletableFuture.completedFuture(null)
+            : write.handle((result, error) -> null);
+    return before.thenApplyAsync(ignored -> {
+      try {
+        return ImageController.readImage(path);
+      } catch (IOException e) {
+        throw new CompletionException(e);
+      }
+    }, io);
+  }
+
+  /**
+   * Computes an image on the calling thread and starts writing it to a file. Waits first if
+   * the maximum number of writes is in flight.
+   *
+   * @param image  the image to write.
+   * @param format the format of the file.
+   * @param path   the path of the file.
+   * @param binary true to write a PPM file in the binary (P6) format.
+   * @return completes once the file is written; it completes with an IOException if the file
+   *         can't be written.
+   * @throws IOException if interrupted while waiting for a write to finish.
+   */
+  public CompletableFuture<Void> write(Image image, String format, String path, boolean binary)
+          throws IOException {
+    PackedColorImage computed = PackedColorImage.from(image);
+    try {
+      writePermits.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting to write " + path);
+    }
+    String key = key(path);
+    CompletableFuture<Void> written;
+    synchronized (this) {
+      CompletableFuture<Void> previous = pendingWrites.get(key);
+      CompletableFuture<Void> before = previous == null
+              ? CompletableFuture.completedFuture(null) : previous.handle((result, e) -> null);
+      written = before.thenRunAsync(() -> {
+        try {
+          ImageController.writeImage(computed, format, path, binary);
+        } catch (IOException e) {
+          throw new CompletionException(e);
+        }
+      }, io);
+      pendingWrites.put(key, written);
+    }
+    written.whenComplete((result, error) -> {
+      writePermits.release();
+      synchronized (this) {
+        pendingWrites.remove(key, written);
+      }
+    });
+    return written;
+  }
+
+  /**
+   * Waits for a read or write and returns its result, unwrapping the IOException it failed
+   * with.
+   *
+   * @param future the read or write.
+   * @param <T>    the type of the result.
+   * @return the result.
+   * @throws IOException if the read or write failed or the wait was interrupted.
+   */
+  public static <T> T await(CompletableFuture<T> future) throws IOException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for a file");
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      if (cause instanceof UncheckedIOException) {
+        throw ((UncheckedIOException) cause).getCause();
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new IOException(cause);
+    }
+  }
+
+  private static String key(String path) {
+    return Paths.get(path).toAbsolutePath().normalize().toString();
+  }
+
+  /**
+   * Stops the threads once the pending reads and writes are done.
+   */
+  @Override
+  public void close() {
+    io.shutdown();
+  }
+
+  /**
+   * Creates the daemon threads that read and write files when virtual threads are missing.
+   */
+  private static final class IoThreadFactory implements ThreadFactory {
+    private final AtomicInteger count = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable, "image-io-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+}
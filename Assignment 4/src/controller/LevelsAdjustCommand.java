@@ -1,5 +1,8 @@
 package controller;
 
+import java.util.Collections;
+import java.util.List;
+
 import model.Image;
 
 /**
@@ -45,5 +48,14 @@ public class LevelsAdjustCommand implements Command {
     }
     controller.imageMap.put(outputImageKey, adjustedLevelImg);
   }
-}
 
+  @Override
+  public List<String> getInputKeys() {
+    return Collections.singletonList(inputImageKey);
+  }
+
+  @Override
+  public List<String> getOutputKeys() {
+    return Collections.singletonList(outputImageKey);
+  }
+}
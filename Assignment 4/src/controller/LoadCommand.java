@@ -1,10 +1,11 @@
 package controller;
 
-import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
 
-import model.ColorImage;
-import model.Pixel;
+import model.Image;
+import model.LazyImage;
 
 /**
  * A command that loads the image.
@@ -29,9 +30,25 @@ public class LoadCommand implements Command {
 
   @Override
   public void execute() throws IOException {
-    BufferedImage loadedImage = ImageController.loadImage(path);
-    Pixel[][] pixels = ImageController.convertToPixels(loadedImage);
-    controller.imageMap.put(imageKey, new ColorImage(pixels));
+    Image loadedImage = controller.read(path);
+    if (controller.lazy) {
+      loadedImage = new LazyImage(loadedImage);
+    }
+    controller.imageMap.put(imageKey, loadedImage);
+  }
+
+  @Override
+  public List<String> getInputKeys() {
+    return Collections.emptyList();
+  }
+
+  @Override
+  public List<String> getOutputKeys() {
+    return Collections.singletonList(imageKey);
   }
-}
 
+  @Override
+  public List<String> getInputFiles() {
+    return Collections.singletonList(path);
+  }
+}
@@ -1,6 +1,8 @@
 package controller;
 
-import model.GreyscaleImage;
+import java.util.Collections;
+import java.util.List;
+
 import model.Image;
 
 /**
@@ -27,7 +29,17 @@ public class LumaCommand implements Command {
   @Override
   public void execute() {
     Image imageToLumaTransform = controller.imageMap.get(inputImageKey);
-    GreyscaleImage lumaComponent = (GreyscaleImage) imageToLumaTransform.getLuma();
+    Image lumaComponent = imageToLumaTransform.getLuma();
     controller.imageMap.put(outputImageKey, lumaComponent);
   }
+
+  @Override
+  public List<String> getInputKeys() {
+    return Collections.singletonList(inputImageKey);
+  }
+
+  @Override
+  public List<String> getOutputKeys() {
+    return Collections.singletonList(outputImageKey);
+  }
 }
@@ -0,0 +1,150 @@
+package controller;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DirectColorModel;
+import java.awt.image.PixelInterleavedSampleModel;
+import java.awt.image.Raster;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+
+import model.Image;
+import model.PackedColorImage;
+
+/**
+ * This class converts between BufferedImage and the packed image model without going through
+ * a pixel at a time. A TYPE_INT_RGB image stores its pixels in the same 0xRRGGBB layout as
+ * PackedColorImage, so images of that type are wrapped around the same array in both
+ * directions, and converting takes constant time. A TYPE_3BYTE_BGR image, the type ImageIO
+ * gives for most JPEG and PNG files, is packed in one pass over its byte array, and any other
+ * type is copied in bulk through its raster.
+ *
+ * <p>A wrapped image shares its pixels with the image it came from. The model never writes to
+ * an image after creating it, so this is only visible if the BufferedImage is drawn on. The
+ * unused top byte of a TYPE_INT_RGB pixel is ignored by the model.
+ */
+public final class RasterBridge {
+
+  private static final int[] RGB_MASKS = {0xFF0000, 0x00FF00, 0x0000FF};
+  private static final DirectColorModel RGB_MODEL = new DirectColorModel(24,
+          RGB_MASKS[0], RGB_MASKS[1], RGB_MASKS[2]);
+
+  private RasterBridge() {
+  }
+
+  /**
+   * Converts a BufferedImage into a packed image, sharing its pixels when the layouts match.
+   *
+   * @param image the image to convert.
+   * @return the packed image.
+   */
+  public static PackedColorImage toImage(BufferedImage image) {
+    int width = image.getWidth();
+    int height = image.getHeight();
+    int[] shared = sharedRgbData(image);
+    if (shared != null) {
+      return new PackedColorImage(width, height, shared);
+    }
+    int[] rgb = image.getType() == BufferedImage.TYPE_3BYTE_BGR ? packBgr(image) : null;
+    if (rgb == null) {
+      rgb = copyRgb(image);
+    }
+    return new PackedColorImage(width, height, rgb);
+  }
+
+  /**
+   * Converts an image into a TYPE_INT_RGB BufferedImage that shares the packed pixels of the
+   * image.
+   *
+   * @param image the image to convert.
+   * @return the BufferedImage.
+   */
+  public static BufferedImage toBufferedImage(Image image) {
+    PackedColorImage packed = PackedColorImage.from(image);
+    int width = packed.getWidth();
+    int height = packed.getHeight();
+    DataBufferInt buffer = new DataBufferInt(packed.getRgbData(), width * height);
+    WritableRaster raster = Raster.createPackedRaster(buffer, width, height, width, RGB_MASKS,
+            null);
+    return new BufferedImage(RGB_MODEL, raster, false, null);
+  }
+
+  /**
+   * Returns the pixel array of a TYPE_INT_RGB image whose rows are stored one after the other
+   * from the start of a single bank, or null for any other layout.
+   */
+  private static int[] sharedRgbData(BufferedImage image) {
+    if (image.getType() != BufferedImage.TYPE_INT_RGB) {
+      return null;
+    }
+    WritableRaster raster = image.getRaster();
+    if (!isWholeRaster(raster)
+            || !(raster.getSampleModel() instanceof SinglePixelPackedSampleModel)) {
+      return null;
+    }
+    SinglePixelPackedSampleModel model = (SinglePixelPackedSampleModel) raster.getSampleModel();
+    DataBuffer buffer = raster.getDataBuffer();
+    int size = image.getWidth() * image.getHeight();
+    if (model.getScanlineStride() != image.getWidth() || buffer.getNumBanks() != 1
+            || buffer.getOffset() != 0 || buffer.getSize() != size) {
+      return null;
+    }
+    int[] data = ((DataBufferInt) buffer).getData();
+    return data.length == size ? data : null;
+  }
+
+  /**
+   * Packs the pixels of a TYPE_3BYTE_BGR image straight from its byte array, or returns null if
+   * the raster is not laid out as one contiguous run of rows.
+   */
+  private static int[] packBgr(BufferedImage image) {
+    WritableRaster raster = image.getRaster();
+    if (!isWholeRaster(raster)
+            || !(raster.getSampleModel() instanceof PixelInterleavedSampleModel)) {
+      return null;
+    }
+    PixelInterleavedSampleModel model = (PixelInterleavedSampleModel) raster.getSampleModel();
+    int[] offsets = model.getBandOffsets();
+    int width = image.getWidth();
+    if (model.getPixelStride() != 3 || model.getScanlineStride() != width * 3
+            || offsets.length != 3 || offsets[0] != 2 || offsets[1] != 1 || offsets[2] != 0) {
+      return null;
+    }
+    DataBufferByte buffer = (DataBufferByte) raster.getDataBuffer();
+    byte[] bgr = buffer.getData();
+    int start = buffer.getOffset();
+    int[] rgb = new int[width * image.getHeight()];
+    for (int i = 0, j = start; i < rgb.length; i++, j += 3) {
+      rgb[i] = ((bgr[j + 2] & 0xFF) << 16) | ((bgr[j + 1] & 0xFF) << 8) | (bgr[j] & 0xFF);
+    }
+    return rgb;
+  }
+
+  /**
+   * Copies the pixels of an image of any other type in bulk. Images whose raster already holds
+   * 0xAARRGGBB or 0x00RRGGBB ints are read through getDataElements; the rest go through the
+   * color model with getRGB.
+   */
+  private static int[] copyRgb(BufferedImage image) {
+    int width = image.getWidth();
+    int height = image.getHeight();
+    int[] rgb;
+    int type = image.getType();
+    if (type == BufferedImage.TYPE_INT_RGB || type == BufferedImage.TYPE_INT_ARGB) {
+      rgb = (int[]) image.getRaster().getDataElements(0, 0, width, height, null);
+    } else {
+      rgb = image.getRGB(0, 0, width, height, null, 0, width);
+    }
+    for (int i = 0; i < rgb.length; i++) {
+      rgb[i] &= 0xFFFFFF;
+    }
+    return rgb;
+  }
+
+  private static boolean isWholeRaster(Raster raster) {
+    return raster.getParent() == null && raster.getMinX() == 0 && raster.getMinY() == 0
+            && raster.getSampleModelTranslateX() == 0 && raster.getSampleModelTranslateY() == 0;
+  }
+}
@@ -1,5 +1,8 @@
 package controller;
 
+import java.util.Collections;
+import java.util.List;
+
 import model.Image;
 
 /**
@@ -30,6 +33,14 @@ public class RedComponentCommand implements Command {
     Image redComponent = imageToRedTransform.visualizeRedComponent();
     controller.imageMap.put(outputImageKey, redComponent);
   }
-}
 
+  @Override
+  public List<String> getInputKeys() {
+    return Collections.singletonList(inputImageKey);
+  }
 
+  @Override
+  public List<String> getOutputKeys() {
+    return Collections.singletonList(outputImageKey);
+  }
+}
@@ -1,5 +1,9 @@
 package controller;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
 import model.Image;
 
 /**
@@ -38,4 +42,14 @@ public class RgbCombineCommand implements Command {
     Image combinedImage = redGreyImage.combineChannel(redGreyImage, greenGreyImage, blueGreyImage);
     controller.imageMap.put(outputImageKey, combinedImage);
   }
+
+  @Override
+  public List<String> getInputKeys() {
+    return Arrays.asList(redImageKey, greenImageKey, blueImageKey);
+  }
+
+  @Override
+  public List<String> getOutputKeys() {
+    return Collections.singletonList(outputImageKey);
+  }
 }
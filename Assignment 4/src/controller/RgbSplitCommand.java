@@ -1,6 +1,9 @@
 package controller;
 
-import model.GreyscaleImage;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
 import model.Image;
 
 /**
@@ -34,11 +37,21 @@ public class RgbSplitCommand implements Command {
   @Override
   public void execute() {
     Image imageToSplit = controller.imageMap.get(inputImageKey);
-    GreyscaleImage redSplit = (GreyscaleImage) imageToSplit.getRedChannel();
-    GreyscaleImage greenSplit = (GreyscaleImage) imageToSplit.getGreenChannel();
-    GreyscaleImage blueSplit = (GreyscaleImage) imageToSplit.getBlueChannel();
+    Image redSplit = imageToSplit.getRedChannel();
+    Image greenSplit = imageToSplit.getGreenChannel();
+    Image blueSplit = imageToSplit.getBlueChannel();
     controller.imageMap.put(redOutputKey, redSplit);
     controller.imageMap.put(greenOutputKey, greenSplit);
     controller.imageMap.put(blueOutputKey, blueSplit);
   }
+
+  @Override
+  public List<String> getInputKeys() {
+    return Collections.singletonList(inputImageKey);
+  }
+
+  @Override
+  public List<String> getOutputKeys() {
+    return Arrays.asList(redOutputKey, greenOutputKey, blueOutputKey);
+  }
 }
@@ -1,9 +1,9 @@
 package controller;
 
-import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
 
-import model.ColorImage;
 
 /**
  * A command that saves the image.
@@ -12,6 +12,7 @@ public class SaveCommand implements Command {
   private ImageController controller;
   private String filePath;
   private String imageKey;
+  private boolean binary;
 
   /**
    * Constructs a new SaveCommand with the specified parameters.
@@ -21,16 +22,43 @@ public class SaveCommand implements Command {
    * @param filePath   path of the image.
    */
   public SaveCommand(ImageController controller, String filePath, String imageKey) {
+    this(controller, filePath, imageKey, false);
+  }
+
+  /**
+   * Constructs a new SaveCommand with the specified parameters.
+   *
+   * @param controller to facilitate image processing operations.
+   * @param imageKey   used to assign the input image.
+   * @param filePath   path of the image.
+   * @param binary     true to save a PPM image in the binary (P6) format.
+   */
+  public SaveCommand(ImageController controller, String filePath, String imageKey,
+                     boolean binary) {
     this.controller = controller;
     this.filePath = filePath;
     this.imageKey = imageKey;
+    this.binary = binary;
   }
 
   @Override
   public void execute() throws IOException {
     String extension = filePath.substring(filePath.lastIndexOf(".") + 1);
-    BufferedImage imgToSave = ImageController.convertToBufferedImage(((ColorImage)
-            controller.imageMap.get(imageKey)).getPixels());
-    ImageController.saveImage(imgToSave, extension, filePath);
+    controller.write(controller.imageMap.get(imageKey), extension, filePath, binary);
+  }
+
+  @Override
+  public List<String> getInputKeys() {
+    return Collections.singletonList(imageKey);
+  }
+
+  @Override
+  public List<String> getOutputKeys() {
+    return Collections.emptyList();
+  }
+
+  @Override
+  public List<String> getOutputFiles() {
+    return Collections.singletonList(filePath);
   }
 }
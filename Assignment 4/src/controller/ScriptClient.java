@@ -0,0 +1,87 @@
+package controller;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * This class submits scripts to a ScriptServer running on the same machine. The scripts of one
+ * client share a connection, and with it the image names and warm JVM of the server. Relative
+ * paths in the scripts are resolved against the directory the client gives the server. The
+ * client proves it runs as the server's user by sending the token the server wrote to its token
+ * file.
+ */
+public class ScriptClient implements Closeable {
+
+  private final Socket socket;
+  private final BufferedReader in;
+  private final PrintWriter out;
+
+  /**
+   * Connects to a server on the loopback interface that wrote its token to the default
+   * directory.
+   *
+   * @param port      the port of the server.
+   * @param directory the directory relative paths in the scripts are resolved against.
+   * @throws IOException if the token can't be read or the server can't be reached.
+   */
+  public ScriptClient(int port, Path directory) throws IOException {
+    this(port, directory, ScriptServer.tokenFile(null, port));
+  }
+
+  /**
+   * Connects to a server on the loopback interface, sending the token read from the given file.
+   *
+   * @param port      the port of the server.
+   * @param directory the directory relative paths in the scripts are resolved against.
+   * @param tokenFile the token file the server wrote.
+   * @throws IOException if the token can't be read or the server can't be reached.
+   */
+  public ScriptClient(int port, Path directory, Path tokenFile) throws IOException {
+    String token = new String(Files.readAllBytes(tokenFile), StandardCharsets.UTF_8).trim();
+    this.socket = new Socket(InetAddress.getLoopbackAddress(), port);
+    this.in = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+            StandardCharsets.UTF_8));
+    this.out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(),
+            StandardCharsets.UTF_8));
+    out.println(ScriptServer.TOKEN + " " + token);
+    out.println(ScriptServer.DIRECTORY + " " + directory.toAbsolutePath());
+  }
+
+  /**
+   * Runs a script on the server and waits for its result.
+   *
+   * @param script the lines of the script.
+   * @return the answer of the server: "OK" or "ERROR", the milliseconds taken and, for an
+   *         error, its message.
+   * @throws IOException if the connection fails.
+   */
+  public String submit(List<String> script) throws IOException {
+    for (String line : script) {
+      if (!line.equals(ScriptServer.END)) {
+        out.println(line);
+      }
+    }
+    out.println(ScriptServer.END);
+    out.flush();
+    String answer = in.readLine();
+    if (answer == null) {
+      throw new IOException("The server closed the connection");
+    }
+    return answer;
+  }
+
+  @Override
+  public void close() throws IOException {
+    socket.close();
+  }
+}
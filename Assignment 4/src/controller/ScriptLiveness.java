@@ -0,0 +1,87 @@
+package controller;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * This class works out, for a script known in full before it runs, which commands matter and
+ * when each image is read for the last time. It walks the script backwards keeping the set of
+ * keys that a later command still reads. A command that stores images is live if one of them
+ * is in that set; a command that stores nothing, such as save, is always live. After a live
+ * command runs, the keys it reads or stores that no later live command reads can be removed.
+ * A key that is stored again later is dead from its last read until then.
+ */
+public final class ScriptLiveness {
+
+  private final boolean[] live;
+  private final List<List<String>> deadAfter;
+
+  private ScriptLiveness(boolean[] live, List<List<String>> deadAfter) {
+    this.live = live;
+    this.deadAfter = deadAfter;
+  }
+
+  /**
+   * Analyses a script.
+   *
+   * @param script the commands in the order they run.
+   * @return the liveness of the script.
+   */
+  public static ScriptLiveness analyze(List<? extends Command> script) {
+    boolean[] live = new boolean[script.size()];
+    List<List<String>> deadAfter = new ArrayList<>(
+            Collections.nCopies(script.size(), Collections.<String>emptyList()));
+    Set<String> readLater = new HashSet<>();
+    for (int i = script.size() - 1; i >= 0; i--) {
+      Command command = script.get(i);
+      List<String> outputs = command.getOutputKeys();
+      boolean needed = outputs.isEmpty();
+      for (String key : outputs) {
+        needed |= readLater.contains(key);
+      }
+      if (!needed) {
+        continue;
+      }
+      live[i] = true;
+      List<String> dead = new ArrayList<>();
+      for (String key : command.getInputKeys()) {
+        if (!readLater.contains(key) && !dead.contains(key)) {
+          dead.add(key);
+        }
+      }
+      for (String key : outputs) {
+        if (!readLater.contains(key) && !dead.contains(key)) {
+          dead.add(key);
+        }
+      }
+      deadAfter.set(i, dead);
+      readLater.removeAll(outputs);
+      readLater.addAll(command.getInputKeys());
+    }
+    return new ScriptLiveness(live, deadAfter);
+  }
+
+  /**
+   * Tells whether a command has to run: it stores an image that is read later, or stores
+   * nothing and runs for its effect.
+   *
+   * @param index the position of the command in the script.
+   * @return true if the command has to run.
+   */
+  public boolean isLive(int index) {
+    return live[index];
+  }
+
+  /**
+   * Returns the keys that no command after the given one reads, once it has run.
+   *
+   * @param index the position of the command in the script.
+   * @return the keys that can be removed after the command runs.
+   */
+  public List<String> getDeadAfter(int index) {
+    return Collections.unmodifiableList(deadAfter.get(index));
+  }
+}
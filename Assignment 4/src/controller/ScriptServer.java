@@ -0,0 +1,285 @@
+package controller;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * This class keeps one JVM running scripts sent to it over a TCP socket on the loopback
+ * interface, so that each script skips the start up of the JVM and runs on code the JIT has
+ * already compiled. Every connection has its own ImageController, so the image names of one
+ * client never clash with another's. A fixed number of connections are served at once, each
+ * with an equal share of the memory budget; further clients wait until one disconnects.
+ *
+ * <p>Scripts read and write files as the user running the server, so only that user may send
+ * them. The server writes a random token to a file only its user can read, and a client must
+ * send "{@value #TOKEN} token" as its first line; any other first line closes the connection.
+ *
+ * <p>The protocol is line based text in UTF-8. A client sends the lines of a script followed by
+ * a line holding {@value #END}; the server runs the script as a whole and answers with one line,
+ * "OK" or "ERROR" followed by the time taken in milliseconds and, for an error, its message. A
+ * client can send any number of scripts on one connection. A line "{@value #DIRECTORY} path" sets
+ * the directory relative paths of later scripts are resolved against, which a client sets to its
+ * own working directory.
+ */
+public class ScriptServer implements Closeable {
+
+  /**
+   * The port used when none is given.
+   */
+  public static final int DEFAULT_PORT = 7341;
+
+  /**
+   * The line that ends a script.
+   */
+  public static final String END = "@end";
+
+  /**
+   * The prefix of the line that sets the directory of relative paths.
+   */
+  public static final String DIRECTORY = "@directory";
+
+  /**
+   * The prefix of the first line of a connection, which holds the token of the server.
+   */
+  public static final String TOKEN = "@token";
+
+  /**
+   * The number of connections served at once when none is given.
+   */
+  public static final int DEFAULT_CONNECTIONS = 4;
+
+  private static final int TOKEN_BYTES = 32;
+
+  private final ServerSocket socket;
+  private final long memoryBudget;
+  private final ExecutorService connections;
+  private final byte[] token;
+  private final Path tokenFile;
+
+  /**
+   * Opens a server on the given port of the loopback interface, serving
+   * {@value #DEFAULT_CONNECTIONS} connections at once and writing its token to the default
+   * directory.
+   *
+   * @param port         the port, or 0 for any free port.
+   * @param memoryBudget the bytes of images all connections together keep in memory.
+   * @throws IOException if the port can't be opened or the token can't be written.
+   */
+  public ScriptServer(int port, long memoryBudget) throws IOException {
+    this(port, memoryBudget, DEFAULT_CONNECTIONS, null);
+  }
+
+  /**
+   * Opens a server on the given port of the loopback interface and writes its token to a file
+   * in the given directory that only the current user can read.
+   *
+   * @param port           the port, or 0 for any free port.
+   * @param memoryBudget   the bytes of images all connections together keep in memory.
+   * @param maxConnections the number of connections served at once.
+   * @param tokenDirectory the directory of the token file, or null for the default one.
+   * @throws IOException if the port can't be opened or the token can't be written.
+   * @throws IllegalArgumentException if the number of connections is not positive.
+   */
+  public ScriptServer(int port, long memoryBudget, int maxConnections, Path tokenDirectory)
+          throws IOException {
+    if (maxConnections < 1) {
+      throw new IllegalArgumentException("Number of connections must be positive");
+    }
+    this.socket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+    this.memoryBudget = memoryBudget / maxConnections;
+    this.connections = Executors.newFixedThreadPool(maxConnections);
+    byte[] secret = new byte[TOKEN_BYTES];
+    new SecureRandom().nextBytes(secret);
+    this.token = toHex(secret).getBytes(StandardCharsets.UTF_8);
+    this.tokenFile = tokenFile(tokenDirectory, getPort());
+    try {
+      writeToken(tokenFile, token);
+    } catch (IOException e) {
+      socket.close();
+      connections.shutdown();
+      throw e;
+    }
+  }
+
+  /**
+   * Returns the file a server on the given port writes its token to.
+   *
+   * @param tokenDirectory the directory of the token file, or null for the default one, a
+   *                       directory in the home of the current user.
+   * @param port           the port of the server.
+   * @return the path of the token file.
+   */
+  public static Path tokenFile(Path tokenDirectory, int port) {
+    Path directory = tokenDirectory != null ? tokenDirectory
+            : Paths.get(System.getProperty("user.home"), ".image-processing");
+    return directory.resolve("server-" + port + ".token");
+  }
+
+  /**
+   * Retrieves the file holding the token clients must send.
+   *
+   * @return the path of the token file.
+   */
+  public Path getTokenFile() {
+    return tokenFile;
+  }
+
+  /**
+   * Creates the token file afresh, readable and writable by the current user only where the
+   * file system has POSIX permissions. Elsewhere the file inherits the access of its directory,
+   * by default the home of the user.
+   */
+  private static void writeToken(Path file, byte[] token) throws IOException {
+    Path directory = file.toAbsolutePath().getParent();
+    Files.deleteIfExists(file);
+    if (directory.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+      if (!Files.isDirectory(directory)) {
+        Files.createDirectories(directory,
+                PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+      }
+      FileAttribute<?> owner =
+              PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------"));
+      Files.createFile(file, owner);
+    } else {
+      Files.createDirectories(directory);
+      Files.createFile(file);
+    }
+    Files.write(file, token);
+    file.toFile().deleteOnExit();
+  }
+
+  private static String toHex(byte[] bytes) {
+    StringBuilder hex = new StringBuilder();
+    for (byte b : bytes) {
+      hex.append(String.format("%02x", b & 0xFF));
+    }
+    return hex.toString();
+  }
+
+  /**
+   * Retrieves the port the server listens on.
+   *
+   * @return the port.
+   */
+  public int getPort() {
+    return socket.getLocalPort();
+  }
+
+  /**
+   * Accepts connections until the server is closed, serving each on its own thread.
+   *
+   * @throws IOException if accepting a connection fails for a reason other than closing.
+   */
+  public void serve() throws IOException {
+    while (!socket.isClosed()) {
+      Socket client;
+      try {
+        client = socket.accept();
+      } catch (SocketException e) {
+        if (socket.isClosed()) {
+          return;
+        }
+        throw e;
+      }
+      connections.execute(() -> handle(client));
+    }
+  }
+
+  private void handle(Socket client) {
+    ImageController controller = new ImageController();
+    ImageStore store = new ImageStore(memoryBudget);
+    controller.setImageStore(store);
+    try (Socket connection = client;
+         BufferedReader in = new BufferedReader(new InputStreamReader(
+                 connection.getInputStream(), StandardCharsets.UTF_8));
+         Writer out = new OutputStreamWriter(connection.getOutputStream(),
+                 StandardCharsets.UTF_8);
+         PrintWriter response = new PrintWriter(out, true)) {
+      if (!authorized(in.readLine())) {
+        response.println("ERROR 0 Invalid token");
+        return;
+      }
+      List<String> script = new ArrayList<>();
+      String line;
+      while ((line = in.readLine()) != null) {
+        if (line.equals(END)) {
+          response.println(run(controller, script));
+          script.clear();
+        } else if (line.startsWith(DIRECTORY + " ")) {
+          controller.setWorkingDirectory(Paths.get(line.substring(DIRECTORY.length() + 1)));
+        } else if (!line.trim().isEmpty()) {
+          script.add(line);
+        }
+      }
+    } catch (IOException e) {
+      // The client went away; nothing is left to answer.
+    } finally {
+      try {
+        store.close();
+      } catch (IOException e) {
+        // The spill files are deleted on exit instead.
+      }
+    }
+  }
+
+  /**
+   * Compares the token a client sent with the server's in time that does not depend on where
+   * they differ.
+   */
+  private boolean authorized(String line) {
+    if (line == null || !line.startsWith(TOKEN + " ")) {
+      return false;
+    }
+    byte[] sent = line.substring(TOKEN.length() + 1).trim().getBytes(StandardCharsets.UTF_8);
+    return MessageDigest.isEqual(sent, token);
+  }
+
+  private static String run(ImageController controller, List<String> script) {
+    long start = System.nanoTime();
+    try {
+      controller.processCommands(script);
+      return "OK " + elapsed(start);
+    } catch (Exception e) {
+      String message = e.getMessage() == null ? e.toString() : e.getMessage();
+      return "ERROR " + elapsed(start) + " " + message.replace('\n', ' ');
+    }
+  }
+
+  private static long elapsed(long start) {
+    return (System.nanoTime() - start) / 1_000_000;
+  }
+
+  /**
+   * Stops accepting connections and deletes the token file. Scripts already running are
+   * finished.
+   *
+   * @throws IOException if the socket can't be closed or the token file can't be deleted.
+   */
+  @Override
+  public void close() throws IOException {
+    socket.close();
+    connections.shutdown();
+    Files.deleteIfExists(tokenFile);
+  }
+}
@@ -1,6 +1,8 @@
 package controller;
 
-import model.ColorImage;
+import java.util.Collections;
+import java.util.List;
+
 import model.Image;
 
 /**
@@ -30,7 +32,7 @@ public class SepiaCommand implements Command {
 
   @Override
   public void execute() {
-    ColorImage imageToTransform = (ColorImage) controller.imageMap.get(inputImageKey);
+    Image imageToTransform = controller.imageMap.get(inputImageKey);
     float[][] sepiaMatrix = {
             {0.393F, 0.769F, 0.189F},
             {0.349F, 0.686F, 0.186F},
@@ -44,5 +46,14 @@ public class SepiaCommand implements Command {
     }
     controller.imageMap.put(outputImageKey, transformedImage);
   }
-}
 
+  @Override
+  public List<String> getInputKeys() {
+    return Collections.singletonList(inputImageKey);
+  }
+
+  @Override
+  public List<String> getOutputKeys() {
+    return Collections.singletonList(outputImageKey);
+  }
+}
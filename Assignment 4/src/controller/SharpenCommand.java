@@ -1,6 +1,8 @@
 package controller;
 
-import model.ColorImage;
+import java.util.Collections;
+import java.util.List;
+
 import model.Image;
 
 /**
@@ -30,7 +32,7 @@ public class SharpenCommand implements Command {
 
   @Override
   public void execute() {
-    ColorImage imageToTransform2 = (ColorImage) controller.imageMap.get(inputImageKey);
+    Image imageToTransform2 = controller.imageMap.get(inputImageKey);
     float[][] sharpenKernel = {
             {-0.125F, -0.125F, -0.125F, -0.125F, -0.125F},
             {-0.125F, 0.25F, 0.25F, 0.25F, -0.125F},
@@ -46,4 +48,14 @@ public class SharpenCommand implements Command {
     }
     controller.imageMap.put(outputImageKey, transformedImage2);
   }
+
+  @Override
+  public List<String> getInputKeys() {
+    return Collections.singletonList(inputImageKey);
+  }
+
+  @Override
+  public List<String> getOutputKeys() {
+    return Collections.singletonList(outputImageKey);
+  }
 }
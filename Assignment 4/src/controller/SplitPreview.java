@@ -0,0 +1,100 @@
+package controller;
+
+import java.awt.image.BufferedImage;
+
+import model.Image;
+import model.PackedColorImage;
+
+/**
+ * This class composites a split view of an image and its transformed copy into a single
+ * BufferedImage that is updated in place as the split moves. Columns left of the split column
+ * come from the transformed image, the split column is drawn red and the rest come from the
+ * original, as in the split operations of the model. Moving the split only copies the columns
+ * between the old and the new split column from one image or the other, so dragging the
+ * slider never runs the operation again.
+ */
+public class SplitPreview {
+
+  private static final int SPLIT_LINE = 0xFF0000;
+
+  private final int[] original;
+  private final int[] transformed;
+  private final int[] composite;
+  private final int width;
+  private final int height;
+  private final BufferedImage image;
+  private int splitColumn;
+
+  /**
+   * Constructs a split preview of an image and its transformed copy.
+   *
+   * @param original        the image shown right of the split.
+   * @param transformed     the image shown left of the split, of the same size.
+   * @param splitPercentage the position of the split as a percentage of the width.
+   * @throws IllegalArgumentException if the images differ in size or the percentage is not
+   *                                  between 1 and 99.
+   */
+  public SplitPreview(Image original, Image transformed, int splitPercentage) {
+    PackedColorImage left = PackedColorImage.from(transformed);
+    PackedColorImage right = PackedColorImage.from(original);
+    if (left.getWidth() != right.getWidth() || left.getHeight() != right.getHeight()) {
+      throw new IllegalArgumentException("Images should be the same size");
+    }
+    this.width = right.getWidth();
+    this.height = right.getHeight();
+    this.original = right.getRgbData();
+    this.transformed = left.getRgbData();
+    this.splitColumn = splitColumn(splitPercentage);
+    this.composite = new int[width * height];
+    for (int row = 0; row < height; row++) {
+      int start = row * width;
+      System.arraycopy(this.transformed, start, composite, start, splitColumn);
+      System.arraycopy(this.original, start + splitColumn, composite, start + splitColumn,
+              width - splitColumn);
+      composite[start + splitColumn] = SPLIT_LINE;
+    }
+    this.image = RasterBridge.toBufferedImage(new PackedColorImage(width, height, composite));
+  }
+
+  /**
+   * Moves the split, copying only the columns it passes over.
+   *
+   * @param splitPercentage the new position of the split as a percentage of the width.
+   * @throws IllegalArgumentException if the percentage is not between 1 and 99.
+   */
+  public void setSplitPercentage(int splitPercentage) {
+    int column = splitColumn(splitPercentage);
+    if (column == splitColumn) {
+      return;
+    }
+    for (int row = 0; row < height; row++) {
+      int start = row * width;
+      if (column > splitColumn) {
+        System.arraycopy(transformed, start + splitColumn, composite, start + splitColumn,
+                column - splitColumn);
+      } else {
+        System.arraycopy(original, start + column + 1, composite, start + column + 1,
+                splitColumn - column);
+      }
+      composite[start + column] = SPLIT_LINE;
+    }
+    splitColumn = column;
+  }
+
+  /**
+   * Retrieves the composited image. It is the same image after every move of the split, so a
+   * component showing it only has to repaint.
+   *
+   * @return the split view.
+   */
+  public BufferedImage getImage() {
+    return image;
+  }
+
+  private int splitColumn(int splitPercentage) {
+    if (splitPercentage < 1 || splitPercentage > 99) {
+      throw new IllegalArgumentException("Percentage should be between 1 to 99(numbers included)");
+    }
+    return (int) (width * (splitPercentage / 100.0));
+  }
+}
@@ -0,0 +1,148 @@
+package controller;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * This class runs image operations for the GUI away from the thread that requests them and
+ * hands the results back through a publishing executor, such as the Swing event dispatch
+ * thread. Only the latest request matters: submitting a new operation cancels the one still
+ * pending or running, and the result of a superseded or cancelled operation is dropped.
+ * Cancelling interrupts the worker thread, which stops the image operation at its next band
+ * of rows.
+ */
+public class TaskRunner {
+
+  private final ExecutorService worker;
+  private final Executor publisher;
+  private Future<?> current;
+  private long generation;
+
+  private TaskRunner(ExecutorService worker, Executor publisher) {
+    this.worker = worker;
+    this.publisher = publisher;
+  }
+
+  /**
+   * Creates a runner that runs every operation on a single background thread and publishes
+   * results through the given executor.
+   *
+   * @param publisher runs the result callbacks, for example on the event dispatch thread.
+   * @return the runner.
+   */
+  public static TaskRunner background(Executor publisher) {
+    ExecutorService worker = Executors.newSingleThreadExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "image-operations");
+      thread.setDaemon(true);
+      return thread;
+    });
+    return new TaskRunner(worker, publisher);
+  }
+
+  /**
+   * Creates a runner that runs every operation and its callbacks on the calling thread.
+   *
+   * @return the runner.
+   */
+  public static TaskRunner direct() {
+    return new TaskRunner(null, Runnable::run);
+  }
+
+  /**
+   * Submits an operation, superseding the previous one if it has not finished.
+   *
+   * @param work     the operation to run.
+   * @param onResult receives the result of the operation unless it was superseded.
+   * @param onDone   runs after the result callback, or when the operation fails or is
+   *                 cancelled without being superseded.
+   * @param <T>      the type of the result.
+   */
+  public synchronized <T> void submit(Callable<T> work, Consumer<T> onResult, Runnable onDone) {
+    cancelCurrent();
+    long id = ++generation;
+    if (worker == null) {
+      try {
+        onResult.accept(call(work));
+      } finally {
+        onDone.run();
+      }
+      return;
+    }
+    current = worker.submit(() -> {
+      T result;
+      try {
+        result = call(work);
+      } catch (CancellationException e) {
+        publish(id, onDone);
+        return;
+      } catch (RuntimeException | Error e) {
+        // Errors such as running out of memory on a large image end the operation too, so
+        // the progress it shows is hidden and the error reaches the publishing thread.
+        publish(id, () -> {
+          onDone.run();
+          throw e;
+        });
+        return;
+      }
+      publish(id, () -> {
+        try {
+          onResult.accept(result);
+        } finally {
+          onDone.run();
+        }
+      });
+    });
+  }
+
+  private static <T> T call(Callable<T> work) {
+    try {
+      return work.call();
+    } catch (RuntimeException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new IllegalStateException(e.getMessage(), e);
+    }
+  }
+
+  private void publish(long id, Runnable callback) {
+    publisher.execute(() -> {
+      synchronized (this) {
+        if (id != generation) {
+          return;
+        }
+        current = null;
+      }
+      callback.run();
+    });
+  }
+
+  /**
+   * Cancels the pending or running operation, if any. Its callbacks are not run.
+   *
+   * @return true if an operation was cancelled.
+   */
+  public synchronized boolean cancel() {
+    generation++;
+    return cancelCurrent();
+  }
+
+  private boolean cancelCurrent() {
+    Future<?> running = current;
+    current = null;
+    return running != null && running.cancel(true);
+  }
+
+  /**
+   * Tells whether an operation is pending or running.
+   *
+   * @return true if an operation has not finished yet.
+   */
+  public synchronized boolean isBusy() {
+    return current != null && !current.isDone();
+  }
+}
@@ -1,6 +1,8 @@
 package controller;
 
-import model.GreyscaleImage;
+import java.util.Collections;
+import java.util.List;
+
 import model.Image;
 
 /**
@@ -27,7 +29,17 @@ public class ValueCommand implements Command {
   @Override
   public void execute() {
     Image imageToValueTransform = controller.imageMap.get(inputImageKey);
-    GreyscaleImage valueComponent = (GreyscaleImage) imageToValueTransform.getValue();
+    Image valueComponent = imageToValueTransform.getValue();
     controller.imageMap.put(outputImageKey, valueComponent);
   }
+
+  @Override
+  public List<String> getInputKeys() {
+    return Collections.singletonList(inputImageKey);
+  }
+
+  @Override
+  public List<String> getOutputKeys() {
+    return Collections.singletonList(outputImageKey);
+  }
 }
@@ -0,0 +1,236 @@
+package model;
+
+/**
+ * This class blurs packed images with box filters of any radius. A box blur is separable, so
+ * it runs as a horizontal pass followed by a vertical pass, and each pass slides a window of
+ * running channel sums along the image: moving one pixel adds the pixel entering the window and
+ * subtracts the one leaving it. Every pixel therefore costs the same whatever the radius, and
+ * no summed-area table is kept, whose sums would need longs for large images.
+ *
+ * <p>Each pass rounds the average of the window to the nearest integer and stores the packed
+ * result, so a blur needs one extra image of memory. A gaussian blur is approximated by three
+ * box blurs whose radii are chosen so the three boxes together have the variance of a gaussian.
+ */
+final class BoxBlur {
+
+  /**
+   * The largest radius accepted. Windows up to 2^18 pixels wide keep the channel sums within an
+   * int and make the multiplication used to divide by the window size exact.
+   */
+  static final int MAX_RADIUS = (1 << 17) - 1;
+
+  private static final int DIVISION_SHIFT = 44;
+  private static final int STRIP_WIDTH = 256;
+
+  private final int[] radii;
+  private final EdgePolicy edge;
+
+  private BoxBlur(int[] radii, EdgePolicy edge) {
+    this.radii = radii;
+    this.edge = edge;
+  }
+
+  /**
+   * Prepares a box blur, which averages every pixel with the pixels within the radius.
+   *
+   * @param radius the number of pixels on each side of a pixel that are averaged.
+   * @param edge   how pixels outside the image are read.
+   * @return the blur.
+   */
+  static BoxBlur box(int radius, EdgePolicy edge) {
+    return new BoxBlur(new int[]{radius}, edge);
+  }
+
+  /**
+   * Prepares three box blurs that together approximate a gaussian blur with the variance of a
+   * box blur of the given radius, so both blur about as much but the gaussian has no hard edge.
+   *
+   * @param radius the radius of the box blur whose variance the gaussian has.
+   * @param edge   how pixels outside the image are read.
+   * @return the blur.
+   */
+  static BoxBlur gaussian(int radius, EdgePolicy edge) {
+    return new BoxBlur(gaussianRadii(radius, 3), edge);
+  }
+
+  /**
+   * Picks the radii of box blurs whose variances add up to that of a box blur of the given
+   * radius: the boxes are the odd widths just below and above the ideal width, as many of the
+   * narrower as keep the total variance closest.
+   */
+  private static int[] gaussianRadii(int radius, int passes) {
+    double variance = radius * (radius + 1.0) / 3;
+    double idealWidth = Math.sqrt(12 * variance / passes + 1);
+    int lower = (int) Math.floor(idealWidth);
+    if (lower % 2 == 0) {
+      lower--;
+    }
+    int upper = lower + 2;
+    long narrow = Math.round((12 * variance - passes * lower * (double) lower
+            - 4.0 * passes * lower - 3.0 * passes) / (-4.0 * lower - 4));
+    int[] result = new int[passes];
+    for (int i = 0; i < passes; i++) {
+      result[i] = (i < narrow ? lower : upper) / 2;
+    }
+    return result;
+  }
+
+  /**
+   * Blurs the whole image. Rows of the horizontal passes, and strips of columns of the vertical
+   * passes, are processed in parallel.
+   *
+   * @param src    the packed source pixels.
+   * @param width  the number of columns of the image.
+   * @param height the number of rows of the image.
+   * @return the packed result pixels.
+   */
+  int[] apply(int[] src, int width, int height) {
+    int[] across = new int[width * height];
+    int[] result = new int[width * height];
+    int[] input = src;
+    for (int radius : radii) {
+      if (radius == 0) {
+        continue;
+      }
+      int[] rows = input;
+      RowScheduler.forEachBand(height, width,
+              (startRow, endRow) -> horizontal(rows, across, width, radius, startRow, endRow));
+      int strips = (width + STRIP_WIDTH - 1) / STRIP_WIDTH;
+      // The bands of the vertical pass are strips of columns, each slid down the whole image.
+      RowScheduler.forEachBand(strips, STRIP_WIDTH * height, (startStrip, endStrip) ->
+              vertical(across, result, width, height, radius, startStrip * STRIP_WIDTH,
+                      Math.min(width, endStrip * STRIP_WIDTH)));
+      input = result;
+    }
+    if (input == src) {
+      System.arraycopy(src, 0, result, 0, result.length);
+    }
+    return result;
+  }
+
+  private void horizontal(int[] src, int[] dst, int width, int radius,
+                          int startRow, int endRow) {
+    long scale = scale(radius);
+    long half = half(radius, scale);
+    for (int y = startRow; y < endRow; y++) {
+      int offset = y * width;
+      int red = 0;
+      int green = 0;
+      int blue = 0;
+      for (int x = -radius; x <= radius; x++) {
+        int p = read(src, offset, x, width);
+        red += (p >> 16) & 0xFF;
+        green += (p >> 8) & 0xFF;
+        blue += p & 0xFF;
+      }
+      // Between the edges both ends of the window lie inside the row and are read directly.
+      int interiorStart = Math.min(radius, width);
+      int interiorEnd = Math.max(interiorStart, width - radius - 1);
+      for (int x = 0; x < width; x++) {
+        dst[offset + x] = pack(red, green, blue, scale, half);
+        int entering;
+        int leaving;
+        if (x >= interiorStart && x < interiorEnd) {
+          entering = src[offset + x + radius + 1];
+          leaving = src[offset + x - radius];
+        } else {
+          entering = read(src, offset, x + radius + 1, width);
+          leaving = read(src, offset, x - radius, width);
+        }
+        red += ((entering >> 16) & 0xFF) - ((leaving >> 16) & 0xFF);
+        green += ((entering >> 8) & 0xFF) - ((leaving >> 8) & 0xFF);
+        blue += (entering & 0xFF) - (leaving & 0xFF);
+      }
+    }
+  }
+
+  private int read(int[] src, int offset, int x, int width) {
+    int col = edge.map(x, width);
+    return col < 0 ? 0 : src[offset + col];
+  }
+
+  /**
+   * Blurs the columns in the range [startCol, endCol) down the whole image, keeping the sums of
+   * the three channels of every column of the strip in one array.
+   */
+  private void vertical(int[] src, int[] dst, int width, int height, int radius,
+                        int startCol, int endCol) {
+    long scale = scale(radius);
+    long half = half(radius, scale);
+    int columns = endCol - startCol;
+    int[] sums = new int[3 * columns];
+    for (int y = -radius; y <= radius; y++) {
+      slide(src, edge.map(y, height), -1, width, startCol, sums);
+    }
+    for (int y = 0; y < height; y++) {
+      int offset = y * width + startCol;
+      int enteringRow = edge.map(y + radius + 1, height);
+      int leavingRow = edge.map(y - radius, height);
+      if (enteringRow < 0 || leavingRow < 0) {
+        for (int i = 0; i < columns; i++) {
+          dst[offset + i] = pack(sums[i], sums[columns + i], sums[2 * columns + i], scale, half);
+        }
+        slide(src, enteringRow, leavingRow, width, startCol, sums);
+        continue;
+      }
+      int entering = enteringRow * width + startCol;
+      int leaving = leavingRow * width + startCol;
+      for (int i = 0; i < columns; i++) {
+        int red = sums[i];
+        int green = sums[columns + i];
+        int blue = sums[2 * columns + i];
+        dst[offset + i] = pack(red, green, blue, scale, half);
+        int in = src[entering + i];
+        int out = src[leaving + i];
+        sums[i] = red + ((in >> 16) & 0xFF) - ((out >> 16) & 0xFF);
+        sums[columns + i] = green + ((in >> 8) & 0xFF) - ((out >> 8) & 0xFF);
+        sums[2 * columns + i] = blue + (in & 0xFF) - (out & 0xFF);
+      }
+    }
+  }
+
+  /**
+   * Adds one row to the column sums of a strip and subtracts another; a row of -1 is skipped.
+   */
+  private static void slide(int[] src, int enteringRow, int leavingRow, int width,
+                            int startCol, int[] sums) {
+    int columns = sums.length / 3;
+    if (enteringRow >= 0) {
+      int offset = enteringRow * width + startCol;
+      for (int i = 0; i < columns; i++) {
+        int p = src[offset + i];
+        sums[i] += (p >> 16) & 0xFF;
+        sums[columns + i] += (p >> 8) & 0xFF;
+        sums[2 * columns + i] += p & 0xFF;
+      }
+    }
+    if (leavingRow >= 0) {
+      int offset = leavingRow * width + startCol;
+      for (int i = 0; i < columns; i++) {
+        int p = src[offset + i];
+        sums[i] -= (p >> 16) & 0xFF;
+        sums[columns + i] -= (p >> 8) & 0xFF;
+        sums[2 * columns + i] -= p & 0xFF;
+      }
+    }
+  }
+
+  /**
+   * Returns ceil(2^44 / n) for a window of n pixels. For every sum s of at most 256 n,
+   * ((s + n / 2) * scale) >> 44 is the rounded average (s + n / 2) / n, since n is below 2^18.
+   */
+  private static long scale(int radius) {
+    long n = 2L * radius + 1;
+    return ((1L << DIVISION_SHIFT) + n - 1) / n;
+  }
+
+  private static long half(int radius, long scale) {
+    return radius * scale;
+  }
+
+  private static int pack(int red, int green, int blue, long scale, long half) {
+    return (int) ((red * scale + half) >>> DIVISION_SHIFT) << 16
+            | (int) ((green * scale + half) >>> DIVISION_SHIFT) << 8
+            | (int) ((blue * scale + half) >>> DIVISION_SHIFT);
+  }
+}
@@ -1,18 +1,5 @@
 package model;
 
-
-import java.awt.Graphics2D;
-import java.awt.Color;
-import java.awt.image.BufferedImage;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.HashSet;
-import java.util.List;
-
-import controller.ImageController;
-
-
 /**
  * This class represents a color image with pixels arranged in 2D array.
  */
@@ -40,114 +27,33 @@ public class ColorImage implements Image {
     return this.pixels;
   }
 
-  private int[] getRedFrequencyMap() {
-    Image redChannel = this.getRedChannel();
-    Pixel[][] redPixels = redChannel.getPixels();
-
-    int[] redChannelMap = new int[256];
-
-    for (int i = 0; i < redPixels.length; i++) {
-      for (int j = 0; j < redPixels[i].length; j++) {
-        redChannelMap[redPixels[i][j].getRedValue()]++;
-      }
-    }
-
-    return redChannelMap;
-
-  }
-
-  private int[] getGreenFrequencyMap() {
-    Image greenChannel = this.getGreenChannel();
-    Pixel[][] greenPixels = greenChannel.getPixels();
-
-    int[] greenChannelMap = new int[256];
-
-    for (int i = 0; i < greenPixels.length; i++) {
-      for (int j = 0; j < greenPixels[i].length; j++) {
-
-        greenChannelMap[greenPixels[i][j].getGreenValue()]++;
-      }
-    }
-
-    return greenChannelMap;
-
+  @Override
+  public int getWidth() {
+    return this.pixels[0].length;
   }
 
-  private int[] getBlueFrequencyMap() {
-    Image blueChannel = this.getBlueChannel();
-    Pixel[][] bluePixels = blueChannel.getPixels();
-
-    int[] blueChannelMap = new int[256];
-
-    for (int i = 0; i < bluePixels.length; i++) {
-      for (int j = 0; j < bluePixels[i].length; j++) {
-
-
-        blueChannelMap[bluePixels[i][j].getBlueValue()]++;
-      }
-    }
-
-    return blueChannelMap;
-
+  @Override
+  public int getHeight() {
+    return this.pixels.length;
   }
 
   @Override
   public Image getHistogram() {
-
-    int[] redChannelMap = getRedFrequencyMap();
-    int[] greenChannelMap = getGreenFrequencyMap();
-    int[] blueChannelMap = getBlueFrequencyMap();
-
-    int maxWidth = 256;
-    int maxHeight = 256;
-
-    double maxRedValue = getMaxValue(redChannelMap);
-    double maxGreenValue = getMaxValue(greenChannelMap);
-    double maxBlueValue = getMaxValue(blueChannelMap);
-
-    double maxFrequency = Math.max(Math.max(maxRedValue, maxGreenValue), maxBlueValue);
-
-    double xScale = (maxWidth - 50.0) / Math.max(redChannelMap.length,
-            Math.max(greenChannelMap.length, blueChannelMap.length)) * 1.25;
-    double yScale = (maxHeight - 50.0) / maxFrequency * 1.25;
-
-
-    BufferedImage image = new BufferedImage(maxWidth, maxHeight, BufferedImage.TYPE_INT_RGB);
-    Graphics2D graphics = image.createGraphics();
-
-
-    graphics.setColor(Color.WHITE);
-    graphics.fillRect(0, 0, maxWidth, maxHeight);
-    drawGrid(graphics, xScale, yScale);
-
-    graphics.setColor(Color.RED);
-    drawLineGraph(graphics, redChannelMap, xScale, yScale, maxWidth, maxHeight);
-
-
-    graphics.setColor(Color.GREEN);
-    drawLineGraph(graphics, greenChannelMap, xScale, yScale, maxWidth, maxHeight);
-
-
-    graphics.setColor(Color.BLUE);
-    drawLineGraph(graphics, blueChannelMap, xScale, yScale, maxWidth, maxHeight);
-
-
-    return new ColorImage(ImageController.convertToPixels(image));
+    PackedColorImage plot = HistogramPlot.render(Histogram.of(pixels));
+    return new ColorImage(plot.getPixels());
   }
 
   @Override
   public Image colorCorrect() {
-    int[] redChannelMap = getRedFrequencyMap();
-    int[] greenChannelMap = getGreenFrequencyMap();
-    int[] blueChannelMap = getBlueFrequencyMap();
+    Histogram counts = Histogram.of(pixels);
 
     Image redChannel = this.getRedChannel();
     Image greenChannel = this.getGreenChannel();
     Image blueChannel = this.getBlueChannel();
 
-    int redValueForMaxFrequency = findMaxFrequencyValue(redChannelMap);
-    int greenValueForMaxFrequency = findMaxFrequencyValue(greenChannelMap);
-    int blueValueForMaxFrequency = findMaxFrequencyValue(blueChannelMap);
+    int redValueForMaxFrequency = counts.getRedPeak();
+    int greenValueForMaxFrequency = counts.getGreenPeak();
+    int blueValueForMaxFrequency = counts.getBluePeak();
 
     int avgValue = (redValueForMaxFrequency + greenValueForMaxFrequency
             + blueValueForMaxFrequency) / 3;
@@ -213,20 +119,6 @@ public class ColorImage implements Image {
 
   }
 
-  private int findMaxFrequencyValue(int[] channelMap) {
-    int maxFrequency = Integer.MIN_VALUE;
-    int valueForMaxFrequency = -1;
-
-    for (int i = 0; i < channelMap.length; i++) {
-      if (channelMap[i] > maxFrequency) {
-        maxFrequency = channelMap[i];
-        valueForMaxFrequency = i;
-      }
-    }
-
-    return valueForMaxFrequency;
-  }
-
   private void adjustChannel(Pixel[][] pixels, int offset) {
     for (int i = 0; i < pixels.length; i++) {
       for (int j = 0; j < pixels[i].length; j++) {
@@ -236,48 +128,6 @@ public class ColorImage implements Image {
     }
   }
 
-  private void drawLineGraph(Graphics2D graphics, int[] channelMap,
-                             double xScale, double yScale, int maxWidth, int maxHeight) {
-
-    for (int i = 0; i < channelMap.length - 1; i++) {
-      double y1 = channelMap[i] * yScale;
-      double y2 = channelMap[i + 1] * yScale;
-
-      graphics.drawLine(i, (int) (256 - y1), i + 1, (int) (256 - y2));
-    }
-  }
-
-
-  private void drawGrid(Graphics2D graphics, double xScale, double yScale) {
-    graphics.setColor(Color.LIGHT_GRAY);
-    int maxWidth = 256;
-    int maxHeight = 256;
-
-
-    for (int i = 0; i < maxWidth; i += 10) {
-      graphics.drawLine(i, 0, i, maxHeight);
-    }
-
-    for (int i = 0; i < maxHeight; i += 10) {
-      graphics.drawLine(0, i, maxWidth, i);
-    }
-
-    graphics.setColor(Color.BLACK);
-    graphics.drawLine(0, maxHeight, maxWidth, maxHeight);
-    graphics.drawLine(0, 0, 0, maxHeight);
-  }
-
-  private static int getMaxValue(int[] data) {
-    int maxValue = Integer.MIN_VALUE;
-    for (int value : data) {
-      if (value > maxValue) {
-        maxValue = value;
-      }
-    }
-    return maxValue;
-  }
-
-
   @Override
   public Image visualizeRedComponent() {
     if (this.pixels == null) {
@@ -436,61 +286,14 @@ public class ColorImage implements Image {
     return new ColorImage(brightenedPixels);
   }
 
-
   @Override
   public Image filter(float[][] kernel) {
+    return new ColorImage(new PackedColorImage(pixels).filter(kernel).getPixels());
+  }
 
-    if (kernel.length % 2 == 0 || kernel[0].length % 2 == 0) {
-      throw new IllegalArgumentException("Kernel cannot have event length");
-    }
-
-    int rows = this.getRedChannel().getPixels().length;
-    int cols = this.getRedChannel().getPixels()[0].length;
-
-    Pixel[][] resultantRedChannelPixels = this.getRedChannel().getPixels();
-    Pixel[][] resultantGreenChannelPixels = this.getGreenChannel().getPixels();
-    Pixel[][] resultantBlueChannelPixels = this.getBlueChannel().getPixels();
-
-    Pixel[][] currRedChannelPixels = this.getRedChannel().getPixels();
-    Pixel[][] currGreenChannelPixels = this.getGreenChannel().getPixels();
-    Pixel[][] currBlueChannelPixels = this.getBlueChannel().getPixels();
-
-    int midrow = kernel.length / 2;
-    int midcol = kernel[0].length / 2;
-
-    for (int i = 0; i < pixels.length; i++) {
-      for (int j = 0; j < pixels[i].length; j++) {
-        int sumred = 0;
-        int sumgreen = 0;
-        int sumblue = 0;
-        for (int x = 0; x < kernel.length; x++) {
-          for (int y = 0; y < kernel[x].length; y++) {
-
-            int rowIndex = i - midrow + x;
-            int colIndex = j - midcol + y;
-
-            if (rowIndex >= 0 && rowIndex < rows && colIndex >= 0 && colIndex < cols) {
-              sumred += (int) (currRedChannelPixels[rowIndex]
-                      [colIndex].getRedValue() * kernel[x][y]);
-              sumgreen += (int) (currGreenChannelPixels[rowIndex]
-                      [colIndex].getGreenValue() * kernel[x][y]);
-              sumblue += (int) (currBlueChannelPixels[rowIndex]
-                      [colIndex].getBlueValue() * kernel[x][y]);
-            }
-          }
-        }
-
-        resultantRedChannelPixels[i][j] = new GreyPixel(sumred);
-        resultantGreenChannelPixels[i][j] = new GreyPixel(sumgreen);
-        resultantBlueChannelPixels[i][j] = new GreyPixel(sumblue);
-
-      }
-    }
-
-
-    return combineChannel(new GreyscaleImage(resultantRedChannelPixels),
-            new GreyscaleImage(resultantGreenChannelPixels),
-            new GreyscaleImage(resultantBlueChannelPixels));
+  @Override
+  public Image blur(int radius, boolean gaussian) {
+    return new ColorImage(new PackedColorImage(pixels).blur(radius, gaussian).getPixels());
   }
 
   @Override
@@ -596,17 +399,9 @@ public class ColorImage implements Image {
       }
     }
 
-    double[][] transformedRed = this.haarTransform(redValues, n);
-    double[][] transformedGreen = this.haarTransform(greenValues, n);
-    double[][] transformedBlue = this.haarTransform(blueValues, n);
-
-    applyThresholding(percentage, transformedRed, transformedGreen, transformedBlue);
-
-    this.invertHaarTransform(transformedRed);
-    this.invertHaarTransform(transformedGreen);
-    this.invertHaarTransform(transformedBlue);
+    WaveletCompressor.compress(percentage, redValues, greenValues, blueValues);
 
-    return this.undoImage(transformedRed, transformedGreen, transformedBlue);
+    return this.undoImage(redValues, greenValues, blueValues);
 
 
   }
@@ -616,7 +411,7 @@ public class ColorImage implements Image {
     originalHeight = this.pixels.length;
 
     int maxSize = Math.max(originalWidth, originalHeight);
-    int targetSize = nextPowerOfTwo(maxSize);
+    int targetSize = WaveletCompressor.nextPowerOfTwo(maxSize);
 
     Pixel[][] paddedPixels = new Pixel[targetSize][targetSize];
 
@@ -636,172 +431,6 @@ public class ColorImage implements Image {
     return new ColorImage(paddedPixels);
   }
 
-  private int nextPowerOfTwo(int number) {
-    int power = 1;
-    while (power < number) {
-      power *= 2;
-    }
-    return power;
-  }
-
-  private double[][] haarTransform(double[][] inputMatrix, int dimension) {
-    int currentDimension = dimension;
-    while (currentDimension > 1) {
-      for (int row = 0; row < currentDimension; row++) {
-        double[] rowSegment = Arrays.copyOfRange(inputMatrix[row], 0, currentDimension);
-        double[] processedRow = processRow(rowSegment, currentDimension);
-        double[] remainingRow = new double[dimension - currentDimension];
-        if (currentDimension != dimension) {
-          remainingRow = Arrays.copyOfRange(inputMatrix[row], currentDimension, dimension);
-        }
-        inputMatrix[row] = arrayMerge(processedRow, currentDimension, remainingRow,
-                dimension - currentDimension);
-      }
-      for (int col = 0; col < currentDimension; col++) {
-        double[] columnData = new double[dimension];
-        for (int rowIndex = 0; rowIndex < dimension; rowIndex++) {
-          columnData[rowIndex] = inputMatrix[rowIndex][col];
-        }
-
-        double[] columnSegment = Arrays.copyOfRange(columnData, 0, currentDimension);
-        double[] processedColumn = processRow(columnSegment, currentDimension);
-        double[] remainingColumn = new double[dimension - currentDimension];
-        if (currentDimension != dimension) {
-          remainingColumn = Arrays.copyOfRange(columnData, currentDimension, dimension);
-        }
-        columnData = arrayMerge(processedColumn, currentDimension, remainingColumn,
-                dimension - currentDimension);
-        for (int rowIndex = 0; rowIndex < dimension; rowIndex++) {
-          inputMatrix[rowIndex][col] = columnData[rowIndex];
-        }
-      }
-      currentDimension /= 2;
-    }
-    return inputMatrix;
-  }
-
-  private double[] processRow(double[] dataArray, int length) {
-    double[] average = new double[length / 2];
-    double[] difference = new double[length / 2];
-
-    for (int index = 0; index < length - 1; index += 2) {
-      double avgValue = (dataArray[index] + dataArray[index + 1]) / Math.sqrt(2);
-      double diffValue = (dataArray[index] - dataArray[index + 1]) / Math.sqrt(2);
-      average[index / 2] = Math.round(avgValue * 1000.0) / 1000.0;
-
-      difference[index / 2] = Math.round(diffValue * 1000.0) / 1000.0;
-    }
-    double[] transformedData = new double[length];
-
-    System.arraycopy(average, 0, transformedData, 0, length / 2);
-    System.arraycopy(difference, 0, transformedData, length / 2, length / 2);
-    return transformedData;
-  }
-
-
-  private void applyThresholding(float percentage, double[][] transformedRed,
-                                 double[][] transformedGreen, double[][] transformedBlue) {
-    HashSet<Double> allUniqueValues = new HashSet<>();
-
-    int n = transformedRed.length;
-
-    for (int i = 0; i < n; i++) {
-      for (int j = 0; j < n; j++) {
-        allUniqueValues.add(Math.abs(transformedRed[i][j]));
-        allUniqueValues.add(Math.abs(transformedGreen[i][j]));
-        allUniqueValues.add(Math.abs(transformedBlue[i][j]));
-      }
-    }
-
-    List<Double> valuesList = new ArrayList<>(allUniqueValues);
-
-    Collections.sort(valuesList);
-
-    int thresholdIndex = (int) ((percentage / 100) * valuesList.size());
-    double thresholdValue = valuesList.get(thresholdIndex - 1);
-
-    for (int i = 0; i < n; i++) {
-      for (int j = 0; j < n; j++) {
-        transformedRed[i][j] = Math.abs(transformedRed[i][j]) <= thresholdValue
-                ? 0 : transformedRed[i][j];
-        transformedGreen[i][j] = Math.abs(transformedGreen[i][j]) <= thresholdValue
-                ? 0 : transformedGreen[i][j];
-        transformedBlue[i][j] = Math.abs(transformedBlue[i][j]) <= thresholdValue
-                ? 0 : transformedBlue[i][j];
-      }
-    }
-
-  }
-
-
-  private void invertHaarTransform(double[][] matrixData) {
-    int matrixSize = matrixData.length;
-    int currentStep = 2;
-    while (currentStep <= matrixSize) {
-
-      for (int colIndex = 0; colIndex < currentStep; colIndex++) {
-        double[] columnArray = new double[matrixSize];
-        for (int rowIndex = 0; rowIndex < matrixSize; rowIndex++) {
-          columnArray[rowIndex] = matrixData[rowIndex][colIndex];
-        }
-
-        double[] segmentForInverse = Arrays.copyOfRange(columnArray, 0, currentStep);
-        double[] reversedColumn = reverseTransform(segmentForInverse, currentStep);
-        double[] remainingColumn = new double[matrixSize - currentStep];
-        if (currentStep != matrixSize) {
-          remainingColumn = Arrays.copyOfRange(columnArray, currentStep, matrixSize);
-        }
-        columnArray = arrayMerge(reversedColumn, currentStep, remainingColumn,
-                matrixSize - currentStep);
-        for (int rowIndex = 0; rowIndex < matrixSize; rowIndex++) {
-          matrixData[rowIndex][colIndex] = columnArray[rowIndex];
-        }
-
-      }
-      for (int rowIndex = 0; rowIndex < currentStep; rowIndex++) {
-        double[] segmentForInverse = Arrays.copyOfRange(matrixData[rowIndex], 0, currentStep);
-        double[] reversedRow = reverseTransform(segmentForInverse, currentStep);
-        double[] remainingRow = new double[matrixSize - currentStep];
-        if (currentStep != matrixSize) {
-          remainingRow = Arrays.copyOfRange(matrixData[rowIndex], currentStep, matrixSize);
-        }
-        matrixData[rowIndex] = arrayMerge(reversedRow, currentStep, remainingRow,
-                matrixSize - currentStep);
-      }
-
-      currentStep *= 2;
-    }
-  }
-
-  private static double[] reverseTransform(double[] dataArray, int length) {
-    double[] avgComp = new double[length / 2];
-    double[] diffComp = new double[length / 2];
-    for (int index = 0; index < length / 2; index++) {
-      double compA = dataArray[index];
-      double compB = dataArray[length / 2 + index];
-      double avgValue = (compA + compB) / Math.sqrt(2);
-      double diffValue = (compA - compB) / Math.sqrt(2);
-      avgComp[index] = Math.round(avgValue * 1000.0) / 1000.0;
-      diffComp[index] = Math.round(diffValue * 1000.0) / 1000.0;
-    }
-
-    double[] reversedArray = new double[length];
-    for (int index = 0; index < length; index += 2) {
-      reversedArray[index] = avgComp[index / 2];
-      reversedArray[index + 1] = diffComp[index / 2];
-    }
-    return reversedArray;
-  }
-
-
-  private double[] arrayMerge(double[] array1, int arraySize1, double[] array2,
-                              int arraySize2) {
-    double[] resultArray = new double[arraySize1 + arraySize2];
-    System.arraycopy(array1, 0, resultArray, 0, arraySize1);
-    System.arraycopy(array2, 0, resultArray, arraySize1, arraySize2);
-    return resultArray;
-  }
-
   private Image undoImage(double[][] transformedRed, double[][] transformedGreen,
                           double[][] transformedBlue) {
     Pixel[][] undoPixels = new Pixel[this.pixels.length][this.pixels[0].length];
@@ -0,0 +1,265 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * This class convolves packed images with a kernel.
+ * Rank-1 kernels, such as the blur kernel, are detected and run as a horizontal pass followed
+ * by a vertical pass; other kernels with many taps are handed to FourierConvolution. Source
+ * rows are unpacked into float planes that are padded by the kernel radius according to the
+ * edge policy, so the inner loops never check bounds. Each output channel is the float sum of
+ * all taps, truncated once and clamped to 0-255.
+ */
+final class Convolution {
+
+  private static final float SEPARABLE_TOLERANCE = 1e-6F;
+
+  private final float[][] kernel;
+  private final int kernelRows;
+  private final int kernelCols;
+  private final int rowRadius;
+  private final int colRadius;
+  private final EdgePolicy edge;
+  private final float[] columnFactor;
+  private final float[] rowFactor;
+
+  /**
+   * Prepares a convolution with the given kernel.
+   *
+   * @param kernel the kernel with an odd number of rows and columns.
+   * @param edge   how pixels outside the image are read.
+   */
+  Convolution(float[][] kernel, EdgePolicy edge) {
+    this.kernel = kernel;
+    this.kernelRows = kernel.length;
+    this.kernelCols = kernel[0].length;
+    this.rowRadius = kernelRows / 2;
+    this.colRadius = kernelCols / 2;
+    this.edge = edge;
+
+    float[][] factors = factorize(kernel);
+    this.columnFactor = factors == null ? null : factors[0];
+    this.rowFactor = factors == null ? null : factors[1];
+  }
+
+  /**
+   * Splits the kernel into a column and a row vector whose outer product is the kernel.
+   *
+   * @param kernel the kernel to split.
+   * @return the column and row factors, or null if the kernel is not rank-1.
+   */
+  private static float[][] factorize(float[][] kernel) {
+    int pivotRow = 0;
+    int pivotCol = 0;
+    float maxAbs = 0;
+    for (int x = 0; x < kernel.length; x++) {
+      for (int y = 0; y < kernel[x].length; y++) {
+        if (Math.abs(kernel[x][y]) > maxAbs) {
+          maxAbs = Math.abs(kernel[x][y]);
+          pivotRow = x;
+          pivotCol = y;
+        }
+      }
+    }
+    if (maxAbs == 0) {
+      return null;
+    }
+
+    float[] column = new float[kernel.length];
+    float[] row = new float[kernel[0].length];
+    for (int x = 0; x < column.length; x++) {
+      column[x] = kernel[x][pivotCol];
+    }
+    for (int y = 0; y < row.length; y++) {
+      row[y] = kernel[pivotRow][y] / kernel[pivotRow][pivotCol];
+    }
+
+    for (int x = 0; x < column.length; x++) {
+      for (int y = 0; y < row.length; y++) {
+        if (Math.abs(kernel[x][y] - column[x] * row[y]) > SEPARABLE_TOLERANCE * maxAbs) {
+          return null;
+        }
+      }
+    }
+    return new float[][]{column, row};
+  }
+
+  /**
+   * Tells whether the kernel is run as two one dimensional passes.
+   *
+   * @return true if the kernel is rank-1.
+   */
+  boolean isSeparable() {
+    return rowFactor != null;
+  }
+
+  /**
+   * Convolves the whole image, one band of rows per task. Large kernels that are not rank-1 are
+   * convolved in the frequency domain instead.
+   *
+   * @param src    the packed source pixels.
+   * @param width  the number of columns of the image.
+   * @param height the number of rows of the image.
+   * @return the packed result pixels.
+   */
+  int[] apply(int[] src, int width, int height) {
+    if (!isSeparable() && FourierConvolution.pays(kernel)) {
+      return new FourierConvolution(kernel, edge, width, height).apply(src, width, height);
+    }
+    int[] dst = new int[width * height];
+    RowScheduler.forEachBand(height, width,
+            (startRow, endRow) -> applyRows(src, width, height, dst, startRow, endRow));
+    return dst;
+  }
+
+  /**
+   * Convolves the output rows in the range [startRow, endRow). Rows outside the range are
+   * read from the source as needed but not written.
+   *
+   * @param src      the packed source pixels.
+   * @param width    the number of columns of the image.
+   * @param height   the number of rows of the image.
+   * @param dst      the packed result pixels.
+   * @param startRow the first row to write.
+   * @param endRow   the row after the last row to write.
+   */
+  void applyRows(int[] src, int width, int height, int[] dst, int startRow, int endRow) {
+    if (isSeparable()) {
+      separableRows(src, width, height, dst, startRow, endRow);
+    } else {
+      directRows(src, width, height, dst, startRow, endRow);
+    }
+  }
+
+  private void separableRows(int[] src, int width, int height, int[] dst,
+                             int startRow, int endRow) {
+    int padded = width + 2 * colRadius;
+    float[] sourceRow = new float[3 * padded];
+    float[][] filteredRows = new float[kernelRows][3 * width];
+    float[] sum = new float[3 * width];
+
+    for (int sy = startRow - rowRadius; sy < startRow + rowRadius; sy++) {
+      filterRow(src, width, height, sy, sourceRow, filteredRows[Math.floorMod(sy, kernelRows)]);
+    }
+    for (int y = startRow; y < endRow; y++) {
+      int newest = y + rowRadius;
+      filterRow(src, width, height, newest, sourceRow,
+              filteredRows[Math.floorMod(newest, kernelRows)]);
+
+      Arrays.fill(sum, 0);
+      for (int a = 0; a < kernelRows; a++) {
+        float factor = columnFactor[a];
+        float[] row = filteredRows[Math.floorMod(y - rowRadius + a, kernelRows)];
+        for (int i = 0; i < sum.length; i++) {
+          sum[i] += factor * row[i];
+        }
+      }
+      storeRow(sum, width, dst, y);
+    }
+  }
+
+  private void filterRow(int[] src, int width, int height, int sy, float[] sourceRow,
+                         float[] filtered) {
+    int padded = width + 2 * colRadius;
+    if (!unpackRow(src, width, height, sy, sourceRow)) {
+      Arrays.fill(filtered, 0);
+      return;
+    }
+    for (int c = 0; c < 3; c++) {
+      int in = c * padded;
+      int out = c * width;
+      for (int x = 0; x < width; x++) {
+        float acc = 0;
+        for (int t = 0; t < kernelCols; t++) {
+          acc += rowFactor[t] * sourceRow[in + x + t];
+        }
+        filtered[out + x] = acc;
+      }
+    }
+  }
+
+  private void directRows(int[] src, int width, int height, int[] dst,
+                          int startRow, int endRow) {
+    int padded = width + 2 * colRadius;
+    float[][] sourceRows = new float[kernelRows][3 * padded];
+    boolean[] present = new boolean[kernelRows];
+    float[] sum = new float[3 * width];
+
+    for (int sy = startRow - rowRadius; sy < startRow + rowRadius; sy++) {
+      int slot = Math.floorMod(sy, kernelRows);
+      present[slot] = unpackRow(src, width, height, sy, sourceRows[slot]);
+    }
+    for (int y = startRow; y < endRow; y++) {
+      int newest = y + rowRadius;
+      int newestSlot = Math.floorMod(newest, kernelRows);
+      present[newestSlot] = unpackRow(src, width, height, newest, sourceRows[newestSlot]);
+
+      Arrays.fill(sum, 0);
+      for (int a = 0; a < kernelRows; a++) {
+        int slot = Math.floorMod(y - rowRadius + a, kernelRows);
+        if (!present[slot]) {
+          continue;
+        }
+        float[] row = sourceRows[slot];
+        for (int b = 0; b < kernelCols; b++) {
+          float factor = kernel[a][b];
+          if (factor == 0) {
+            continue;
+          }
+          for (int c = 0; c < 3; c++) {
+            int in = c * padded + b;
+            int out = c * width;
+            for (int x = 0; x < width; x++) {
+              sum[out + x] += factor * row[in + x];
+            }
+          }
+        }
+      }
+      storeRow(sum, width, dst, y);
+    }
+  }
+
+  /**
+   * Unpacks one source row into three padded float planes.
+   *
+   * @return false if the whole row counts as zero under the edge policy.
+   */
+  private boolean unpackRow(int[] src, int width, int height, int sy, float[] planes) {
+    int row = edge.map(sy, height);
+    if (row < 0) {
+      return false;
+    }
+    int padded = width + 2 * colRadius;
+    int offset = row * width;
+    for (int x = 0; x < width; x++) {
+      int p = src[offset + x];
+      planes[colRadius + x] = (p >> 16) & 0xFF;
+      planes[padded + colRadius + x] = (p >> 8) & 0xFF;
+      planes[2 * padded + colRadius + x] = p & 0xFF;
+    }
+    for (int i = 0; i < colRadius; i++) {
+      fillBorder(src, width, offset, planes, padded, i);
+      fillBorder(src, width, offset, planes, padded, colRadius + width + i);
+    }
+    return true;
+  }
+
+  private void fillBorder(int[] src, int width, int offset, float[] planes, int padded,
+                          int index) {
+    int col = edge.map(index - colRadius, width);
+    int p = col < 0 ? 0 : src[offset + col];
+    planes[index] = (p >> 16) & 0xFF;
+    planes[padded + index] = (p >> 8) & 0xFF;
+    planes[2 * padded + index] = p & 0xFF;
+  }
+
+  private static void storeRow(float[] sum, int width, int[] dst, int y) {
+    int offset = y * width;
+    for (int x = 0; x < width; x++) {
+      int r = Math.min(255, Math.max(0, (int) sum[x]));
+      int g = Math.min(255, Math.max(0, (int) sum[width + x]));
+      int b = Math.min(255, Math.max(0, (int) sum[2 * width + x]));
+      dst[offset + x] = (r << 16) | (g << 8) | b;
+    }
+  }
+}
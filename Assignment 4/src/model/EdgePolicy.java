@@ -0,0 +1,45 @@
+package model;
+
+/**
+ * This enum represents how a neighbourhood operation reads pixels outside the image.
+ */
+public enum EdgePolicy {
+
+  /**
+   * Pixels outside the image count as zero. This is what filter has always done.
+   */
+  ZERO,
+
+  /**
+   * Pixels outside the image repeat the nearest edge pixel.
+   */
+  CLAMP,
+
+  /**
+   * Pixels outside the image mirror the image, repeating the edge pixel once.
+   */
+  MIRROR;
+
+  /**
+   * Maps an index that may lie outside the image onto the index to read.
+   *
+   * @param index  the index to map.
+   * @param length the number of rows or columns of the image.
+   * @return the index to read, or -1 if the pixel counts as zero.
+   */
+  int map(int index, int length) {
+    if (index >= 0 && index < length) {
+      return index;
+    }
+    switch (this) {
+      case CLAMP:
+        return index < 0 ? 0 : length - 1;
+      case MIRROR:
+        int period = 2 * length;
+        int folded = Math.floorMod(index, period);
+        return folded < length ? folded : period - 1 - folded;
+      default:
+        return -1;
+    }
+  }
+}
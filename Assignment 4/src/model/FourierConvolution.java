@@ -0,0 +1,331 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * This class convolves packed images with large kernels in the frequency domain. The image is
+ * cut into square tiles whose size is a power of two; each tile is read with a halo of the
+ * kernel radius around it, according to the edge policy, transformed with a fast Fourier
+ * transform, multiplied by the spectrum of the kernel and transformed back. The part of the
+ * result that the circular convolution leaves intact is the tile's output (overlap-save), so
+ * tiles are independent and processed in parallel, one row of tiles per task.
+ *
+ * <p>The kernel is real, so two channels are transformed at once as the real and imaginary
+ * parts of one complex tile, and their results come back apart in the same two parts: three
+ * transforms there and back cover two tiles. The cost per pixel grows with the logarithm of the
+ * tile size instead of with the number of taps.
+ *
+ * <p>The sums are computed in double arithmetic, where the direct convolution adds floats, so a
+ * channel may differ from the direct result by at most 1 when its sum lies within the float
+ * rounding error of an integer. A tiny bias keeps sums that are exactly integers, such as those
+ * of kernels whose weights are sums of powers of two, from being truncated one below.
+ */
+final class FourierConvolution {
+
+  /**
+   * Kernels with fewer taps than this are convolved directly, which is faster for them.
+   */
+  static final int MIN_TAPS = 81;
+
+  private static final int MAX_SIZE = 512;
+  private static final double ROUNDING = 1e-6;
+
+  private final int rowRadius;
+  private final int colRadius;
+  private final EdgePolicy edge;
+  private final int size;
+  private final int tileRows;
+  private final int tileCols;
+  private final Transform transform;
+  private final double[] spectrumRe;
+  private final double[] spectrumIm;
+
+  /**
+   * Prepares a convolution with the given kernel for an image of the given size, choosing the
+   * tile size that needs the least work for the whole image.
+   *
+   * @param kernel the kernel with an odd number of rows and columns.
+   * @param edge   how pixels outside the image are read.
+   * @param width  the number of columns of the image.
+   * @param height the number of rows of the image.
+   */
+  FourierConvolution(float[][] kernel, EdgePolicy edge, int width, int height) {
+    int kernelRows = kernel.length;
+    int kernelCols = kernel[0].length;
+    this.rowRadius = kernelRows / 2;
+    this.colRadius = kernelCols / 2;
+    this.edge = edge;
+    this.size = chooseSize(kernelRows, kernelCols, width, height);
+    this.tileRows = size - kernelRows + 1;
+    this.tileCols = size - kernelCols + 1;
+    this.transform = new Transform(size);
+
+    // The kernel is correlated with the image, not flipped, so the conjugate of its spectrum
+    // is used. The 1 / size^2 of the inverse transform is folded in.
+    double[] re = new double[size * size];
+    double[] im = new double[size * size];
+    for (int a = 0; a < kernelRows; a++) {
+      for (int b = 0; b < kernelCols; b++) {
+        re[a * size + b] = kernel[a][b];
+      }
+    }
+    transform.forward(re, im);
+    double scale = 1.0 / ((double) size * size);
+    for (int i = 0; i < re.length; i++) {
+      re[i] *= scale;
+      im[i] *= -scale;
+    }
+    this.spectrumRe = re;
+    this.spectrumIm = im;
+  }
+
+  /**
+   * Tells whether a kernel is convolved faster in the frequency domain. Rank-1 kernels are not
+   * asked, since they run as two one dimensional passes.
+   *
+   * @param kernel the kernel.
+   * @return true if the kernel has enough taps.
+   */
+  static boolean pays(float[][] kernel) {
+    return kernel.length * kernel[0].length >= MIN_TAPS;
+  }
+
+  /**
+   * Picks the power of two tile size that minimises the work of transforming all the tiles
+   * needed to cover the image, each transform costing about size^2 log(size).
+   */
+  private static int chooseSize(int kernelRows, int kernelCols, int width, int height) {
+    int smallest = Integer.highestOneBit(Math.max(kernelRows, kernelCols) - 1) << 1;
+    int best = smallest;
+    double bestCost = Double.MAX_VALUE;
+    for (int n = smallest; n <= Math.max(smallest, MAX_SIZE); n <<= 1) {
+      long tiles = (long) ceilDiv(height, n - kernelRows + 1)
+              * ceilDiv(width, n - kernelCols + 1);
+      double cost = tiles * (double) n * n * (Integer.numberOfTrailingZeros(n) + 1);
+      if (cost < bestCost) {
+        bestCost = cost;
+        best = n;
+      }
+    }
+    return best;
+  }
+
+  private static int ceilDiv(int a, int b) {
+    return (a + b - 1) / b;
+  }
+
+  /**
+   * Convolves the whole image, one row of tiles per task.
+   *
+   * @param src    the packed source pixels.
+   * @param width  the number of columns of the image.
+   * @param height the number of rows of the image.
+   * @return the packed result pixels.
+   */
+  int[] apply(int[] src, int width, int height) {
+    int[] dst = new int[width * height];
+    RowScheduler.forEachBand(ceilDiv(height, tileRows), tileRows * width,
+            (startTileRow, endTileRow) -> {
+              double[] re = new double[size * size];
+              double[] im = new double[size * size];
+              int[] rows = new int[size];
+              int[] cols = new int[size];
+              for (int tileRow = startTileRow; tileRow < endTileRow; tileRow++) {
+                convolveTileRow(src, width, height, dst, tileRow, re, im, rows, cols);
+              }
+            });
+    return dst;
+  }
+
+  /**
+   * Convolves one row of tiles. The channels of the tiles, three per tile, are taken two at a
+   * time, so a pair may hold channels of two neighbouring tiles.
+   */
+  private void convolveTileRow(int[] src, int width, int height, int[] dst, int tileRow,
+                               double[] re, double[] im, int[] rows, int[] cols) {
+    for (int i = 0; i < size; i++) {
+      rows[i] = edge.map(tileRow * tileRows - rowRadius + i, height);
+    }
+    int channels = 3 * ceilDiv(width, tileCols);
+    for (int first = 0; first < channels; first += 2) {
+      boolean paired = first + 1 < channels;
+      gather(src, width, first, rows, cols, re);
+      if (paired) {
+        gather(src, width, first + 1, rows, cols, im);
+      } else {
+        Arrays.fill(im, 0);
+      }
+      transform.forward(re, im);
+      for (int i = 0; i < re.length; i++) {
+        double xr = re[i];
+        double xi = im[i];
+        re[i] = xr * spectrumRe[i] - xi * spectrumIm[i];
+        im[i] = xr * spectrumIm[i] + xi * spectrumRe[i];
+      }
+      transform.inverse(re, im);
+      scatter(re, width, height, tileRow, first, dst);
+      if (paired) {
+        scatter(im, width, height, tileRow, first + 1, dst);
+      }
+    }
+  }
+
+  /**
+   * Reads one channel of a tile and its halo into a plane. The channel index counts red, green
+   * and blue of the first tile of the row, then of the second tile and so on.
+   */
+  private void gather(int[] src, int width, int channel, int[] rows, int[] cols,
+                      double[] plane) {
+    int shift = 16 - 8 * (channel % 3);
+    int tileCol = channel / 3;
+    for (int i = 0; i < size; i++) {
+      cols[i] = edge.map(tileCol * tileCols - colRadius + i, width);
+    }
+    for (int r = 0; r < size; r++) {
+      int offset = r * size;
+      if (rows[r] < 0) {
+        Arrays.fill(plane, offset, offset + size, 0);
+        continue;
+      }
+      int row = rows[r] * width;
+      for (int c = 0; c < size; c++) {
+        plane[offset + c] = cols[c] < 0 ? 0 : (src[row + cols[c]] >> shift) & 0xFF;
+      }
+    }
+  }
+
+  /**
+   * Writes the intact part of one convolved channel into the result, truncated and clamped to
+   * 0-255 like the direct convolution.
+   */
+  private void scatter(double[] plane, int width, int height, int tileRow, int channel,
+                       int[] dst) {
+    int shift = 16 - 8 * (channel % 3);
+    int x0 = channel / 3 * tileCols;
+    int y0 = tileRow * tileRows;
+    int rowCount = Math.min(tileRows, height - y0);
+    int colCount = Math.min(tileCols, width - x0);
+    for (int p = 0; p < rowCount; p++) {
+      int out = (y0 + p) * width + x0;
+      int in = p * size;
+      for (int q = 0; q < colCount; q++) {
+        int value = Math.min(255, Math.max(0, (int) (plane[in + q] + ROUNDING)));
+        dst[out + q] |= value << shift;
+      }
+    }
+  }
+
+  /**
+   * This class computes two dimensional discrete Fourier transforms of square complex planes
+   * whose side is a power of two, in place, with the iterative radix-2 algorithm. The rows are
+   * transformed one by one; the columns are transformed all at once by running each butterfly
+   * over whole rows, which keeps memory access sequential.
+   */
+  private static final class Transform {
+    private final int size;
+    private final int[] reversed;
+    private final double[] cos;
+    private final double[] sin;
+
+    Transform(int size) {
+      this.size = size;
+      this.reversed = new int[size];
+      int bits = Integer.numberOfTrailingZeros(size);
+      for (int i = 0; i < size; i++) {
+        reversed[i] = bits == 0 ? 0 : Integer.reverse(i) >>> (32 - bits);
+      }
+      this.cos = new double[size / 2];
+      this.sin = new double[size / 2];
+      for (int k = 0; k < size / 2; k++) {
+        double angle = 2 * Math.PI * k / size;
+        cos[k] = Math.cos(angle);
+        sin[k] = Math.sin(angle);
+      }
+    }
+
+    void forward(double[] re, double[] im) {
+      transform(re, im, -1);
+    }
+
+    /**
+     * Computes the inverse transform without dividing by the number of samples.
+     */
+    void inverse(double[] re, double[] im) {
+      transform(re, im, 1);
+    }
+
+    private void transform(double[] re, double[] im, int sign) {
+      for (int r = 0; r < size; r++) {
+        rowTransform(re, im, r * size, sign);
+      }
+      columnTransform(re, im, sign);
+    }
+
+    private void rowTransform(double[] re, double[] im, int offset, int sign) {
+      for (int i = 0; i < size; i++) {
+        int j = reversed[i];
+        if (i < j) {
+          double t = re[offset + i];
+          re[offset + i] = re[offset + j];
+          re[offset + j] = t;
+          t = im[offset + i];
+          im[offset + i] = im[offset + j];
+          im[offset + j] = t;
+        }
+      }
+      for (int half = 1; half < size; half <<= 1) {
+        int step = size / (2 * half);
+        for (int start = offset; start < offset + size; start += 2 * half) {
+          for (int k = 0; k < half; k++) {
+            double wr = cos[k * step];
+            double wi = sign * sin[k * step];
+            int a = start + k;
+            int b = a + half;
+            double tr = wr * re[b] - wi * im[b];
+            double ti = wr * im[b] + wi * re[b];
+            re[b] = re[a] - tr;
+            im[b] = im[a] - ti;
+            re[a] += tr;
+            im[a] += ti;
+          }
+        }
+      }
+    }
+
+    private void columnTransform(double[] re, double[] im, int sign) {
+      double[] row = new double[size];
+      for (int i = 0; i < size; i++) {
+        int j = reversed[i];
+        if (i < j) {
+          swapRows(re, i, j, row);
+          swapRows(im, i, j, row);
+        }
+      }
+      for (int half = 1; half < size; half <<= 1) {
+        int step = size / (2 * half);
+        for (int start = 0; start < size; start += 2 * half) {
+          for (int k = 0; k < half; k++) {
+            double wr = cos[k * step];
+            double wi = sign * sin[k * step];
+            int a = (start + k) * size;
+            int b = a + half * size;
+            for (int c = 0; c < size; c++) {
+              double tr = wr * re[b + c] - wi * im[b + c];
+              double ti = wr * im[b + c] + wi * re[b + c];
+              re[b + c] = re[a + c] - tr;
+              im[b + c] = im[a + c] - ti;
+              re[a + c] += tr;
+              im[a + c] += ti;
+            }
+          }
+        }
+      }
+    }
+
+    private void swapRows(double[] plane, int i, int j, double[] row) {
+      System.arraycopy(plane, i * size, row, 0, size);
+      System.arraycopy(plane, j * size, plane, i * size, size);
+      System.arraycopy(row, 0, plane, j * size, size);
+    }
+  }
+}
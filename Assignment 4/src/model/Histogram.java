@@ -0,0 +1,203 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * This class represents the frequency of every value of the red, green and blue channels of an
+ * image. It is counted in one pass over the pixels; large images are split into bands of rows
+ * that are counted in parallel into partial histograms and merged at the end. Instances are
+ * never modified once constructed.
+ */
+public final class Histogram {
+
+  /**
+   * The number of values a channel can take.
+   */
+  public static final int LEVELS = 256;
+
+  private final int[] red;
+  private final int[] green;
+  private final int[] blue;
+  private int hash;
+
+  private Histogram(int[] red, int[] green, int[] blue) {
+    this.red = red;
+    this.green = green;
+    this.blue = blue;
+  }
+
+  /**
+   * Counts the channel values of packed 0xRRGGBB pixels.
+   *
+   * @param rgb    the pixels in row-major order.
+   * @param width  the number of columns of the image.
+   * @param height the number of rows of the image.
+   * @return the histogram of the pixels.
+   */
+  public static Histogram of(int[] rgb, int width, int height) {
+    int[] total = new int[3 * LEVELS];
+    RowScheduler.forEachBand(height, width, (startRow, endRow) -> {
+      int[] partial = new int[3 * LEVELS];
+      for (int i = startRow * width; i < endRow * width; i++) {
+        int p = rgb[i];
+        partial[(p >> 16) & 0xFF]++;
+        partial[LEVELS + ((p >> 8) & 0xFF)]++;
+        partial[2 * LEVELS + (p & 0xFF)]++;
+      }
+      synchronized (total) {
+        for (int i = 0; i < total.length; i++) {
+          total[i] += partial[i];
+        }
+      }
+    });
+    return new Histogram(Arrays.copyOfRange(total, 0, LEVELS),
+            Arrays.copyOfRange(total, LEVELS, 2 * LEVELS),
+            Arrays.copyOfRange(total, 2 * LEVELS, 3 * LEVELS));
+  }
+
+  /**
+   * Counts the channel values of a 2D array of pixels.
+   *
+   * @param pixels the pixels of the image.
+   * @return the histogram of the pixels.
+   */
+  public static Histogram of(Pixel[][] pixels) {
+    int[] red = new int[LEVELS];
+    int[] green = new int[LEVELS];
+    int[] blue = new int[LEVELS];
+    for (Pixel[] row : pixels) {
+      for (Pixel pixel : row) {
+        red[pixel.getRedValue()]++;
+        green[pixel.getGreenValue()]++;
+        blue[pixel.getBlueValue()]++;
+      }
+    }
+    return new Histogram(red, green, blue);
+  }
+
+  /**
+   * Returns the number of pixels whose red value is the given value.
+   *
+   * @param value the channel value.
+   * @return the frequency of the value.
+   */
+  public int getRedFrequency(int value) {
+    return red[value];
+  }
+
+  /**
+   * Returns the number of pixels whose green value is the given value.
+   *
+   * @param value the channel value.
+   * @return the frequency of the value.
+   */
+  public int getGreenFrequency(int value) {
+    return green[value];
+  }
+
+  /**
+   * Returns the number of pixels whose blue value is the given value.
+   *
+   * @param value the channel value.
+   * @return the frequency of the value.
+   */
+  public int getBlueFrequency(int value) {
+    return blue[value];
+  }
+
+  /**
+   * Returns a copy of the frequencies of the red channel, indexed by value.
+   *
+   * @return the red frequencies.
+   */
+  public int[] getRedFrequencies() {
+    return red.clone();
+  }
+
+  /**
+   * Returns a copy of the frequencies of the green channel, indexed by value.
+   *
+   * @return the green frequencies.
+   */
+  public int[] getGreenFrequencies() {
+    return green.clone();
+  }
+
+  /**
+   * Returns a copy of the frequencies of the blue channel, indexed by value.
+   *
+   * @return the blue frequencies.
+   */
+  public int[] getBlueFrequencies() {
+    return blue.clone();
+  }
+
+  /**
+   * Returns the most frequent red value. The lowest value wins ties.
+   *
+   * @return the red peak.
+   */
+  public int getRedPeak() {
+    return peak(red);
+  }
+
+  /**
+   * Returns the most frequent green value. The lowest value wins ties.
+   *
+   * @return the green peak.
+   */
+  public int getGreenPeak() {
+    return peak(green);
+  }
+
+  /**
+   * Returns the most frequent blue value. The lowest value wins ties.
+   *
+   * @return the blue peak.
+   */
+  public int getBluePeak() {
+    return peak(blue);
+  }
+
+  /**
+   * Returns the highest frequency of any value in any channel.
+   *
+   * @return the highest frequency.
+   */
+  public int getMaxFrequency() {
+    return Math.max(red[peak(red)], Math.max(green[peak(green)], blue[peak(blue)]));
+  }
+
+  private static int peak(int[] frequencies) {
+    int peak = 0;
+    for (int i = 1; i < frequencies.length; i++) {
+      if (frequencies[i] > frequencies[peak]) {
+        peak = i;
+      }
+    }
+    return peak;
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (this == other) {
+      return true;
+    }
+    if (!(other instanceof Histogram)) {
+      return false;
+    }
+    Histogram that = (Histogram) other;
+    return Arrays.equals(red, that.red) && Arrays.equals(green, that.green)
+            && Arrays.equals(blue, that.blue);
+  }
+
+  @Override
+  public int hashCode() {
+    int h = hash;
+    if (h == 0) {
+      h = 31 * (31 * Arrays.hashCode(red) + Arrays.hashCode(green)) + Arrays.hashCode(blue);
+      hash = h;
+    }
+    return h;
+  }
+}
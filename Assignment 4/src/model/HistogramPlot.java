@@ -0,0 +1,137 @@
+package model;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This class draws the line graph of a histogram into a 256x256 packed image: a light grey
+ * grid every 10 pixels, a black left axis, and one line per channel through the frequencies of
+ * consecutive values. Lines are rasterised with Bresenham's algorithm straight into the pixel
+ * array, producing the same pixels as drawing them with Graphics2D. Recent plots are kept in a
+ * small cache keyed on the histogram contents, so drawing the histogram of an image again, as
+ * the GUI does after every action, costs a lookup.
+ */
+public final class HistogramPlot {
+
+  /**
+   * The width and height of the plot.
+   */
+  public static final int SIZE = 256;
+
+  private static final int GRID_SPACING = 10;
+  private static final int GRID = 0xC0C0C0;
+  private static final int AXIS = 0x000000;
+  private static final int BACKGROUND = 0xFFFFFF;
+  private static final int RED = 0xFF0000;
+  private static final int GREEN = 0x00FF00;
+  private static final int BLUE = 0x0000FF;
+  private static final int CACHE_SIZE = 16;
+
+  private static final int[] BACKGROUND_PLOT = drawBackground();
+  private static final Map<Histogram, PackedColorImage> CACHE =
+          new LinkedHashMap<Histogram, PackedColorImage>(CACHE_SIZE, 0.75F, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Histogram, PackedColorImage> eldest) {
+              return size() > CACHE_SIZE;
+            }
+          };
+
+  private HistogramPlot() {
+  }
+
+  /**
+   * Returns the plot of the given histogram.
+   *
+   * @param histogram the histogram to draw.
+   * @return a 256x256 image of the plot.
+   */
+  public static PackedColorImage render(Histogram histogram) {
+    synchronized (CACHE) {
+      PackedColorImage plot = CACHE.get(histogram);
+      if (plot != null) {
+        return plot;
+      }
+    }
+    PackedColorImage plot = draw(histogram);
+    synchronized (CACHE) {
+      CACHE.put(histogram, plot);
+    }
+    return plot;
+  }
+
+  /**
+   * Draws the plot of the given histogram without looking in or filling the cache.
+   *
+   * @param histogram the histogram to draw.
+   * @return a new 256x256 image of the plot.
+   */
+  public static PackedColorImage draw(Histogram histogram) {
+    int[] plot = BACKGROUND_PLOT.clone();
+    double yScale = (SIZE - 50.0) / histogram.getMaxFrequency() * 1.25;
+    drawGraph(plot, histogram.getRedFrequencies(), yScale, RED);
+    drawGraph(plot, histogram.getGreenFrequencies(), yScale, GREEN);
+    drawGraph(plot, histogram.getBlueFrequencies(), yScale, BLUE);
+    return new PackedColorImage(SIZE, SIZE, plot);
+  }
+
+  private static int[] drawBackground() {
+    int[] plot = new int[SIZE * SIZE];
+    Arrays.fill(plot, BACKGROUND);
+    for (int i = 0; i < SIZE; i += GRID_SPACING) {
+      Arrays.fill(plot, i * SIZE, (i + 1) * SIZE, GRID);
+      for (int row = 0; row < SIZE; row++) {
+        plot[row * SIZE + i] = GRID;
+      }
+    }
+    for (int row = 0; row < SIZE; row++) {
+      plot[row * SIZE] = AXIS;
+    }
+    return plot;
+  }
+
+  private static void drawGraph(int[] plot, int[] frequencies, double yScale, int color) {
+    for (int i = 0; i < frequencies.length - 1; i++) {
+      int y1 = (int) (SIZE - frequencies[i] * yScale);
+      int y2 = (int) (SIZE - frequencies[i + 1] * yScale);
+      drawLine(plot, i, y1, i + 1, y2, color);
+    }
+  }
+
+  /**
+   * Draws a line including both end points with Bresenham's algorithm, skipping the points
+   * outside the plot. The error term starts at twice the minor length minus the major length
+   * and a tie steps along the minor axis, which gives the same pixels as Graphics2D.
+   */
+  private static void drawLine(int[] plot, int x1, int y1, int x2, int y2, int color) {
+    int ax = Math.abs(x2 - x1);
+    int ay = Math.abs(y2 - y1);
+    int stepX = x2 < x1 ? -1 : 1;
+    int stepY = y2 < y1 ? -1 : 1;
+    boolean xMajor = ax >= ay;
+    int major = xMajor ? ax : ay;
+    int minor = xMajor ? ay : ax;
+    int error = 2 * minor - major;
+    int x = x1;
+    int y = y1;
+    for (int steps = major + 1; steps > 0; steps--) {
+      if (x >= 0 && x < SIZE && y >= 0 && y < SIZE) {
+        plot[y * SIZE + x] = color;
+      }
+      if (error >= 0) {
+        error -= 2 * major;
+        if (xMajor) {
+          y += stepY;
+        } else {
+          x += stepX;
+        }
+      }
+      error += 2 * minor;
+      if (xMajor) {
+        x += stepX;
+      } else {
+        y += stepY;
+      }
+    }
+  }
+}
@@ -79,13 +79,24 @@ public interface Image {
   Image brighten(int alpha);
 
   /**
-   * Applied filter to the image via the given kernel.
+   * Applied filter to the image via the given kernel. Pixels outside the image count as black,
+   * and every channel is the sum over all taps, truncated once and clamped to 0-255.
    *
    * @param kernel the kernel to apply filter.
    * @return image that is filtered.
    */
   Image filter(float[][] kernel);
 
+  /**
+   * Blurs the image by averaging every pixel with the pixels within the given radius. Pixels
+   * outside the image repeat the nearest edge pixel.
+   *
+   * @param radius   the number of pixels on each side of a pixel that are averaged.
+   * @param gaussian true to approximate a gaussian blur of the same strength instead.
+   * @return image that is blurred.
+   */
+  Image blur(int radius, boolean gaussian);
+
   /**
    * Applied linear transform to the image via the given matrix.
    *
@@ -122,6 +133,20 @@ public interface Image {
    */
   Pixel[][] getPixels();
 
+  /**
+   * Retrieves the width of the image.
+   *
+   * @return the number of columns of the image.
+   */
+  int getWidth();
+
+  /**
+   * Retrieves the height of the image.
+   *
+   * @return the number of rows of the image.
+   */
+  int getHeight();
+
   /**
    * Retrieves a histogram of the image.
    *
@@ -0,0 +1,82 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class represents a mipmap pyramid of an image: the image itself followed by copies that
+ * are each half as wide and high as the one before, down to a single pixel in either direction.
+ * Each level averages 2x2 blocks of the level above. Levels are built when first asked for and
+ * kept, so previews of large images can run operations on a level close to the size they are
+ * shown at.
+ */
+public final class ImagePyramid {
+
+  private final List<PackedColorImage> levels = new ArrayList<>();
+
+  /**
+   * Constructs a pyramid over the given image.
+   *
+   * @param image the full resolution image.
+   */
+  public ImagePyramid(Image image) {
+    levels.add(PackedColorImage.from(image));
+  }
+
+  /**
+   * Returns the largest level that fits in the given size, or the smallest level if none fits.
+   *
+   * @param maxWidth  the largest width wanted.
+   * @param maxHeight the largest height wanted.
+   * @return the level.
+   */
+  public synchronized PackedColorImage levelFor(int maxWidth, int maxHeight) {
+    PackedColorImage level = levels.get(0);
+    int index = 0;
+    while ((level.getWidth() > maxWidth || level.getHeight() > maxHeight)
+            && (level.getWidth() > 1 || level.getHeight() > 1)) {
+      index++;
+      if (index == levels.size()) {
+        levels.add(downsample(level));
+      }
+      level = levels.get(index);
+    }
+    return level;
+  }
+
+  /**
+   * Halves the image in both directions, averaging each 2x2 block. The last row or column of
+   * an odd sized image is averaged with itself.
+   */
+  static PackedColorImage downsample(PackedColorImage image) {
+    int width = image.getWidth();
+    int height = image.getHeight();
+    int[] rgb = image.getRgbData();
+    int halfWidth = Math.max(1, width / 2);
+    int halfHeight = Math.max(1, height / 2);
+    int[] result = new int[halfWidth * halfHeight];
+    RowScheduler.forEachBand(halfHeight, halfWidth, (startRow, endRow) -> {
+      for (int i = startRow; i < endRow; i++) {
+        int top = 2 * i * width;
+        int bottom = Math.min(2 * i + 1, height - 1) * width;
+        for (int j = 0; j < halfWidth; j++) {
+          int left = 2 * j;
+          int right = Math.min(2 * j + 1, width - 1);
+          result[i * halfWidth + j] = average(rgb[top + left], rgb[top + right],
+                  rgb[bottom + left], rgb[bottom + right]);
+        }
+      }
+    });
+    return new PackedColorImage(halfWidth, halfHeight, result);
+  }
+
+  private static int average(int a, int b, int c, int d) {
+    int red = (PackedColorImage.red(a) + PackedColorImage.red(b) + PackedColorImage.red(c)
+            + PackedColorImage.red(d) + 2) >> 2;
+    int green = (PackedColorImage.green(a) + PackedColorImage.green(b)
+            + PackedColorImage.green(c) + PackedColorImage.green(d) + 2) >> 2;
+    int blue = (PackedColorImage.blue(a) + PackedColorImage.blue(b) + PackedColorImage.blue(c)
+            + PackedColorImage.blue(d) + 2) >> 2;
+    return PackedColorImage.pack(red, green, blue);
+  }
+}
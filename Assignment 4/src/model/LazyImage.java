@@ -0,0 +1,386 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * This class represents an image that is computed only when its pixels are needed.
+ * Every operation returns a new node that remembers its input and what to do with it, so a
+ * script builds a graph of pending operations instead of a chain of full images. Runs of
+ * per-pixel operations (components, greyscale, brighten, levels adjust and color transforms)
+ * are fused into a single pass over the input, with consecutive lookup table operations
+ * composed into one table. The fused stages run one after the other over small blocks of
+ * pixels that stay in cache, so every pixel is read from and written to memory once.
+ * Each node is evaluated at most once and then keeps its result, dropping its inputs.
+ */
+public final class LazyImage implements Image {
+
+  private static final int BLOCK_SIZE = 4096;
+  private static final Stage[] NO_STAGES = new Stage[0];
+
+  private final int width;
+  private final int height;
+  private final boolean greyscale;
+  private final Stage[] stages;
+  private final PointOp lastPointOp;
+  private volatile LazyImage parent;
+  private volatile Image[] others;
+  private Function<PackedColorImage, Image> operation;
+  private volatile PackedColorImage value;
+
+  /**
+   * Constructs a lazy image over an image that is already computed.
+   *
+   * @param image the computed image.
+   */
+  public LazyImage(Image image) {
+    if (image == null) {
+      throw new IllegalArgumentException("Image cannot be null");
+    }
+    this.value = PackedColorImage.from(image);
+    this.width = value.getWidth();
+    this.height = value.getHeight();
+    this.greyscale = value instanceof PackedGreyscaleImage;
+    this.stages = NO_STAGES;
+    this.lastPointOp = null;
+  }
+
+  private LazyImage(LazyImage parent, Stage[] stages, PointOp lastPointOp, boolean greyscale) {
+    this.parent = parent;
+    this.stages = stages;
+    this.lastPointOp = lastPointOp;
+    this.greyscale = greyscale;
+    this.width = parent.width;
+    this.height = parent.height;
+  }
+
+  private LazyImage(LazyImage parent, Function<PackedColorImage, Image> operation,
+                    Image[] others, int width, int height, boolean greyscale) {
+    this.parent = parent;
+    this.operation = operation;
+    this.others = others;
+    this.stages = NO_STAGES;
+    this.lastPointOp = null;
+    this.width = width;
+    this.height = height;
+    this.greyscale = greyscale;
+  }
+
+  /**
+   * Tells whether the image is greyscale once computed.
+   *
+   * @return true if every pixel of the result has equal channels.
+   */
+  public boolean isGreyscale() {
+    return greyscale;
+  }
+
+  /**
+   * Tells whether the image has been computed. It does not wait for a computation in progress.
+   *
+   * @return true if the pixels are available without further work.
+   */
+  public boolean isEvaluated() {
+    return value != null;
+  }
+
+  /**
+   * Returns the images this image still needs to be computed: the image it reads from and the
+   * images an operation combines with it. A computed image needs none. It does not wait for a
+   * computation in progress, so it may list the inputs of an image being computed.
+   *
+   * @return the images referenced by this pending image.
+   */
+  public List<Image> getPendingInputs() {
+    List<Image> inputs = new ArrayList<>();
+    LazyImage pendingParent = parent;
+    Image[] pendingOthers = others;
+    if (pendingParent != null) {
+      inputs.add(pendingParent);
+    }
+    if (pendingOthers != null) {
+      inputs.addAll(Arrays.asList(pendingOthers));
+    }
+    return inputs;
+  }
+
+  /**
+   * Computes the image, and every pending image it depends on, if not done yet.
+   *
+   * @return the computed image.
+   */
+  public synchronized PackedColorImage evaluate() {
+    if (value == null) {
+      PackedColorImage input = parent.evaluate();
+      if (operation != null) {
+        value = PackedColorImage.from(operation.apply(input));
+      } else {
+        value = runStages(input);
+      }
+      parent = null;
+      others = null;
+      operation = null;
+    }
+    return value;
+  }
+
+  private PackedColorImage runStages(PackedColorImage input) {
+    int[] src = input.getRgbData();
+    int[] result = new int[width * height];
+    Stage[] fused = stages;
+    RowScheduler.forEachBand(height, width, (startRow, endRow) -> {
+      int end = endRow * width;
+      for (int from = startRow * width; from < end; from += BLOCK_SIZE) {
+        int to = Math.min(end, from + BLOCK_SIZE);
+        System.arraycopy(src, from, result, from, to - from);
+        for (Stage stage : fused) {
+          stage.apply(result, from, to);
+        }
+      }
+    });
+    return greyscale ? new PackedGreyscaleImage(width, height, result)
+            : new PackedColorImage(width, height, result);
+  }
+
+  /**
+   * Appends a per-pixel stage. If this node is itself a pending run of stages, the new node
+   * reads from the same input and runs all stages in one pass.
+   */
+  private LazyImage then(Stage stage, boolean producesGrey) {
+    return then(stage, null, producesGrey);
+  }
+
+  /**
+   * Appends a lookup table stage, composing it with the previous stage when that one is a
+   * lookup table too.
+   */
+  private synchronized LazyImage then(PointOp op) {
+    if (value == null && lastPointOp != null) {
+      PointOp composed = lastPointOp.andThen(op);
+      Stage[] fused = stages.clone();
+      fused[fused.length - 1] = pointStage(composed);
+      return new LazyImage(parent, fused, composed, false);
+    }
+    return then(pointStage(op), op, false);
+  }
+
+  private synchronized LazyImage then(Stage stage, PointOp op, boolean producesGrey) {
+    if (value != null || stages.length == 0) {
+      return new LazyImage(this, new Stage[]{stage}, op, producesGrey);
+    }
+    Stage[] fused = Arrays.copyOf(stages, stages.length + 1);
+    fused[stages.length] = stage;
+    return new LazyImage(parent, fused, op, producesGrey);
+  }
+
+  private static Stage pointStage(PointOp op) {
+    return (pixels, from, to) -> op.apply(pixels, pixels, from, to);
+  }
+
+  private LazyImage defer(Function<PackedColorImage, Image> op, Image... others) {
+    return new LazyImage(this, op, others.length == 0 ? null : others, width, height, false);
+  }
+
+  @Override
+  public Image visualizeRedComponent() {
+    return then(mask(0xFF0000), false);
+  }
+
+  @Override
+  public Image visualizeBlueComponent() {
+    return then(mask(0x0000FF), false);
+  }
+
+  @Override
+  public Image visualizeGreenComponent() {
+    return then(mask(0x00FF00), false);
+  }
+
+  private static Stage mask(int mask) {
+    return (pixels, from, to) -> {
+      for (int i = from; i < to; i++) {
+        pixels[i] &= mask;
+      }
+    };
+  }
+
+  @Override
+  public Image getValue() {
+    PixelKernels kernels = PixelKernels.get();
+    return then((pixels, from, to) -> kernels.value(pixels, pixels, from, to), true);
+  }
+
+  @Override
+  public Image getIntensity() {
+    PixelKernels kernels = PixelKernels.get();
+    return then((pixels, from, to) -> kernels.intensity(pixels, pixels, from, to), true);
+  }
+
+  @Override
+  public Image getLuma() {
+    PixelKernels kernels = PixelKernels.get();
+    return then((pixels, from, to) -> kernels.luma(pixels, pixels, from, to), true);
+  }
+
+  @Override
+  public Image getRedChannel() {
+    return then(channel(16), true);
+  }
+
+  @Override
+  public Image getGreenChannel() {
+    return then(channel(8), true);
+  }
+
+  @Override
+  public Image getBlueChannel() {
+    return then(channel(0), true);
+  }
+
+  private static Stage channel(int shift) {
+    return (pixels, from, to) -> {
+      for (int i = from; i < to; i++) {
+        pixels[i] = PackedColorImage.grey((pixels[i] >> shift) & 0xFF);
+      }
+    };
+  }
+
+  @Override
+  public Image brighten(int alpha) {
+    return then(PointOp.brighten(alpha));
+  }
+
+  @Override
+  public Image adjustLevels(String black, String mid, String white) {
+    return then(PointOp.levels(Integer.parseInt(black), Integer.parseInt(mid),
+            Integer.parseInt(white)));
+  }
+
+  @Override
+  public Image linearTransform(float[][] mat) {
+    PackedColorImage.checkMatrix(mat, "Improper kernel matrix size");
+    float[][] copy = new float[][]{mat[0].clone(), mat[1].clone(), mat[2].clone()};
+    PixelKernels kernels = PixelKernels.get();
+    return then((pixels, from, to) -> kernels.transform(copy, pixels, pixels, from, to), false);
+  }
+
+  @Override
+  public Image combineChannel(Image red, Image green, Image blue) {
+    if (!PackedColorImage.isGreyscale(red) || !PackedColorImage.isGreyscale(green)
+            || !PackedColorImage.isGreyscale(blue)) {
+      throw new IllegalArgumentException("Component type is not similar.");
+    }
+    for (Image component : new Image[]{red, green, blue}) {
+      if (component.getWidth() != width || component.getHeight() != height) {
+        throw new IllegalArgumentException("Component size is not similar.");
+      }
+    }
+    return defer(input -> input.combineChannel(red, green, blue), red, green, blue);
+  }
+
+  @Override
+  public Image horizontalFlip() {
+    return defer(PackedColorImage::horizontalFlip);
+  }
+
+  @Override
+  public Image verticalFlip() {
+    return defer(PackedColorImage::verticalFlip);
+  }
+
+  @Override
+  public Image filter(float[][] kernel) {
+    PackedColorImage.checkKernel(kernel);
+    return defer(input -> input.filter(kernel));
+  }
+
+  @Override
+  public Image blur(int radius, boolean gaussian) {
+    PackedColorImage.checkRadius(radius);
+    return defer(input -> input.blur(radius, gaussian));
+  }
+
+  /**
+   * Returns the histogram of the channel values of this image, computing the image first.
+   *
+   * @return the histogram of this image.
+   */
+  public Histogram getChannelHistogram() {
+    return evaluate().getChannelHistogram();
+  }
+
+  @Override
+  public Image getHistogram() {
+    return new LazyImage(this, PackedColorImage::getHistogram, null, 256, 256, false);
+  }
+
+  @Override
+  public Image colorCorrect() {
+    return defer(PackedColorImage::colorCorrect);
+  }
+
+  @Override
+  public Image compress(float percentage) {
+    PackedColorImage.checkCompression(percentage);
+    return defer(input -> input.compress(percentage));
+  }
+
+  @Override
+  public Image filterSplit(float[][] kernel, Integer splitPercentage) {
+    PackedColorImage.checkKernel(kernel);
+    PackedColorImage.checkSplit(splitPercentage);
+    return defer(input -> input.filterSplit(kernel, splitPercentage));
+  }
+
+  @Override
+  public Image linearTransformWithSplit(float[][] mat, Integer splitPercentage) {
+    PackedColorImage.checkMatrix(mat, "Improper transformation matrix size");
+    PackedColorImage.checkSplit(splitPercentage);
+    return defer(input -> input.linearTransformWithSplit(mat, splitPercentage));
+  }
+
+  @Override
+  public Image colorCorrectWithSplit(Integer splitPercentage) {
+    PackedColorImage.checkSplit(splitPercentage);
+    return defer(input -> input.colorCorrectWithSplit(splitPercentage));
+  }
+
+  @Override
+  public Image levelAdjustWithSplit(String black, String mid, String white,
+                                    Integer splitPercentage) {
+    PointOp.levels(Integer.parseInt(black), Integer.parseInt(mid), Integer.parseInt(white));
+    PackedColorImage.checkSplit(splitPercentage);
+    return defer(input -> input.levelAdjustWithSplit(black, mid, white, splitPercentage));
+  }
+
+  @Override
+  public Image lumaWithSplit(Integer splitPercentage) {
+    PackedColorImage.checkSplit(splitPercentage);
+    return defer(input -> input.lumaWithSplit(splitPercentage));
+  }
+
+  @Override
+  public Pixel[][] getPixels() {
+    return evaluate().getPixels();
+  }
+
+  @Override
+  public int getWidth() {
+    return width;
+  }
+
+  @Override
+  public int getHeight() {
+    return height;
+  }
+
+  /**
+   * This interface represents one fused per-pixel stage, applied in place to a block of
+   * packed pixels.
+   */
+  private interface Stage {
+    void apply(int[] pixels, int from, int to);
+  }
+}
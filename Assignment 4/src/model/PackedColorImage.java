@@ -0,0 +1,584 @@
+package model;
+
+import java.util.function.Function;
+
+/**
+ * This class represents a color image whose pixels are packed into a single int array.
+ * Every pixel is stored as 0xRRGGBB in row-major order, so no object is created per pixel.
+ * Instances are never modified once constructed.
+ */
+public class PackedColorImage implements Image {
+
+  protected final int width;
+  protected final int height;
+  protected final int[] rgb;
+  private Pixel[][] pixelView;
+  private Histogram histogram;
+
+  /**
+   * Constructs an image over the given packed pixel data. The array is used as is and is not
+   * copied, so the caller must not modify it afterwards.
+   *
+   * @param width  the number of columns of the image.
+   * @param height the number of rows of the image.
+   * @param rgb    the pixels as 0xRRGGBB values in row-major order.
+   */
+  public PackedColorImage(int width, int height, int[] rgb) {
+    if (rgb == null) {
+      throw new IllegalArgumentException("Pixel data cannot be null");
+    }
+    if (width <= 0 || height <= 0 || rgb.length < (long) width * height) {
+      throw new IllegalArgumentException("Pixel data does not match the image size");
+    }
+    this.width = width;
+    this.height = height;
+    this.rgb = rgb;
+  }
+
+  /**
+   * Constructs an image by packing the given 2D array of pixels.
+   *
+   * @param pixels the 2D array of pixels to set an image.
+   */
+  public PackedColorImage(Pixel[][] pixels) {
+    this(widthOf(pixels), pixels.length, pack(pixels));
+  }
+
+  private static int widthOf(Pixel[][] pixels) {
+    if (pixels == null || pixels.length == 0) {
+      throw new IllegalArgumentException("Pixels array is null or empty");
+    }
+    return pixels[0].length;
+  }
+
+  private static int[] pack(Pixel[][] pixels) {
+    int w = pixels[0].length;
+    int[] data = new int[pixels.length * w];
+    for (int i = 0; i < pixels.length; i++) {
+      for (int j = 0; j < w; j++) {
+        Pixel pixel = pixels[i][j];
+        data[i * w + j] = pack(clamp(pixel.getRedValue()), clamp(pixel.getGreenValue()),
+                clamp(pixel.getBlueValue()));
+      }
+    }
+    return data;
+  }
+
+  static int red(int rgb) {
+    return (rgb >> 16) & 0xFF;
+  }
+
+  static int green(int rgb) {
+    return (rgb >> 8) & 0xFF;
+  }
+
+  static int blue(int rgb) {
+    return rgb & 0xFF;
+  }
+
+  static int pack(int red, int green, int blue) {
+    return (red << 16) | (green << 8) | blue;
+  }
+
+  static int grey(int value) {
+    return (value << 16) | (value << 8) | value;
+  }
+
+  static int clamp(int value) {
+    return Math.min(255, Math.max(0, value));
+  }
+
+  static int value(int rgb) {
+    return grey(Math.max(red(rgb), Math.max(green(rgb), blue(rgb))));
+  }
+
+  static int intensity(int rgb) {
+    return grey((red(rgb) + green(rgb) + blue(rgb)) / 3);
+  }
+
+  static int luma(int rgb) {
+    int weightedSum = (int) (red(rgb) * 0.2126)
+            + (int) (green(rgb) * 0.7152)
+            + (int) (blue(rgb) * 0.0722);
+    return grey(weightedSum);
+  }
+
+  static int transform(float[][] mat, int rgb) {
+    int oldRed = red(rgb);
+    int oldGreen = green(rgb);
+    int oldBlue = blue(rgb);
+
+    int newRed = (int) (mat[0][0] * oldRed + mat[0][1] * oldGreen + mat[0][2] * oldBlue);
+    int newGreen = (int) (mat[1][0] * oldRed + mat[1][1] * oldGreen + mat[1][2] * oldBlue);
+    int newBlue = (int) (mat[2][0] * oldRed + mat[2][1] * oldGreen + mat[2][2] * oldBlue);
+
+    return pack(clamp(newRed), clamp(newGreen), clamp(newBlue));
+  }
+
+  static void checkKernel(float[][] kernel) {
+    if (kernel.length % 2 == 0 || kernel[0].length % 2 == 0) {
+      throw new IllegalArgumentException("Kernel cannot have event length");
+    }
+  }
+
+  static void checkMatrix(float[][] mat, String message) {
+    if (mat.length != 3 || mat[0].length != 3) {
+      throw new IllegalArgumentException(message);
+    }
+  }
+
+  static void checkRadius(int radius) {
+    if (radius < 0 || radius > BoxBlur.MAX_RADIUS) {
+      throw new IllegalArgumentException("Radius should be between 0 and " + BoxBlur.MAX_RADIUS);
+    }
+  }
+
+  static void checkCompression(float percentage) {
+    if (percentage < 1 || percentage > 99) {
+      throw new IllegalArgumentException("Percentage should be between 1-99");
+    }
+  }
+
+  static void checkSplit(Integer splitPercentage) {
+    if (splitPercentage < 1 || splitPercentage > 99) {
+      throw new IllegalArgumentException("Percentage should be between 1 to 99(numbers included)");
+    }
+  }
+
+  /**
+   * Retrieves the packed form of any image: packed images are returned as they are, lazy
+   * images are evaluated and other images are packed from their pixels.
+   *
+   * @param image the image to convert.
+   * @return the packed image.
+   */
+  public static PackedColorImage from(Image image) {
+    if (image instanceof PackedColorImage) {
+      return (PackedColorImage) image;
+    }
+    if (image instanceof LazyImage) {
+      return ((LazyImage) image).evaluate();
+    }
+    if (image instanceof GreyscaleImage) {
+      Pixel[][] pixels = image.getPixels();
+      return new PackedGreyscaleImage(widthOf(pixels), pixels.length, pack(pixels));
+    }
+    return new PackedColorImage(image.getPixels());
+  }
+
+  /**
+   * Retrieves the packed pixel data backing this image. The array is shared with the image
+   * and must not be modified.
+   *
+   * @return the pixels as 0xRRGGBB values in row-major order.
+   */
+  public int[] getRgbData() {
+    return this.rgb;
+  }
+
+  @Override
+  public int getWidth() {
+    return this.width;
+  }
+
+  @Override
+  public int getHeight() {
+    return this.height;
+  }
+
+  /**
+   * Retrieves the pixels of the image. The 2D array is built on first use only and is meant
+   * for callers that still work on pixel objects; operations never go through it.
+   *
+   * @return The 2D array of pixels.
+   */
+  @Override
+  public Pixel[][] getPixels() {
+    Pixel[][] view = this.pixelView;
+    if (view == null) {
+      view = new Pixel[height][width];
+      for (int i = 0; i < height; i++) {
+        for (int j = 0; j < width; j++) {
+          view[i][j] = createPixel(rgb[i * width + j]);
+        }
+      }
+      this.pixelView = view;
+    }
+    return view;
+  }
+
+  /**
+   * Creates the pixel object used by the compatibility view for one packed value.
+   *
+   * @param value the packed pixel.
+   * @return the pixel object.
+   */
+  protected Pixel createPixel(int value) {
+    return new ColorPixel(red(value), green(value), blue(value));
+  }
+
+  private int size() {
+    return width * height;
+  }
+
+  @Override
+  public Image visualizeRedComponent() {
+    return maskChannels(0xFF0000);
+  }
+
+  @Override
+  public Image visualizeGreenComponent() {
+    return maskChannels(0x00FF00);
+  }
+
+  @Override
+  public Image visualizeBlueComponent() {
+    return maskChannels(0x0000FF);
+  }
+
+  private Image maskChannels(int mask) {
+    int[] result = new int[size()];
+    RowScheduler.forEachBand(height, width, (startRow, endRow) -> {
+      for (int i = startRow * width; i < endRow * width; i++) {
+        result[i] = rgb[i] & mask;
+      }
+    });
+    return new PackedColorImage(width, height, result);
+  }
+
+  @Override
+  public Image getValue() {
+    int[] result = new int[size()];
+    PixelKernels kernels = PixelKernels.get();
+    RowScheduler.forEachBand(height, width, (startRow, endRow) ->
+            kernels.value(rgb, result, startRow * width, endRow * width));
+    return new PackedGreyscaleImage(width, height, result);
+  }
+
+  @Override
+  public Image getIntensity() {
+    int[] result = new int[size()];
+    PixelKernels kernels = PixelKernels.get();
+    RowScheduler.forEachBand(height, width, (startRow, endRow) ->
+            kernels.intensity(rgb, result, startRow * width, endRow * width));
+    return new PackedGreyscaleImage(width, height, result);
+  }
+
+  @Override
+  public Image getLuma() {
+    int[] result = new int[size()];
+    PixelKernels kernels = PixelKernels.get();
+    RowScheduler.forEachBand(height, width, (startRow, endRow) ->
+            kernels.luma(rgb, result, startRow * width, endRow * width));
+    return new PackedGreyscaleImage(width, height, result);
+  }
+
+  @Override
+  public Image combineChannel(Image redImage, Image greenImage, Image blueImage) {
+    if (!isGreyscale(redImage) || !isGreyscale(greenImage) || !isGreyscale(blueImage)) {
+      throw new IllegalArgumentException("Component type is not similar.");
+    }
+    int[] redData = dataOf(redImage);
+    int[] greenData = dataOf(greenImage);
+    int[] blueData = dataOf(blueImage);
+
+    int[] result = new int[size()];
+    RowScheduler.forEachBand(height, width, (startRow, endRow) -> {
+      for (int i = startRow * width; i < endRow * width; i++) {
+        result[i] = (redData[i] & 0xFF0000) | (greenData[i] & 0x00FF00) | (blueData[i] & 0x0000FF);
+      }
+    });
+    return new PackedColorImage(width, height, result);
+  }
+
+  static boolean isGreyscale(Image image) {
+    return image instanceof PackedGreyscaleImage || image instanceof GreyscaleImage
+            || image instanceof LazyImage && ((LazyImage) image).isGreyscale();
+  }
+
+  private int[] dataOf(Image image) {
+    if (image.getWidth() != width || image.getHeight() != height) {
+      throw new IllegalArgumentException("Component size is not similar.");
+    }
+    return from(image).rgb;
+  }
+
+  @Override
+  public Image verticalFlip() {
+    int[] result = new int[size()];
+    RowScheduler.forEachBand(height, width, (startRow, endRow) -> {
+      for (int i = startRow; i < endRow; i++) {
+        int row = i * width;
+        for (int j = 0; j < width; j++) {
+          result[row + j] = rgb[row + width - 1 - j];
+        }
+      }
+    });
+    return new PackedColorImage(width, height, result);
+  }
+
+  @Override
+  public Image horizontalFlip() {
+    int[] result = new int[size()];
+    RowScheduler.forEachBand(height, width, (startRow, endRow) -> {
+      for (int i = startRow; i < endRow; i++) {
+        System.arraycopy(rgb, (height - 1 - i) * width, result, i * width, width);
+      }
+    });
+    return new PackedColorImage(width, height, result);
+  }
+
+  @Override
+  public Image brighten(int alpha) {
+    int[] result = new int[size()];
+    PixelKernels kernels = PixelKernels.get();
+    RowScheduler.forEachBand(height, width, (startRow, endRow) ->
+            kernels.brighten(alpha, rgb, result, startRow * width, endRow * width));
+    return new PackedColorImage(width, height, result);
+  }
+
+  @Override
+  public Image filter(float[][] kernel) {
+    return filter(kernel, EdgePolicy.ZERO);
+  }
+
+  /**
+   * Applies the given kernel to the image, reading pixels outside the image as the edge policy
+   * says. Each channel is the sum over all taps, truncated once and clamped to 0-255.
+   *
+   * @param kernel the kernel to apply filter.
+   * @param edge   how pixels outside the image are read.
+   * @return image that is filtered.
+   */
+  public Image filter(float[][] kernel, EdgePolicy edge) {
+    checkKernel(kernel);
+    int[] result = new Convolution(kernel, edge).apply(rgb, width, height);
+    return new PackedColorImage(width, height, result);
+  }
+
+  @Override
+  public Image blur(int radius, boolean gaussian) {
+    return blur(radius, gaussian, EdgePolicy.CLAMP);
+  }
+
+  /**
+   * Blurs the image with a box of the given radius, or three boxes approximating a gaussian,
+   * reading pixels outside the image as the edge policy says. Each pixel costs the same
+   * whatever the radius.
+   *
+   * @param radius   the number of pixels on each side of a pixel that are averaged.
+   * @param gaussian true to approximate a gaussian blur of the same strength.
+   * @param edge     how pixels outside the image are read.
+   * @return image that is blurred.
+   */
+  public Image blur(int radius, boolean gaussian, EdgePolicy edge) {
+    checkRadius(radius);
+    BoxBlur blur = gaussian ? BoxBlur.gaussian(radius, edge) : BoxBlur.box(radius, edge);
+    return new PackedColorImage(width, height, blur.apply(rgb, width, height));
+  }
+
+  @Override
+  public Image linearTransform(float[][] mat) {
+    checkMatrix(mat, "Improper kernel matrix size");
+    int[] result = new int[size()];
+    PixelKernels kernels = PixelKernels.get();
+    RowScheduler.forEachBand(height, width, (startRow, endRow) ->
+            kernels.transform(mat, rgb, result, startRow * width, endRow * width));
+    return new PackedColorImage(width, height, result);
+  }
+
+  @Override
+  public Image getRedChannel() {
+    int[] result = new int[size()];
+    RowScheduler.forEachBand(height, width, (startRow, endRow) -> {
+      for (int i = startRow * width; i < endRow * width; i++) {
+        result[i] = grey(red(rgb[i]));
+      }
+    });
+    return new PackedGreyscaleImage(width, height, result);
+  }
+
+  @Override
+  public Image getGreenChannel() {
+    int[] result = new int[size()];
+    RowScheduler.forEachBand(height, width, (startRow, endRow) -> {
+      for (int i = startRow * width; i < endRow * width; i++) {
+        result[i] = grey(green(rgb[i]));
+      }
+    });
+    return new PackedGreyscaleImage(width, height, result);
+  }
+
+  @Override
+  public Image getBlueChannel() {
+    int[] result = new int[size()];
+    RowScheduler.forEachBand(height, width, (startRow, endRow) -> {
+      for (int i = startRow * width; i < endRow * width; i++) {
+        result[i] = grey(blue(rgb[i]));
+      }
+    });
+    return new PackedGreyscaleImage(width, height, result);
+  }
+
+  /**
+   * Returns the histogram of the channel values of this image. It is computed on first use and
+   * kept, so the histogram plot and color correction of the same image count the pixels once.
+   *
+   * @return the histogram of this image.
+   */
+  public Histogram getChannelHistogram() {
+    Histogram counts = this.histogram;
+    if (counts == null) {
+      counts = Histogram.of(rgb, width, height);
+      this.histogram = counts;
+    }
+    return counts;
+  }
+
+  @Override
+  public Image getHistogram() {
+    return HistogramPlot.render(getChannelHistogram());
+  }
+
+  @Override
+  public Image colorCorrect() {
+    return colorCorrection().apply(this);
+  }
+
+  /**
+   * Builds the point operation that aligns the peaks of the three channel histograms.
+   */
+  private PointOp colorCorrection() {
+    return PointOp.colorCorrection(getChannelHistogram());
+  }
+
+  @Override
+  public Image adjustLevels(String black, String mid, String white) {
+    int b = Integer.parseInt(black);
+    int m = Integer.parseInt(mid);
+    int w = Integer.parseInt(white);
+    return PointOp.levels(b, m, w).apply(this);
+  }
+
+  @Override
+  public Image compress(float percentage) {
+    checkCompression(percentage);
+
+    int n = WaveletCompressor.nextPowerOfTwo(Math.max(width, height));
+
+    double[] redValues = new double[n * n];
+    double[] greenValues = new double[n * n];
+    double[] blueValues = new double[n * n];
+
+    RowScheduler.forEachBand(height, width, (startRow, endRow) -> {
+      for (int i = startRow; i < endRow; i++) {
+        for (int j = 0; j < width; j++) {
+          int p = rgb[i * width + j];
+          redValues[i * n + j] = red(p);
+          greenValues[i * n + j] = green(p);
+          blueValues[i * n + j] = blue(p);
+        }
+      }
+    });
+
+    WaveletCompressor.compress(percentage, redValues, greenValues, blueValues, n);
+
+    int[] result = new int[size()];
+    RowScheduler.forEachBand(height, width, (startRow, endRow) -> {
+      for (int i = startRow; i < endRow; i++) {
+        for (int j = 0; j < width; j++) {
+          result[i * width + j] = pack(clamp((int) redValues[i * n + j]),
+                  clamp((int) greenValues[i * n + j]), clamp((int) blueValues[i * n + j]));
+        }
+      }
+    });
+    return new PackedColorImage(width, height, result);
+  }
+
+  @Override
+  public Image filterSplit(float[][] kernel, Integer splitPercentage) {
+    checkKernel(kernel);
+    checkSplit(splitPercentage);
+    int splitColumn = splitColumn(splitPercentage);
+    int halo = kernel[0].length / 2;
+    return split(splitColumn, left -> left.filter(kernel),
+            Math.min(width, splitColumn + halo));
+  }
+
+  @Override
+  public Image linearTransformWithSplit(float[][] mat, Integer splitPercentage) {
+    checkMatrix(mat, "Improper transformation matrix size");
+    checkSplit(splitPercentage);
+    int splitColumn = splitColumn(splitPercentage);
+    return split(splitColumn, left -> left.linearTransform(mat), splitColumn);
+  }
+
+  @Override
+  public Image colorCorrectWithSplit(Integer splitPercentage) {
+    checkSplit(splitPercentage);
+    int splitColumn = splitColumn(splitPercentage);
+    PointOp correction = colorCorrection();
+    return split(splitColumn, correction::apply, splitColumn);
+  }
+
+  @Override
+  public Image lumaWithSplit(Integer splitPercentage) {
+    checkSplit(splitPercentage);
+    int splitColumn = splitColumn(splitPercentage);
+    return split(splitColumn, PackedColorImage::getLuma, splitColumn);
+  }
+
+  @Override
+  public Image levelAdjustWithSplit(String black, String mid, String white,
+                                    Integer splitPercentage) {
+    PointOp levels = PointOp.levels(Integer.parseInt(black), Integer.parseInt(mid),
+            Integer.parseInt(white));
+    checkSplit(splitPercentage);
+    int splitColumn = splitColumn(splitPercentage);
+    return split(splitColumn, levels::apply, splitColumn);
+  }
+
+  private int splitColumn(Integer splitPercentage) {
+    return (int) (width * (splitPercentage / 100.0));
+  }
+
+  /**
+   * Builds a split view: the columns left of the split column are transformed, the rest are
+   * kept and the split column is drawn red. Only the left part of the image, widened by the
+   * columns the operation reads beyond the split, is transformed.
+   *
+   * @param splitColumn  the column drawn red.
+   * @param operation    the operation applied to the left part.
+   * @param inputColumns the number of columns the operation needs to compute the left part.
+   */
+  private Image split(int splitColumn, Function<PackedColorImage, Image> operation,
+                      int inputColumns) {
+    int[] transformedData = splitColumn == 0 ? rgb
+            : from(operation.apply(leftColumns(inputColumns))).rgb;
+    int transformedWidth = splitColumn == 0 ? width : inputColumns;
+
+    int[] result = new int[size()];
+    RowScheduler.forEachBand(height, width, (startRow, endRow) -> {
+      for (int i = startRow; i < endRow; i++) {
+        int row = i * width;
+        System.arraycopy(transformedData, i * transformedWidth, result, row, splitColumn);
+        System.arraycopy(rgb, row + splitColumn, result, row + splitColumn, width - splitColumn);
+        result[row + splitColumn] = 0xFF0000;
+      }
+    });
+    return new PackedColorImage(width, height, result);
+  }
+
+  private PackedColorImage leftColumns(int columns) {
+    if (columns == width) {
+      return this;
+    }
+    int[] result = new int[columns * height];
+    RowScheduler.forEachBand(height, width, (startRow, endRow) -> {
+      for (int i = startRow; i < endRow; i++) {
+        System.arraycopy(rgb, i * width, result, i * columns, columns);
+      }
+    });
+    return new PackedColorImage(columns, height, result);
+  }
+}
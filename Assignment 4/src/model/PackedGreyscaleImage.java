@@ -0,0 +1,25 @@
+package model;
+
+/**
+ * This class represents a packed Greyscale Image.
+ * It is a special case where red, blue and green components are the same.
+ */
+public class PackedGreyscaleImage extends PackedColorImage {
+
+  /**
+   * Constructs a PackedGreyscaleImage over the given packed pixel data. The array is used as
+   * is and is not copied.
+   *
+   * @param width  the number of columns of the image.
+   * @param height the number of rows of the image.
+   * @param rgb    the pixels as 0xRRGGBB values in row-major order with equal channels.
+   */
+  public PackedGreyscaleImage(int width, int height, int[] rgb) {
+    super(width, height, rgb);
+  }
+
+  @Override
+  protected Pixel createPixel(int value) {
+    return new GreyPixel(red(value));
+  }
+}
@@ -0,0 +1,136 @@
+package model;
+
+/**
+ * This class holds the loops of the per-pixel operations that are pure arithmetic on the
+ * channels: the color matrix of sepia and greyscale, luma, intensity, value and brighten. Each
+ * maps the packed pixels in the range [from, to) of a source array into the same range of a
+ * destination array, which may be the source itself.
+ *
+ * <p>This class is the scalar implementation. When the program runs on Java 17 or later with
+ * {@code --add-modules jdk.incubator.vector}, and was built there, {@link #get()} returns a
+ * subclass that computes several pixels at once in the lanes of the Vector API; otherwise it
+ * returns this class. Both give exactly the same pixels.
+ */
+public class PixelKernels {
+
+  private static final PixelKernels SCALAR = new PixelKernels();
+  private static final PixelKernels ACTIVE = load();
+
+  PixelKernels() {
+  }
+
+  private static PixelKernels load() {
+    try {
+      return (PixelKernels) Class.forName("model.VectorKernels")
+              .getDeclaredConstructor().newInstance();
+    } catch (ReflectiveOperationException | LinkageError e) {
+      // Not built, an older Java, or the incubator module is not added.
+      return SCALAR;
+    }
+  }
+
+  /**
+   * Retrieves the kernels image operations use: the vector ones when available, the scalar
+   * ones otherwise.
+   *
+   * @return the kernels in use.
+   */
+  public static PixelKernels get() {
+    return ACTIVE;
+  }
+
+  /**
+   * Retrieves the scalar kernels, which are always available.
+   *
+   * @return the scalar kernels.
+   */
+  public static PixelKernels scalar() {
+    return SCALAR;
+  }
+
+  /**
+   * Retrieves the name of the kernels, for reports.
+   *
+   * @return "scalar", or "vector" followed by the number of lanes.
+   */
+  public String getName() {
+    return "scalar";
+  }
+
+  /**
+   * Multiplies every pixel by a 3x3 color matrix in float arithmetic, truncating and clamping
+   * each channel to 0-255.
+   *
+   * @param mat  the matrix; row n gives the weights of red, green and blue in channel n.
+   * @param src  the packed source pixels.
+   * @param dst  the packed result pixels.
+   * @param from the first index to map.
+   * @param to   the index after the last index to map.
+   */
+  public void transform(float[][] mat, int[] src, int[] dst, int from, int to) {
+    for (int i = from; i < to; i++) {
+      dst[i] = PackedColorImage.transform(mat, src[i]);
+    }
+  }
+
+  /**
+   * Replaces every pixel by its luma, the weighted sum 0.2126 R + 0.7152 G + 0.0722 B with
+   * each term truncated.
+   *
+   * @param src  the packed source pixels.
+   * @param dst  the packed result pixels.
+   * @param from the first index to map.
+   * @param to   the index after the last index to map.
+   */
+  public void luma(int[] src, int[] dst, int from, int to) {
+    for (int i = from; i < to; i++) {
+      dst[i] = PackedColorImage.luma(src[i]);
+    }
+  }
+
+  /**
+   * Replaces every pixel by its intensity, the truncated average of its channels.
+   *
+   * @param src  the packed source pixels.
+   * @param dst  the packed result pixels.
+   * @param from the first index to map.
+   * @param to   the index after the last index to map.
+   */
+  public void intensity(int[] src, int[] dst, int from, int to) {
+    for (int i = from; i < to; i++) {
+      dst[i] = PackedColorImage.intensity(src[i]);
+    }
+  }
+
+  /**
+   * Replaces every pixel by its value, the largest of its channels.
+   *
+   * @param src  the packed source pixels.
+   * @param dst  the packed result pixels.
+   * @param from the first index to map.
+   * @param to   the index after the last index to map.
+   */
+  public void value(int[] src, int[] dst, int from, int to) {
+    for (int i = from; i < to; i++) {
+      dst[i] = PackedColorImage.value(src[i]);
+    }
+  }
+
+  /**
+   * Adds a constant to every channel, clamping to 0-255.
+   *
+   * @param alpha the value to add, which may be negative.
+   * @param src   the packed source pixels.
+   * @param dst   the packed result pixels.
+   * @param from  the first index to map.
+   * @param to    the index after the last index to map.
+   */
+  public void brighten(int alpha, int[] src, int[] dst, int from, int to) {
+    for (int i = from; i < to; i++) {
+      int p = src[i];
+      dst[i] = PackedColorImage.pack(PackedColorImage.clamp(PackedColorImage.red(p) + alpha),
+              PackedColorImage.clamp(PackedColorImage.green(p) + alpha),
+              PackedColorImage.clamp(PackedColorImage.blue(p) + alpha));
+    }
+  }
+}
@@ -0,0 +1,206 @@
+package model;
+
+import java.util.function.IntUnaryOperator;
+
+/**
+ * This class represents an operation that maps every channel value of a pixel through a curve,
+ * independently of the other channels and of the neighbouring pixels. The curves are compiled
+ * into one 256 entry lookup table per channel, so applying the operation costs one table lookup
+ * per channel, and two point operations in a row compose into a single table.
+ * Instances are never modified once constructed.
+ */
+public final class PointOp {
+
+  private static final PointOp IDENTITY = of(value -> value);
+
+  private final byte[] red;
+  private final byte[] green;
+  private final byte[] blue;
+
+  private PointOp(byte[] red, byte[] green, byte[] blue) {
+    this.red = red;
+    this.green = green;
+    this.blue = blue;
+  }
+
+  /**
+   * Compiles the same curve for all three channels.
+   *
+   * @param curve maps a channel value in 0-255 to its new value; results are clamped to 0-255.
+   * @return the compiled operation.
+   */
+  public static PointOp of(IntUnaryOperator curve) {
+    byte[] table = compile(curve);
+    return new PointOp(table, table, table);
+  }
+
+  /**
+   * Compiles one curve per channel.
+   *
+   * @param redCurve   the curve of the red channel.
+   * @param greenCurve the curve of the green channel.
+   * @param blueCurve  the curve of the blue channel.
+   * @return the compiled operation.
+   */
+  public static PointOp of(IntUnaryOperator redCurve, IntUnaryOperator greenCurve,
+                           IntUnaryOperator blueCurve) {
+    return new PointOp(compile(redCurve), compile(greenCurve), compile(blueCurve));
+  }
+
+  private static byte[] compile(IntUnaryOperator curve) {
+    byte[] table = new byte[256];
+    for (int value = 0; value < 256; value++) {
+      table[value] = (byte) PackedColorImage.clamp(curve.applyAsInt(value));
+    }
+    return table;
+  }
+
+  /**
+   * Retrieves the operation that leaves every pixel unchanged.
+   *
+   * @return the identity operation.
+   */
+  public static PointOp identity() {
+    return IDENTITY;
+  }
+
+  /**
+   * Adds a constant to every channel, as the brighten operation does.
+   *
+   * @param alpha the value to add, which may be negative.
+   * @return the compiled operation.
+   */
+  public static PointOp brighten(int alpha) {
+    return of(value -> value + alpha);
+  }
+
+  /**
+   * Adds a constant to each channel, as the color correct operation does.
+   *
+   * @param redOffset   the value added to the red channel.
+   * @param greenOffset the value added to the green channel.
+   * @param blueOffset  the value added to the blue channel.
+   * @return the compiled operation.
+   */
+  public static PointOp offsets(int redOffset, int greenOffset, int blueOffset) {
+    return of(value -> value + redOffset, value -> value + greenOffset,
+            value -> value + blueOffset);
+  }
+
+  /**
+   * Aligns the peaks of the three channel histograms to their average, as the color correct
+   * operation does.
+   *
+   * @param counts the channel histograms whose peaks are aligned.
+   * @return the compiled operation.
+   */
+  public static PointOp colorCorrection(Histogram counts) {
+    int redValueForMaxFrequency = counts.getRedPeak();
+    int greenValueForMaxFrequency = counts.getGreenPeak();
+    int blueValueForMaxFrequency = counts.getBluePeak();
+
+    int avgValue = (redValueForMaxFrequency + greenValueForMaxFrequency
+            + blueValueForMaxFrequency) / 3;
+
+    return offsets(avgValue - redValueForMaxFrequency, avgValue - greenValueForMaxFrequency,
+            avgValue - blueValueForMaxFrequency);
+  }
+
+  /**
+   * Fits a quadratic curve through the black, mid and white points, as the levels adjust
+   * operation does. The curve is evaluated in float arithmetic and truncated.
+   *
+   * @param black the black point.
+   * @param mid   the mid point.
+   * @param white the white point.
+   * @return the compiled operation.
+   * @throws IllegalArgumentException if the points are not increasing within 0-255.
+   */
+  public static PointOp levels(int black, int mid, int white) {
+    if (black >= mid || mid >= white || black < 0 || white > 255) {
+      throw new IllegalArgumentException("b m w values invalid!");
+    }
+    int b = black;
+    int m = mid;
+    int w = white;
+
+    int aX = b * b * (m - w) - b * (m * m - w * w) + w * m * m - m * w * w;
+    int aA = -b * (-127) + 128 * w - 255 * m;
+    int bA = b * b * (-127) + 255 * m * m - 128 * w * w;
+    int cA = b * b * (255 * m - 128 * w) - b * (255 * m * m - 128 * w * w);
+
+    float a = (float) aA / aX;
+    float bb = (float) bA / aX;
+    float c = (float) cA / aX;
+
+    return of(x -> (int) Math.max(0, Math.min(255, (a * x * x + bb * x + c))));
+  }
+
+  /**
+   * Composes this operation with another one into a single operation.
+   *
+   * @param next the operation applied to the result of this one.
+   * @return the operation that applies this one and then next.
+   */
+  public PointOp andThen(PointOp next) {
+    return new PointOp(chain(red, next.red), chain(green, next.green),
+            chain(blue, next.blue));
+  }
+
+  private static byte[] chain(byte[] first, byte[] second) {
+    byte[] table = new byte[256];
+    for (int value = 0; value < 256; value++) {
+      table[value] = second[first[value] & 0xFF];
+    }
+    return table;
+  }
+
+  /**
+   * Maps one packed pixel.
+   *
+   * @param rgb the pixel as 0xRRGGBB.
+   * @return the mapped pixel as 0xRRGGBB.
+   */
+  public int applyAsInt(int rgb) {
+    return ((red[(rgb >> 16) & 0xFF] & 0xFF) << 16)
+            | ((green[(rgb >> 8) & 0xFF] & 0xFF) << 8)
+            | (blue[rgb & 0xFF] & 0xFF);
+  }
+
+  /**
+   * Maps the pixels in the range [from, to) of the source into the same range of the
+   * destination, which may be the source itself.
+   *
+   * @param src  the packed source pixels.
+   * @param dst  the packed result pixels.
+   * @param from the first index to map.
+   * @param to   the index after the last index to map.
+   */
+  public void apply(int[] src, int[] dst, int from, int to) {
+    byte[] r = red;
+    byte[] g = green;
+    byte[] b = blue;
+    for (int i = from; i < to; i++) {
+      int p = src[i];
+      dst[i] = ((r[(p >> 16) & 0xFF] & 0xFF) << 16)
+              | ((g[(p >> 8) & 0xFF] & 0xFF) << 8)
+              | (b[p & 0xFF] & 0xFF);
+    }
+  }
+
+  /**
+   * Applies the operation to a whole image, one band of rows per task.
+   *
+   * @param image the image to map.
+   * @return the mapped image.
+   */
+  public PackedColorImage apply(PackedColorImage image) {
+    int width = image.getWidth();
+    int height = image.getHeight();
+    int[] src = image.getRgbData();
+    int[] result = new int[width * height];
+    RowScheduler.forEachBand(height, width,
+            (startRow, endRow) -> apply(src, result, startRow * width, endRow * width));
+    return new PackedColorImage(width, height, result);
+  }
+}
@@ -0,0 +1,163 @@
+package model;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * This class runs per-pixel and neighbourhood operations over bands of rows on a shared
+ * ForkJoinPool. Every output row is computed by exactly one task from the unchanged source,
+ * so the result does not depend on the number of threads.
+ */
+public final class RowScheduler {
+
+  private static final int PIXELS_PER_TASK = 1 << 15;
+
+  private static volatile ForkJoinPool pool =
+          new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+  /**
+   * This interface represents the work done on one band of rows.
+   */
+  public interface RowTask {
+
+    /**
+     * Processes the rows in the range [startRow, endRow).
+     *
+     * @param startRow the first row of the band.
+     * @param endRow   the row after the last row of the band.
+     */
+    void run(int startRow, int endRow);
+  }
+
+  private RowScheduler() {
+  }
+
+  /**
+   * Sets the number of threads used by image operations. A value of 1 runs every operation
+   * on the calling thread.
+   *
+   * @param threads the number of threads, at least 1.
+   */
+  public static synchronized void setParallelism(int threads) {
+    if (threads < 1) {
+      throw new IllegalArgumentException("Number of threads should be at least 1");
+    }
+    ForkJoinPool old = pool;
+    if (old.getParallelism() != threads) {
+      pool = new ForkJoinPool(threads);
+      old.shutdown();
+    }
+  }
+
+  /**
+   * Retrieves the number of threads used by image operations.
+   *
+   * @return the number of threads.
+   */
+  public static int getParallelism() {
+    return pool.getParallelism();
+  }
+
+  /**
+   * Runs the task over all rows, split into bands that are processed in parallel. If the
+   * calling thread is interrupted, the bands not yet started are skipped and the call throws
+   * CancellationException, so a caller can stop a long operation by interrupting its thread.
+   *
+   * @param rows      the number of rows.
+   * @param rowLength the number of pixels in a row, used to size the bands.
+   * @param task      the work to do on each band.
+   * @throws CancellationException if the calling thread is interrupted.
+   */
+  public static void forEachBand(int rows, int rowLength, RowTask task) {
+    int grain = Math.max(1, PIXELS_PER_TASK / Math.max(1, rowLength));
+    Signal signal = new Signal(Thread.currentThread());
+    ForkJoinPool current = pool;
+    if (rows <= grain) {
+      signal.check();
+      task.run(0, rows);
+    } else if (current.getParallelism() == 1) {
+      for (int startRow = 0; startRow < rows; startRow += grain) {
+        signal.check();
+        task.run(startRow, Math.min(rows, startRow + grain));
+      }
+    } else {
+      signal.check();
+      await(current.submit(new Band(task, signal, 0, rows, grain)), signal);
+    }
+  }
+
+  /**
+   * Waits for the bands to finish. The wait is interruptible, unlike ForkJoinPool.invoke, so
+   * an interrupt of the caller stops the bands that have not started yet.
+   */
+  private static void await(ForkJoinTask<?> bands, Signal signal) {
+    try {
+      bands.get();
+    } catch (InterruptedException e) {
+      signal.cancelled = true;
+      bands.quietlyJoin();
+      Thread.currentThread().interrupt();
+      throw new CancellationException("Operation cancelled");
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IllegalStateException(cause);
+    }
+  }
+
+  /**
+   * This class tells the bands of one call whether the caller gave up on them.
+   */
+  private static final class Signal {
+    private final Thread caller;
+    private volatile boolean cancelled;
+
+    Signal(Thread caller) {
+      this.caller = caller;
+    }
+
+    void check() {
+      if (cancelled || caller.isInterrupted()) {
+        throw new CancellationException("Operation cancelled");
+      }
+    }
+  }
+
+  private static final class Band extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final RowTask task;
+    private final Signal signal;
+    private final int startRow;
+    private final int endRow;
+    private final int grain;
+
+    Band(RowTask task, Signal signal, int startRow, int endRow, int grain) {
+      this.task = task;
+      this.signal = signal;
+      this.startRow = startRow;
+      this.endRow = endRow;
+      this.grain = grain;
+    }
+
+    @Override
+    protected void compute() {
+      signal.check();
+      if (endRow - startRow <= grain) {
+        task.run(startRow, endRow);
+        return;
+      }
+      int mid = (startRow + endRow) >>> 1;
+      invokeAll(new Band(task, signal, startRow, mid, grain),
+              new Band(task, signal, mid, endRow, grain));
+    }
+  }
+}
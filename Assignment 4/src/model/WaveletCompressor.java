@@ -0,0 +1,332 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * This class holds the Haar wavelet based compression shared by the image implementations.
+ * Each channel is a flat, row-major array holding a square with a power of two side, and is
+ * transformed in place. Every row or column step pairs neighbouring values into their scaled
+ * sum and difference, rounded to three decimals, through a scratch buffer that is reused for
+ * the whole band of rows or block of columns. Columns are processed a block at a time: the
+ * block is transposed into scratch rows, transformed and written back, so memory is read
+ * along rows instead of one element per row.
+ */
+final class WaveletCompressor {
+
+  private static final double SQRT_TWO = Math.sqrt(2);
+  private static final int COLUMN_BLOCK = 16;
+  private static final long EMPTY = -1L;
+
+  private WaveletCompressor() {
+  }
+
+  /**
+   * Compresses the given channels in place by transforming, thresholding and inverting them.
+   *
+   * @param percentage the percentage to determine the threshold.
+   * @param red        the red channel values.
+   * @param green      the green channel values.
+   * @param blue       the blue channel values.
+   */
+  static void compress(float percentage, double[][] red, double[][] green, double[][] blue) {
+    int n = red.length;
+    double[] flatRed = flatten(red);
+    double[] flatGreen = flatten(green);
+    double[] flatBlue = flatten(blue);
+    compress(percentage, flatRed, flatGreen, flatBlue, n);
+    unflatten(flatRed, red);
+    unflatten(flatGreen, green);
+    unflatten(flatBlue, blue);
+  }
+
+  /**
+   * Compresses the given channels in place by transforming, thresholding and inverting them.
+   *
+   * @param percentage the percentage to determine the threshold.
+   * @param red        the red channel values, n * n in row-major order.
+   * @param green      the green channel values, n * n in row-major order.
+   * @param blue       the blue channel values, n * n in row-major order.
+   * @param n          the side of the square, a power of two.
+   */
+  static void compress(float percentage, double[] red, double[] green, double[] blue, int n) {
+    haarTransform(red, n);
+    haarTransform(green, n);
+    haarTransform(blue, n);
+
+    applyThresholding(percentage, red, green, blue);
+
+    invertHaarTransform(red, n);
+    invertHaarTransform(green, n);
+    invertHaarTransform(blue, n);
+  }
+
+  /**
+   * Finds the smallest power of two that is not smaller than the given number.
+   *
+   * @param number the number to round up.
+   * @return the next power of two.
+   */
+  static int nextPowerOfTwo(int number) {
+    int power = 1;
+    while (power < number) {
+      power *= 2;
+    }
+    return power;
+  }
+
+  private static double[] flatten(double[][] matrix) {
+    int n = matrix.length;
+    double[] flat = new double[n * n];
+    for (int i = 0; i < n; i++) {
+      System.arraycopy(matrix[i], 0, flat, i * n, n);
+    }
+    return flat;
+  }
+
+  private static void unflatten(double[] flat, double[][] matrix) {
+    int n = matrix.length;
+    for (int i = 0; i < n; i++) {
+      System.arraycopy(flat, i * n, matrix[i], 0, n);
+    }
+  }
+
+  private static void haarTransform(double[] data, int n) {
+    for (int length = n; length > 1; length /= 2) {
+      int current = length;
+      RowScheduler.forEachBand(current, current, (startRow, endRow) -> {
+        double[] scratch = new double[current];
+        for (int row = startRow; row < endRow; row++) {
+          forwardStep(data, row * n, current, scratch);
+        }
+      });
+      columnBlocks(data, n, current, true);
+    }
+  }
+
+  private static void invertHaarTransform(double[] data, int n) {
+    for (int length = 2; length <= n; length *= 2) {
+      int current = length;
+      columnBlocks(data, n, current, false);
+      RowScheduler.forEachBand(current, current, (startRow, endRow) -> {
+        double[] scratch = new double[current];
+        for (int row = startRow; row < endRow; row++) {
+          inverseStep(data, row * n, current, scratch);
+        }
+      });
+    }
+  }
+
+  /**
+   * Runs one step over the first length entries of the first length columns. Blocks of
+   * columns are copied into rows of a scratch buffer, transformed there and copied back.
+   */
+  private static void columnBlocks(double[] data, int n, int length, boolean forward) {
+    int blocks = (length + COLUMN_BLOCK - 1) / COLUMN_BLOCK;
+    RowScheduler.forEachBand(blocks, COLUMN_BLOCK * length, (startBlock, endBlock) -> {
+      double[] block = new double[COLUMN_BLOCK * length];
+      double[] scratch = new double[length];
+      for (int b = startBlock; b < endBlock; b++) {
+        int firstColumn = b * COLUMN_BLOCK;
+        int columns = Math.min(COLUMN_BLOCK, length - firstColumn);
+        for (int row = 0; row < length; row++) {
+          int offset = row * n + firstColumn;
+          for (int c = 0; c < columns; c++) {
+            block[c * length + row] = data[offset + c];
+          }
+        }
+        for (int c = 0; c < columns; c++) {
+          if (forward) {
+            forwardStep(block, c * length, length, scratch);
+          } else {
+            inverseStep(block, c * length, length, scratch);
+          }
+        }
+        for (int row = 0; row < length; row++) {
+          int offset = row * n + firstColumn;
+          for (int c = 0; c < columns; c++) {
+            data[offset + c] = block[c * length + row];
+          }
+        }
+      }
+    });
+  }
+
+  /**
+   * Replaces the length values starting at offset by their pairwise averages followed by their
+   * pairwise differences.
+   */
+  private static void forwardStep(double[] data, int offset, int length, double[] scratch) {
+    int half = length / 2;
+    for (int k = 0; k < half; k++) {
+      double first = data[offset + 2 * k];
+      double second = data[offset + 2 * k + 1];
+      scratch[k] = round((first + second) / SQRT_TWO);
+      scratch[half + k] = round((first - second) / SQRT_TWO);
+    }
+    System.arraycopy(scratch, 0, data, offset, length);
+  }
+
+  /**
+   * Undoes forwardStep, interleaving the values rebuilt from each average and difference.
+   */
+  private static void inverseStep(double[] data, int offset, int length, double[] scratch) {
+    int half = length / 2;
+    for (int k = 0; k < half; k++) {
+      double average = data[offset + k];
+      double difference = data[offset + half + k];
+      scratch[2 * k] = round((average + difference) / SQRT_TWO);
+      scratch[2 * k + 1] = round((average - difference) / SQRT_TWO);
+    }
+    System.arraycopy(scratch, 0, data, offset, length);
+  }
+
+  private static double round(double value) {
+    return Math.round(value * 1000.0) / 1000.0;
+  }
+
+  private static void applyThresholding(float percentage, double[] transformedRed,
+                                        double[] transformedGreen,
+                                        double[] transformedBlue) {
+    double thresholdValue = threshold(percentage, transformedRed, transformedGreen,
+            transformedBlue);
+
+    for (int i = 0; i < transformedRed.length; i++) {
+      transformedRed[i] = Math.abs(transformedRed[i]) <= thresholdValue ? 0 : transformedRed[i];
+      transformedGreen[i] = Math.abs(transformedGreen[i]) <= thresholdValue
+              ? 0 : transformedGreen[i];
+      transformedBlue[i] = Math.abs(transformedBlue[i]) <= thresholdValue
+              ? 0 : transformedBlue[i];
+    }
+  }
+
+  /**
+   * Finds the largest magnitude that is zeroed: the distinct absolute values of all channels are
+   * ranked, and the given percentage of them, the smallest, fall at or below the threshold.
+   *
+   * @param percentage the percentage of distinct magnitudes to zero.
+   * @param channels   the transformed channel values.
+   * @return the threshold.
+   * @throws IndexOutOfBoundsException if the percentage covers no distinct value.
+   */
+  static double threshold(float percentage, double[]... channels) {
+    long[] uniqueValues = distinctMagnitudes(channels);
+    int thresholdIndex = (int) ((percentage / 100) * uniqueValues.length);
+    if (thresholdIndex < 1) {
+      throw new IndexOutOfBoundsException("Too few distinct values for percentage " + percentage);
+    }
+    return Double.longBitsToDouble(select(uniqueValues, thresholdIndex - 1));
+  }
+
+  /**
+   * Collects the distinct absolute values of all channels as their bit patterns, using an
+   * open addressing hash set of longs. Bit patterns of non-negative doubles order the same way
+   * as the values themselves, and two values are distinct exactly when Double.equals says so.
+   */
+  private static long[] distinctMagnitudes(double[]... channels) {
+    long[] table = new long[1 << 12];
+    Arrays.fill(table, EMPTY);
+    int size = 0;
+    for (double[] channel : channels) {
+      for (double value : channel) {
+        long bits = Double.doubleToLongBits(Math.abs(value));
+        int mask = table.length - 1;
+        int slot = hash(bits) & mask;
+        while (table[slot] != EMPTY && table[slot] != bits) {
+          slot = (slot + 1) & mask;
+        }
+        if (table[slot] == EMPTY) {
+          table[slot] = bits;
+          size++;
+          if (2 * size > table.length) {
+            table = grow(table);
+          }
+        }
+      }
+    }
+    long[] values = new long[size];
+    int count = 0;
+    for (long bits : table) {
+      if (bits != EMPTY) {
+        values[count++] = bits;
+      }
+    }
+    return values;
+  }
+
+  private static int hash(long bits) {
+    long mixed = (bits ^ (bits >>> 33)) * 0xFF51AFD7ED558CCDL;
+    mixed = (mixed ^ (mixed >>> 33)) * 0xC4CEB9FE1A85EC53L;
+    return (int) (mixed ^ (mixed >>> 33));
+  }
+
+  private static long[] grow(long[] table) {
+    long[] larger = new long[table.length * 2];
+    Arrays.fill(larger, EMPTY);
+    int mask = larger.length - 1;
+    for (long bits : table) {
+      if (bits != EMPTY) {
+        int slot = hash(bits) & mask;
+        while (larger[slot] != EMPTY) {
+          slot = (slot + 1) & mask;
+        }
+        larger[slot] = bits;
+      }
+    }
+    return larger;
+  }
+
+  /**
+   * Finds the value that would be at index k if the values were sorted, reordering them on
+   * the way. Quickselect with a median of three pivot, falling back to sorting the remaining
+   * range if the partitions keep coming out unbalanced.
+   */
+  static long select(long[] values, int k) {
+    return select(values, k, 2 * (32 - Integer.numberOfLeadingZeros(values.length)));
+  }
+
+  /**
+   * Finds the value at sorted index k, partitioning at most the given number of times before
+   * sorting the remaining range.
+   */
+  static long select(long[] values, int k, int budget) {
+    int low = 0;
+    int high = values.length - 1;
+    while (low < high) {
+      if (budget-- == 0) {
+        Arrays.sort(values, low, high + 1);
+        return values[k];
+      }
+      int mid = (low + high) >>> 1;
+      long pivot = medianOfThree(values[low], values[mid], values[high]);
+      int i = low;
+      int j = high;
+      while (i <= j) {
+        while (values[i] < pivot) {
+          i++;
+        }
+        while (values[j] > pivot) {
+          j--;
+        }
+        if (i <= j) {
+          long swap = values[i];
+          values[i] = values[j];
+          values[j] = swap;
+          i++;
+          j--;
+        }
+      }
+      if (k <= j) {
+        high = j;
+      } else if (k >= i) {
+        low = i;
+      } else {
+        return values[k];
+      }
+    }
+    return values[k];
+  }
+
+  private static long medianOfThree(long a, long b, long c) {
+    return Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+  }
+}
@@ -2,12 +2,14 @@ package view;
 
 import javax.imageio.ImageIO;
 import javax.swing.JButton;
+import javax.swing.JDialog;
 import javax.swing.JScrollPane;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JSlider;
 import javax.swing.JCheckBox;
 import javax.swing.JPanel;
+import javax.swing.JProgressBar;
 import javax.swing.JOptionPane;
 import javax.swing.JFileChooser;
 import javax.swing.ImageIcon;
@@ -18,11 +20,11 @@ import javax.swing.filechooser.FileNameExtensionFilter;
 import java.awt.BorderLayout;
 import java.awt.GridLayout;
 import java.awt.Color;
+import java.awt.Dimension;
 import java.awt.GridBagLayout;
 import java.awt.GridBagConstraints;
 import java.awt.Insets;
 import java.awt.FlowLayout;
-import java.awt.Image;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
@@ -55,6 +57,11 @@ public class ImageProcessingGUI implements View {
   private JSlider splitPercentageSlider;
   private JCheckBox splitViewCheckbox;
   private JLabel previewLabel;
+  private JPanel progressPanel;
+  private JLabel progressLabel;
+  private JButton cancelButton;
+  private JDialog previewDialog;
+  private JLabel previewImageLabel;
 
   /**
    * Constructor for a ImageProcessingGUI and initializes the GUI components.
@@ -101,6 +108,7 @@ public class ImageProcessingGUI implements View {
     frame.add(mainPanel, BorderLayout.CENTER);
     frame.add(createButtonPanel(), BorderLayout.NORTH);
     frame.add(createOptionsPanel(), BorderLayout.WEST);
+    frame.add(createProgressPanel(), BorderLayout.SOUTH);
 
 
     frame.setVisible(true);
@@ -179,6 +187,19 @@ public class ImageProcessingGUI implements View {
     return optionsPanel;
   }
 
+  private JPanel createProgressPanel() {
+    progressPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 2));
+    progressLabel = new JLabel();
+    JProgressBar progressBar = new JProgressBar();
+    progressBar.setIndeterminate(true);
+    cancelButton = new JButton("Cancel");
+    progressPanel.add(progressLabel);
+    progressPanel.add(progressBar);
+    progressPanel.add(cancelButton);
+    progressPanel.setVisible(false);
+    return progressPanel;
+  }
+
   private void setButtonsEnabled(boolean enabled) {
     saveButton.setEnabled(enabled);
     flipVerticalButton.setEnabled(enabled);
@@ -365,18 +386,45 @@ public class ImageProcessingGUI implements View {
 
   @Override
   public void displayPreviewImage(BufferedImage image) {
-    int newWidth = image.getWidth();
-    int newHeight = image.getHeight();
+    if (previewDialog == null) {
+      previewImageLabel = new JLabel();
+      previewDialog = new JDialog(frame, "Preview", false);
+      previewDialog.add(previewImageLabel);
+    }
+    previewImageLabel.setIcon(new ImageIcon(image));
+    previewDialog.pack();
+    previewDialog.setLocationRelativeTo(frame);
+    previewDialog.setVisible(true);
+  }
 
-    Image scaledImage = image.getScaledInstance(newWidth, newHeight, Image.SCALE_SMOOTH);
-    ImageIcon previewIcon = new ImageIcon(scaledImage);
+  @Override
+  public Dimension getPreviewSize() {
+    return new Dimension(frame.getWidth() * 3 / 4, frame.getHeight() * 3 / 4);
+  }
+
+  @Override
+  public void showProgress(String operation) {
+    progressLabel.setText(operation + "...");
+    progressPanel.setVisible(true);
+    frame.revalidate();
+  }
 
-    JLabel previewImageLabel = new JLabel(previewIcon);
-    JOptionPane.showMessageDialog(frame, previewImageLabel, "Preview", JOptionPane.PLAIN_MESSAGE);
+  @Override
+  public void hideProgress() {
+    progressPanel.setVisible(false);
+    frame.revalidate();
   }
 
   @Override
   public void addFeatures(Features features) {
+    cancelButton.addActionListener(e -> features.cancel());
+    splitPercentageSlider.addChangeListener(e -> {
+      int value = splitPercentageSlider.getValue();
+      if (previewDialog != null && previewDialog.isVisible() && value > 0 && value < 100
+              && features.updateSplitPreview(value) != null) {
+        previewImageLabel.repaint();
+      }
+    });
     loadButton.addActionListener(e -> {
       if (splitViewCheckbox.isSelected()) {
         JOptionPane.showMessageDialog(
@@ -515,7 +563,9 @@ public class ImageProcessingGUI implements View {
       if (splitViewCheckbox.isSelected()) {
         int splitPercentage = getSplitPercentage();
         BufferedImage previewImage = features.levelsAdjustImageWithSplit(splitPercentage);
-        displayPreviewImage(previewImage);
+        if (previewImage != null) {
+          displayPreviewImage(previewImage);
+        }
       } else {
         features.adjustLevels();
       }
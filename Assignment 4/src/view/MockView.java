@@ -1,5 +1,6 @@
 package view;
 
+import java.awt.Dimension;
 import java.awt.image.BufferedImage;
 
 import controller.Features;
@@ -98,4 +99,23 @@ public class MockView implements View {
   public int getSplitPercentage() {
     return 0;
   }
+
+  @Override
+  public void showProgress(String operation) {
+    /**
+     * No implementation required for mocking purpose.
+     */
+  }
+
+  @Override
+  public void hideProgress() {
+    /**
+     * No implementation required for mocking purpose.
+     */
+  }
+
+  @Override
+  public Dimension getPreviewSize() {
+    return new Dimension(800, 600);
+  }
 }
@@ -1,5 +1,6 @@
 package view;
 
+import java.awt.Dimension;
 import java.awt.image.BufferedImage;
 
 import controller.Features;
@@ -75,4 +76,23 @@ public interface View {
    * @return split percentage.
    */
   int getSplitPercentage();
+
+  /**
+   * Shows that an operation is running and offers to cancel it.
+   *
+   * @param operation the name of the running operation.
+   */
+  void showProgress(String operation);
+
+  /**
+   * Hides the progress shown for the last operation.
+   */
+  void hideProgress();
+
+  /**
+   * Retrieves the largest size a preview image is shown at.
+   *
+   * @return the size of the preview area.
+   */
+  Dimension getPreviewSize();
 }
@@ -0,0 +1,119 @@
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import controller.BatchRunner;
+import controller.ImageController;
+import model.PackedColorImage;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Junit test file for BatchRunner class.
+ */
+public class BatchRunnerTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private File input;
+  private File output;
+
+  private final List<String> script = Arrays.asList(
+          "load {in} a",
+          "",
+          "blur a b",
+          "save {out}/{name}-blur.{ext} b",
+          "luma a c",
+          "save {out}/{name}-luma.ppm c");
+
+  @Before
+  public void setUp() throws IOException {
+    input = folder.newFolder("in");
+    output = new File(folder.getRoot(), "out");
+    for (int n = 0; n < 5; n++) {
+      int[] data = new int[16 * 12];
+      for (int i = 0; i < data.length; i++) {
+        data[i] = (i * 31 + n * 7777) & 0xFFFFFF;
+      }
+      ImageController.writeImage(new PackedColorImage(16, 12, data), "ppm",
+              new File(input, "image" + n + ".ppm").getPath(), false);
+    }
+    Files.write(new File(input, "notes.txt").toPath(), "not an image".getBytes());
+  }
+
+  @Test
+  public void testProcessesMatchingFiles() throws IOException {
+    List<BatchRunner.Result> results = new BatchRunner(script, 3, 1 << 20)
+            .run(input.toPath(), "*.ppm", output.toPath());
+    assertEquals(5, results.size());
+    for (int n = 0; n < 5; n++) {
+      BatchRunner.Result result = results.get(n);
+      assertEquals("image" + n + ".ppm", result.getFile().getFileName().toString());
+      assertTrue(result.isSuccess());
+      assertNull(result.getError());
+      assertTrue(result.getMillis() <= result.getTotalMillis());
+      assertTrue(new File(output, "image" + n + "-blur.ppm").exists());
+      assertTrue(new File(output, "image" + n + "-luma.ppm").exists());
+    }
+    assertFalse(new File(output, "notes-blur.txt").exists());
+  }
+
+  @Test
+  public void testMatchesSingleScript() throws IOException {
+    new BatchRunner(script, 2, 1 << 20).run(input.toPath(), "image3.ppm", output.toPath());
+    File single = folder.newFolder("single");
+    ImageController controller = new ImageController();
+    String in = new File(input, "image3.ppm").getPath();
+    controller.processCommands(Arrays.asList(
+            "load " + in + " a",
+            "blur a b",
+            "save " + single + "/blur.ppm b"));
+    assertArrayEquals(Files.readAllBytes(new File(single, "blur.ppm").toPath()),
+            Files.readAllBytes(new File(output, "image3-blur.ppm").toPath()));
+  }
+
+  @Test
+  public void testFailuresAreReported() throws IOException {
+    List<BatchRunner.Result> results = new BatchRunner(script, 2, 1 << 20)
+            .run(input.toPath(), "*", output.toPath());
+    assertEquals(6, results.size());
+    BatchRunner.Result notes = results.get(5);
+    assertEquals("notes.txt", notes.getFile().getFileName().toString());
+    assertFalse(notes.isSuccess());
+    String summary = BatchRunner.summary(results);
+    assertTrue(summary.contains("FAIL"));
+    assertTrue(summary.contains("6 files, 5 succeeded, 1 failed"));
+  }
+
+  @Test
+  public void testBrokenFileFailsOnlyItself() throws IOException {
+    // The header promises 16 pixels but the body ends after the first one.
+    Files.write(new File(input, "broken.ppm").toPath(),
+            "P6 4 4 255\n\u0001\u0002\u0003".getBytes(StandardCharsets.ISO_8859_1));
+    List<BatchRunner.Result> results = new BatchRunner(script, 2, 1 << 20)
+            .run(input.toPath(), "*.ppm", output.toPath());
+    assertEquals(6, results.size());
+    BatchRunner.Result broken = results.get(0);
+    assertEquals("broken.ppm", broken.getFile().getFileName().toString());
+    assertFalse(broken.isSuccess());
+    assertEquals("Invalid PPM file: unexpected end of file", broken.getError().getMessage());
+    assertFalse(new File(output, "broken-blur.ppm").exists());
+    for (int n = 0; n < 5; n++) {
+      assertTrue(results.get(n + 1).isSuccess());
+      assertTrue(new File(output, "image" + n + "-blur.ppm").exists());
+    }
+  }
+}
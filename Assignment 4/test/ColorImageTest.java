@@ -426,9 +426,9 @@ public class ColorImageTest {
 
     Pixel middlePixel = resultImage.getPixels()[1][1];
 
-    assertEquals(125, middlePixel.getRedValue());
-    assertEquals(125, middlePixel.getGreenValue());
-    assertEquals(98, middlePixel.getBlueValue());
+    assertEquals(127, middlePixel.getRedValue());
+    assertEquals(127, middlePixel.getGreenValue());
+    assertEquals(99, middlePixel.getBlueValue());
   }
 
   @Test
@@ -445,9 +445,9 @@ public class ColorImageTest {
 
     Pixel middlePixel = resultImage.getPixels()[1][1];
 
-    assertEquals(476, middlePixel.getRedValue());
-    assertEquals(476, middlePixel.getGreenValue());
-    assertEquals(413, middlePixel.getBlueValue());
+    assertEquals(255, middlePixel.getRedValue());
+    assertEquals(255, middlePixel.getGreenValue());
+    assertEquals(255, middlePixel.getBlueValue());
   }
 
   @Test
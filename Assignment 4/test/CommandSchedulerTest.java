@@ -0,0 +1,227 @@
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import controller.Command;
+import controller.CommandScheduler;
+import controller.ImageController;
+import controller.ScriptLiveness;
+import model.Image;
+import model.PackedColorImage;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Junit test file for CommandScheduler class.
+ */
+public class CommandSchedulerTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private final Map<String, Image> images = new ConcurrentHashMap<>();
+  private final List<String> events = Collections.synchronizedList(new ArrayList<>());
+
+  /**
+   * A command that records when it starts and ends, and stores a 1x1 image made from the
+   * images it reads.
+   */
+  private class Step implements Command {
+    private final String name;
+    private final List<String> inputs;
+    private final List<String> outputs;
+    private final long sleep;
+    private final RuntimeException error;
+
+    Step(String name, List<String> inputs, List<String> outputs, long sleep,
+         RuntimeException error) {
+      this.name = name;
+      this.inputs = inputs;
+      this.outputs = outputs;
+      this.sleep = sleep;
+      this.error = error;
+    }
+
+    @Override
+    public void execute() {
+      events.add("start " + name);
+      int value = name.hashCode() & 0xFFFF;
+      for (String input : inputs) {
+        value += PackedColorImage.from(images.get(input)).getRgbData()[0];
+      }
+      try {
+        Thread.sleep(sleep);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      if (error != null) {
+        throw error;
+      }
+      for (String output : outputs) {
+        images.put(output, new PackedColorImage(1, 1, new int[]{value & 0xFFFFFF}));
+      }
+      events.add("end " + name);
+    }
+
+    @Override
+    public List<String> getInputKeys() {
+      return inputs;
+    }
+
+    @Override
+    public List<String> getOutputKeys() {
+      return outputs;
+    }
+  }
+
+  private Step step(String name, List<String> inputs, List<String> outputs, long sleep) {
+    return new Step(name, inputs, outputs, sleep, null);
+  }
+
+  private void run(List<Step> script) throws IOException {
+    new CommandScheduler(images, 4).run(script, ScriptLiveness.analyze(script));
+  }
+
+  private void assertBefore(String first, String second) {
+    assertTrue(first + " should come before " + second,
+            events.indexOf(first) >= 0 && events.indexOf(first) < events.indexOf(second));
+  }
+
+  @Test
+  public void testIndependentCommandsOverlap() throws IOException {
+    List<String> none = Collections.emptyList();
+    run(Arrays.asList(
+            step("load", none, Collections.singletonList("a"), 0),
+            step("red", Collections.singletonList("a"), Collections.singletonList("r"), 200),
+            step("blur", Collections.singletonList("a"), Collections.singletonList("b"), 200),
+            step("save", Arrays.asList("r", "b"), none, 0)));
+    assertBefore("end load", "start red");
+    assertBefore("end load", "start blur");
+    assertBefore("start blur", "end red");
+    assertBefore("start red", "end blur");
+    assertBefore("end red", "start save");
+    assertBefore("end blur", "start save");
+  }
+
+  @Test
+  public void testWriteAfterReadWaits() throws IOException {
+    List<String> none = Collections.emptyList();
+    List<String> a = Collections.singletonList("a");
+    run(Arrays.asList(
+            step("load", none, a, 0),
+            step("slow-read", a, Collections.singletonList("b"), 200),
+            step("overwrite", none, a, 0),
+            step("save", Arrays.asList("a", "b"), none, 0)));
+    assertBefore("end slow-read", "start overwrite");
+    assertEquals(Collections.emptySet(), images.keySet());
+  }
+
+  @Test
+  public void testWriteAfterWriteWaits() throws IOException {
+    List<String> none = Collections.emptyList();
+    List<String> a = Collections.singletonList("a");
+    List<String> b = Collections.singletonList("b");
+    File file = new File(folder.getRoot(), "out.ppm");
+    Step first = new Step("first", a, none, 200, null) {
+      @Override
+      public List<String> getOutputFiles() {
+        return Collections.singletonList(file.getPath());
+      }
+    };
+    Step second = new Step("second", b, none, 0, null) {
+      @Override
+      public List<String> getOutputFiles() {
+        return Collections.singletonList(folder.getRoot() + "/./out.ppm");
+      }
+    };
+    run(Arrays.asList(
+            step("load-a", none, a, 0),
+            step("load-b", none, b, 0),
+            first,
+            second));
+    assertBefore("end first", "start second");
+  }
+
+  @Test
+  public void testOverwrittenImageIsNotComputed() throws IOException {
+    List<String> none = Collections.emptyList();
+    List<String> a = Collections.singletonList("a");
+    run(Arrays.asList(
+            step("first", none, a, 0),
+            step("second", none, a, 0),
+            step("save", a, none, 0)));
+    assertFalse(events.contains("start first"));
+    assertBefore("end second", "start save");
+  }
+
+  @Test
+  public void testEarliestFailureIsThrown() {
+    List<String> none = Collections.emptyList();
+    List<String> a = Collections.singletonList("a");
+    try {
+      run(Arrays.asList(
+              step("load", none, a, 0),
+              new Step("late", a, Collections.singletonList("x"), 300,
+                      new IllegalStateException("first")),
+              new Step("early", a, Collections.singletonList("y"), 0,
+                      new IllegalStateException("second")),
+              step("save", Arrays.asList("x", "y"), none, 0)));
+      fail("Expected the failure of a command");
+    } catch (IllegalStateException | IOException e) {
+      assertEquals("first", e.getMessage());
+    }
+    assertFalse(events.contains("start save"));
+  }
+
+  @Test
+  public void testScriptMatchesSequentialRun() throws IOException {
+    File input = folder.newFile("in.ppm");
+    int[] data = new int[40 * 30];
+    for (int i = 0; i < data.length; i++) {
+      data[i] = (i * 7919) & 0xFFFFFF;
+    }
+    ImageController.writeImage(new PackedColorImage(40, 30, data), "ppm", input.getPath(), false);
+    String[] outputs = {"red", "blur", "sepia", "split", "levels", "tmp"};
+    File parallel = folder.newFolder("parallel");
+    File sequential = folder.newFolder("sequential");
+    for (File out : new File[]{parallel, sequential}) {
+      ImageController controller = new ImageController();
+      controller.setSequential(out == sequential);
+      String dir = out.getPath() + File.separator;
+      controller.processCommands(Arrays.asList(
+              "load " + input.getPath() + " a",
+              "red-component a r",
+              "blur a b",
+              "sepia a s",
+              "save " + dir + "red.ppm r",
+              "rgb-split b x y z",
+              "save " + dir + "tmp.ppm z",
+              "load " + dir + "tmp.ppm a",
+              "sharpen a b",
+              "save " + dir + "blur.ppm b",
+              "save " + dir + "sepia.ppm s",
+              "blur s s split 40",
+              "save " + dir + "split.ppm s",
+              "levels-adjust 20 100 200 x x",
+              "save " + dir + "levels.ppm x"));
+    }
+    for (String name : outputs) {
+      assertArrayEquals(name, Files.readAllBytes(new File(sequential, name + ".ppm").toPath()),
+              Files.readAllBytes(new File(parallel, name + ".ppm").toPath()));
+    }
+  }
+}
@@ -2,8 +2,11 @@ import org.junit.Before;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import java.awt.image.BufferedImage;
 import java.util.HashMap;
 
 import controller.FeaturesImpl;
@@ -73,4 +76,24 @@ public class FeaturesImplTest {
     assertTrue("Display Image method in view not called", mockView.getDisplayImageFlag());
   }
 
+  @Test
+  public void testSplitPreviewMovesWithoutRecomputing() {
+    assertNull(features.updateSplitPreview(30));
+    BufferedImage preview = features.blurImageWithSplit(50);
+    assertTrue("Get Image method in view not called", mockView.getImageFlag());
+    assertSame(preview, features.updateSplitPreview(30));
+    assertEquals(0xFF0000, preview.getRGB(3, 0) & 0xFFFFFF);
+  }
+
+  @Test
+  public void testCancelledLevelsSplitPreview() {
+    features = new FeaturesImpl(new HashMap<>(), new MockView() {
+      @Override
+      public String[] getLevelAdjustments() {
+        return null;
+      }
+    });
+    assertNull(features.levelsAdjustImageWithSplit(50));
+  }
+
 }
@@ -0,0 +1,106 @@
+import org.junit.Test;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import model.Histogram;
+import model.HistogramPlot;
+import model.PackedColorImage;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Junit test file for HistogramPlot class.
+ */
+public class HistogramPlotTest {
+
+  /**
+   * Draws the plot the way the histogram was drawn before, with Graphics2D.
+   */
+  private static int[] drawWithGraphics(Histogram histogram) {
+    BufferedImage image = new BufferedImage(256, 256, BufferedImage.TYPE_INT_RGB);
+    Graphics2D graphics = image.createGraphics();
+    graphics.setColor(Color.WHITE);
+    graphics.fillRect(0, 0, 256, 256);
+    graphics.setColor(Color.LIGHT_GRAY);
+    for (int i = 0; i < 256; i += 10) {
+      graphics.drawLine(i, 0, i, 256);
+      graphics.drawLine(0, i, 256, i);
+    }
+    graphics.setColor(Color.BLACK);
+    graphics.drawLine(0, 0, 0, 256);
+    double yScale = (256 - 50.0) / histogram.getMaxFrequency() * 1.25;
+    int[][] channels = {histogram.getRedFrequencies(), histogram.getGreenFrequencies(),
+        histogram.getBlueFrequencies()};
+    Color[] colors = {Color.RED, Color.GREEN, Color.BLUE};
+    for (int c = 0; c < 3; c++) {
+      graphics.setColor(colors[c]);
+      for (int i = 0; i < 255; i++) {
+        graphics.drawLine(i, (int) (256 - channels[c][i] * yScale), i + 1,
+                (int) (256 - channels[c][i + 1] * yScale));
+      }
+    }
+    graphics.dispose();
+    int[] rgb = image.getRGB(0, 0, 256, 256, null, 0, 256);
+    for (int i = 0; i < rgb.length; i++) {
+      rgb[i] &= 0xFFFFFF;
+    }
+    return rgb;
+  }
+
+  private static Histogram randomHistogram(Random random, int spread) {
+    int[] data = new int[random.nextInt(5000) + 1];
+    for (int i = 0; i < data.length; i++) {
+      int grey = Math.min(255, (int) Math.abs(random.nextGaussian() * spread));
+      data[i] = (grey << 16) | (random.nextInt(256) << 8) | (random.nextInt(4) * 60);
+    }
+    return Histogram.of(data, data.length, 1);
+  }
+
+  @Test
+  public void testMatchesGraphicsDrawing() {
+    Random random = new Random(23);
+    for (int t = 0; t < 50; t++) {
+      Histogram histogram = randomHistogram(random, 10 + t * 5);
+      assertArrayEquals(drawWithGraphics(histogram),
+              HistogramPlot.render(histogram).getRgbData());
+    }
+  }
+
+  @Test
+  public void testGridAndAxis() {
+    int[] plot = HistogramPlot.render(Histogram.of(new int[]{0x808080}, 1, 1)).getRgbData();
+    assertEquals(0x000000, plot[5 * 256]);
+    assertEquals(0xC0C0C0, plot[5 * 256 + 10]);
+    assertEquals(0xC0C0C0, plot[20 * 256 + 5]);
+    assertEquals(0xFFFFFF, plot[5 * 256 + 5]);
+  }
+
+  @Test
+  public void testPlotIsCached() {
+    Histogram first = randomHistogram(new Random(4), 30);
+    Histogram second = randomHistogram(new Random(4), 30);
+    assertSame(HistogramPlot.render(first), HistogramPlot.render(second));
+  }
+
+  @Test
+  public void testDrawSkipsCache() {
+    Histogram histogram = randomHistogram(new Random(8), 30);
+    PackedColorImage cached = HistogramPlot.render(histogram);
+    PackedColorImage drawn = HistogramPlot.draw(histogram);
+    assertNotSame(cached, drawn);
+    assertArrayEquals(cached.getRgbData(), drawn.getRgbData());
+  }
+
+  @Test
+  public void testImageHistogram() {
+    PackedColorImage image = new PackedColorImage(2, 2,
+            new int[]{0x102030, 0x405060, 0x102030, 0xFFFFFF});
+    assertSame(HistogramPlot.render(image.getChannelHistogram()), image.getHistogram());
+  }
+}
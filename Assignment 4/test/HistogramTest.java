@@ -0,0 +1,100 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import model.Histogram;
+import model.LazyImage;
+import model.PackedColorImage;
+import model.RowScheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Junit test file for Histogram class.
+ */
+public class HistogramTest {
+
+  private PackedColorImage testImage;
+  private int parallelism;
+
+  @Before
+  public void setUp() {
+    parallelism = RowScheduler.getParallelism();
+    Random random = new Random(17);
+    int[] data = new int[300 * 250];
+    for (int i = 0; i < data.length; i++) {
+      data[i] = random.nextInt(0x1000000);
+    }
+    testImage = new PackedColorImage(300, 250, data);
+  }
+
+  @After
+  public void tearDown() {
+    RowScheduler.setParallelism(parallelism);
+  }
+
+  @Test
+  public void testCountsEveryPixel() {
+    Histogram histogram = testImage.getChannelHistogram();
+    int[] data = testImage.getRgbData();
+    int[] red = new int[256];
+    int[] green = new int[256];
+    int[] blue = new int[256];
+    for (int p : data) {
+      red[(p >> 16) & 0xFF]++;
+      green[(p >> 8) & 0xFF]++;
+      blue[p & 0xFF]++;
+    }
+    for (int v = 0; v < 256; v++) {
+      assertEquals(red[v], histogram.getRedFrequency(v));
+      assertEquals(green[v], histogram.getGreenFrequency(v));
+      assertEquals(blue[v], histogram.getBlueFrequency(v));
+    }
+  }
+
+  @Test
+  public void testParallelMatchesSequential() {
+    int[] data = testImage.getRgbData();
+    RowScheduler.setParallelism(1);
+    Histogram sequential = Histogram.of(data, 300, 250);
+    RowScheduler.setParallelism(4);
+    Histogram parallel = Histogram.of(data, 300, 250);
+    assertEquals(sequential, parallel);
+    assertEquals(sequential.hashCode(), parallel.hashCode());
+  }
+
+  @Test
+  public void testPixelArrayMatchesPackedData() {
+    assertEquals(testImage.getChannelHistogram(), Histogram.of(testImage.getPixels()));
+    assertNotEquals(testImage.getChannelHistogram(),
+            Histogram.of(new int[]{0x010203}, 1, 1));
+  }
+
+  @Test
+  public void testHistogramIsCached() {
+    assertSame(testImage.getChannelHistogram(), testImage.getChannelHistogram());
+    LazyImage lazy = new LazyImage(testImage);
+    assertSame(testImage.getChannelHistogram(), lazy.getChannelHistogram());
+  }
+
+  @Test
+  public void testPeaksPreferLowestValue() {
+    Histogram histogram = Histogram.of(new int[]{0x0A1400, 0x05FF00, 0x0A0500, 0x050500},
+            2, 2);
+    assertEquals(5, histogram.getRedPeak());
+    assertEquals(5, histogram.getGreenPeak());
+    assertEquals(0, histogram.getBluePeak());
+    assertEquals(4, histogram.getMaxFrequency());
+  }
+
+  @Test
+  public void testFrequenciesAreCopies() {
+    Histogram histogram = testImage.getChannelHistogram();
+    histogram.getRedFrequencies()[0] = -1;
+    assertNotEquals(-1, histogram.getRedFrequency(0));
+  }
+}
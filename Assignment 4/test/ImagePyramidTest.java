@@ -0,0 +1,86 @@
+import org.junit.Test;
+
+import model.ImagePyramid;
+import model.PackedColorImage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Junit test file for ImagePyramid class.
+ */
+public class ImagePyramidTest {
+
+  private static int pack(int red, int green, int blue) {
+    return (red << 16) | (green << 8) | blue;
+  }
+
+  private static PackedColorImage image(int width, int height) {
+    int[] data = new int[width * height];
+    for (int i = 0; i < data.length; i++) {
+      data[i] = pack(i % 256, (i * 7) % 256, (i * 13) % 256);
+    }
+    return new PackedColorImage(width, height, data);
+  }
+
+  @Test
+  public void testFullImageFits() {
+    PackedColorImage image = image(40, 30);
+    ImagePyramid pyramid = new ImagePyramid(image);
+    assertSame(image, pyramid.levelFor(40, 30));
+    assertSame(image, pyramid.levelFor(100, 100));
+  }
+
+  @Test
+  public void testLargestLevelThatFits() {
+    ImagePyramid pyramid = new ImagePyramid(image(400, 300));
+    PackedColorImage level = pyramid.levelFor(120, 120);
+    assertEquals(100, level.getWidth());
+    assertEquals(75, level.getHeight());
+
+    level = pyramid.levelFor(200, 150);
+    assertEquals(200, level.getWidth());
+    assertEquals(150, level.getHeight());
+  }
+
+  @Test
+  public void testOddSizesRoundDown() {
+    ImagePyramid pyramid = new ImagePyramid(image(41, 31));
+    PackedColorImage level = pyramid.levelFor(40, 40);
+    assertEquals(20, level.getWidth());
+    assertEquals(15, level.getHeight());
+  }
+
+  @Test
+  public void testSmallestLevelWhenNothingFits() {
+    ImagePyramid pyramid = new ImagePyramid(image(8, 2));
+    PackedColorImage level = pyramid.levelFor(0, 0);
+    assertEquals(1, level.getWidth());
+    assertEquals(1, level.getHeight());
+  }
+
+  @Test
+  public void testLevelsAreCached() {
+    ImagePyramid pyramid = new ImagePyramid(image(400, 300));
+    assertSame(pyramid.levelFor(50, 50), pyramid.levelFor(50, 50));
+    assertSame(pyramid.levelFor(200, 150), pyramid.levelFor(399, 299));
+  }
+
+  @Test
+  public void testAveragesBlocks() {
+    int[] data = {
+        pack(0, 10, 255), pack(3, 20, 255),
+        pack(100, 0, 0),
+        pack(1, 30, 255), pack(2, 40, 254),
+        pack(50, 0, 1)
+    };
+    ImagePyramid pyramid = new ImagePyramid(new PackedColorImage(3, 2, data));
+    PackedColorImage level = pyramid.levelFor(1, 1);
+    assertEquals(1, level.getWidth());
+    assertEquals(1, level.getHeight());
+    int pixel = level.getRgbData()[0];
+    assertEquals(2, (pixel >> 16) & 0xFF);
+    assertEquals(25, (pixel >> 8) & 0xFF);
+    assertEquals(255, pixel & 0xFF);
+  }
+}
@@ -0,0 +1,197 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.util.Random;
+
+import controller.ImageStore;
+import model.Image;
+import model.LazyImage;
+import model.PackedColorImage;
+import model.PackedGreyscaleImage;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Junit test file for ImageStore class.
+ */
+public class ImageStoreTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private ImageStore store;
+  private Random random;
+
+  @Before
+  public void setUp() {
+    random = new Random(3);
+    // Room for two 20x10 images at four bytes a pixel.
+    store = new ImageStore(2 * 20 * 10 * 4, folder.getRoot().toPath());
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    store.close();
+  }
+
+  private PackedColorImage randomImage() {
+    int[] data = new int[20 * 10];
+    for (int i = 0; i < data.length; i++) {
+      data[i] = random.nextInt(0x1000000);
+    }
+    return new PackedColorImage(20, 10, data);
+  }
+
+  private static int[] rgb(Image image) {
+    return PackedColorImage.from(image).getRgbData();
+  }
+
+  private int spillFiles() {
+    int count = 0;
+    for (File directory : folder.getRoot().listFiles()) {
+      count += directory.listFiles().length;
+    }
+    return count;
+  }
+
+  @Test
+  public void testKeepsImagesWithinBudget() {
+    PackedColorImage first = randomImage();
+    PackedColorImage second = randomImage();
+    store.put("a", first);
+    store.put("b", second);
+    assertSame(first, store.get("a"));
+    assertSame(second, store.get("b"));
+    assertFalse(store.isSpilled("a"));
+    assertEquals(0, spillFiles());
+  }
+
+  @Test
+  public void testSpillsLeastRecentlyUsed() {
+    PackedColorImage first = randomImage();
+    store.put("a", first);
+    store.put("b", randomImage());
+    store.get("a");
+    store.put("c", randomImage());
+    assertTrue(store.isSpilled("b"));
+    assertFalse(store.isSpilled("a"));
+    assertFalse(store.isSpilled("c"));
+    assertEquals(1, spillFiles());
+    assertEquals(2 * 20 * 10 * 4, store.getResidentBytes());
+  }
+
+  @Test
+  public void testReloadsSpilledImage() {
+    PackedColorImage first = randomImage();
+    store.put("a", first);
+    store.put("b", randomImage());
+    store.put("c", randomImage());
+    assertTrue(store.isSpilled("a"));
+
+    Image reloaded = store.get("a");
+    assertArrayEquals(rgb(first), rgb(reloaded));
+    assertFalse(store.isSpilled("a"));
+    assertTrue(store.isSpilled("b"));
+    assertEquals(1, spillFiles());
+  }
+
+  @Test
+  public void testKeepsGreyscaleAndLaziness() {
+    PackedColorImage color = randomImage();
+    Image grey = color.getLuma();
+    store.put("grey", grey);
+    store.put("lazy", new LazyImage(color));
+    store.put("c", randomImage());
+    store.put("d", randomImage());
+    assertTrue(store.isSpilled("grey"));
+    assertTrue(store.isSpilled("lazy"));
+
+    Image reloadedGrey = store.get("grey");
+    assertTrue(reloadedGrey instanceof PackedGreyscaleImage);
+    assertArrayEquals(rgb(grey), rgb(reloadedGrey));
+    Image reloadedLazy = store.get("lazy");
+    assertTrue(reloadedLazy instanceof LazyImage);
+    assertArrayEquals(rgb(color), rgb(reloadedLazy));
+  }
+
+  @Test
+  public void testPendingLazyImagesAreNotCounted() {
+    LazyImage source = new LazyImage(randomImage());
+    store.put("a", source);
+    store.put("b", randomImage());
+    store.put("pending", source.getLuma());
+    assertFalse(store.isSpilled("a"));
+    assertFalse(store.isSpilled("b"));
+    assertEquals(0, spillFiles());
+    assertEquals(2 * 20 * 10 * 4, store.getResidentBytes());
+  }
+
+  @Test
+  public void testCountsUnstoredInputsOfPendingImages() {
+    store.put("pending", new LazyImage(randomImage()).getLuma());
+    store.put("a", randomImage());
+    store.put("b", randomImage());
+    assertTrue(store.isSpilled("a"));
+    assertEquals(2 * 20 * 10 * 4, store.getResidentBytes());
+  }
+
+  @Test
+  public void testSpillsPinnedImageOnlyOnceItsPendingImageIsComputed() {
+    LazyImage source = new LazyImage(randomImage());
+    int[] expected = rgb(source);
+    WeakReference<Image> released = new WeakReference<>(source);
+    store.put("source", source);
+    store.put("pending", source.getLuma());
+    source = null;
+    store.put("b", randomImage());
+    store.put("c", randomImage());
+    // The pending image still reads from the source, so spilling it would free nothing.
+    assertFalse(store.isSpilled("source"));
+    assertTrue(store.isSpilled("b"));
+    assertEquals(2 * 20 * 10 * 4, store.getResidentBytes());
+
+    ((LazyImage) store.get("pending")).evaluate();
+    store.put("d", randomImage());
+    assertTrue(store.isSpilled("source"));
+    for (int i = 0; i < 50 && released.get() != null; i++) {
+      System.gc();
+    }
+    assertNull(released.get());
+    assertArrayEquals(expected, rgb(store.get("source")));
+  }
+
+  @Test
+  public void testReplaceAndRemoveDeleteSpillFiles() {
+    store.put("a", randomImage());
+    store.put("b", randomImage());
+    store.put("c", randomImage());
+    assertEquals(1, spillFiles());
+    store.put("a", randomImage());
+    assertTrue(store.isSpilled("b"));
+    store.remove("b");
+    assertEquals(0, spillFiles());
+    assertNull(store.get("b"));
+    assertEquals(2, store.size());
+  }
+
+  @Test
+  public void testCloseDeletesDirectory() throws IOException {
+    store.put("a", randomImage());
+    store.put("b", randomImage());
+    store.put("c", randomImage());
+    store.close();
+    assertEquals(0, folder.getRoot().listFiles().length);
+    assertEquals(0, store.size());
+  }
+}
@@ -0,0 +1,156 @@
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+
+import controller.ImageUtil;
+import model.PackedColorImage;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Junit test file for ImageUtil class.
+ */
+public class ImageUtilTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private PackedColorImage testImage;
+
+  @Before
+  public void setUp() {
+    Random random = new Random(3);
+    int[] data = new int[300 * 257];
+    for (int i = 0; i < data.length; i++) {
+      data[i] = random.nextInt(0x1000000);
+    }
+    testImage = new PackedColorImage(300, 257, data);
+  }
+
+  private String write(String name, String content) throws IOException {
+    File file = folder.newFile(name);
+    Files.write(file.toPath(), content.getBytes(StandardCharsets.US_ASCII));
+    return file.getAbsolutePath();
+  }
+
+  @Test
+  public void testPlainRoundTrip() throws IOException {
+    String path = new File(folder.getRoot(), "plain.ppm").getAbsolutePath();
+    ImageUtil.writePPM(testImage, path, false);
+    PackedColorImage read = ImageUtil.readPPMImage(path);
+    assertEquals(300, read.getWidth());
+    assertEquals(257, read.getHeight());
+    assertArrayEquals(testImage.getRgbData(), read.getRgbData());
+  }
+
+  @Test
+  public void testBinaryRoundTrip() throws IOException {
+    String path = new File(folder.getRoot(), "binary.ppm").getAbsolutePath();
+    ImageUtil.writePPM(testImage, path, true);
+    assertEquals(15 + 3 * 300 * 257, new File(path).length());
+    assertArrayEquals(testImage.getRgbData(), ImageUtil.readPPMImage(path).getRgbData());
+  }
+
+  @Test
+  public void testPlainLayout() throws IOException {
+    String path = new File(folder.getRoot(), "small.ppm").getAbsolutePath();
+    PackedColorImage image = new PackedColorImage(2, 2,
+            new int[]{0xFF0000, 0x00FF00, 0x0A0B0C, 0x000000});
+    ImageUtil.writePPM(image, path, false);
+    assertEquals("P3\n2 2\n255\n255 0 0 0 255 0 \n10 11 12 0 0 0 \n",
+            new String(Files.readAllBytes(new File(path).toPath()), StandardCharsets.US_ASCII));
+  }
+
+  @Test
+  public void testReadWithComments() throws IOException {
+    String path = write("comments.ppm",
+            "# created by hand\nP3\n# size\n2 1 # trailing\n255\n1 2 3\n# row\n4 5 6\n");
+    assertArrayEquals(new int[]{0x010203, 0x040506}, ImageUtil.readPPMImage(path).getRgbData());
+  }
+
+  @Test
+  public void testReadBinaryWithComment() throws IOException {
+    File file = folder.newFile("comment6.ppm");
+    byte[] header = "P6 # binary\n1 2\n255\n".getBytes(StandardCharsets.US_ASCII);
+    byte[] content = new byte[header.length + 6];
+    System.arraycopy(header, 0, content, 0, header.length);
+    byte[] samples = {(byte) 200, 10, 32, (byte) 255, 0, 1};
+    System.arraycopy(samples, 0, content, header.length, samples.length);
+    Files.write(file.toPath(), content);
+    assertArrayEquals(new int[]{0xC80A20, 0xFF0001},
+            ImageUtil.readPPMImage(file.getAbsolutePath()).getRgbData());
+  }
+
+  @Test
+  public void testBufferedImageBridge() throws IOException {
+    String path = new File(folder.getRoot(), "bridge.ppm").getAbsolutePath();
+    ImageUtil.writePPM(testImage, path, true);
+    int[] rgb = ImageUtil.readPPM(path).getRGB(0, 0, 300, 257, null, 0, 300);
+    for (int i = 0; i < rgb.length; i++) {
+      assertEquals(testImage.getRgbData()[i], rgb[i] & 0xFFFFFF);
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void testInvalidMagicNumber() throws IOException {
+    ImageUtil.readPPMImage(write("bad.ppm", "P5\n1 1\n255\n0\n"));
+  }
+
+  @Test(expected = IOException.class)
+  public void testUnsupportedRange() throws IOException {
+    ImageUtil.readPPMImage(write("range.ppm", "P3\n1 1\n65535\n0 0 0\n"));
+  }
+
+  @Test(expected = IOException.class)
+  public void testSizeWrappingToZero() throws IOException {
+    ImageUtil.readPPMImage(write("zero.ppm", "P6\n65536 65536\n255\n"));
+  }
+
+  @Test(expected = IOException.class)
+  public void testTruncatedBinaryData() throws IOException {
+    ImageUtil.readPPMImage(write("short.ppm", "P6\n2 2\n255\nabcdefg"));
+  }
+
+  @Test(expected = IOException.class)
+  public void testTruncatedPlainData() throws IOException {
+    ImageUtil.readPPMImage(write("short3.ppm", "P3\n2 1\n255\n1 2 3 4 5\n"));
+  }
+
+  @Test(expected = IOException.class)
+  public void testMissingFile() throws IOException {
+    ImageUtil.readPPMImage(new File(folder.getRoot(), "missing.ppm").getAbsolutePath());
+  }
+
+  @Test
+  public void testReadKernel() throws IOException {
+    String path = write("kernel.txt", "# A kernel\n0.5 0 -1\n\n  2 .25\t3e-1\n1 1 1\n");
+    float[][] kernel = ImageUtil.readKernel(path);
+    assertEquals(3, kernel.length);
+    assertArrayEquals(new float[]{0.5F, 0, -1}, kernel[0], 0);
+    assertArrayEquals(new float[]{2, 0.25F, 0.3F}, kernel[1], 0);
+    assertArrayEquals(new float[]{1, 1, 1}, kernel[2], 0);
+  }
+
+  @Test(expected = IOException.class)
+  public void testReadKernelWithRowsOfDifferentLengths() throws IOException {
+    ImageUtil.readKernel(write("ragged.txt", "1 1 1\n1 1\n1 1 1\n"));
+  }
+
+  @Test(expected = IOException.class)
+  public void testReadKernelWithEvenSize() throws IOException {
+    ImageUtil.readKernel(write("even.txt", "1 1\n1 1\n1 1\n"));
+  }
+
+  @Test(expected = IOException.class)
+  public void testReadKernelWithText() throws IOException {
+    ImageUtil.readKernel(write("text.txt", "1 x 1\n"));
+  }
+}
@@ -0,0 +1,114 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+
+import controller.ImageController;
+import controller.IoPipeline;
+import model.Image;
+import model.LazyImage;
+import model.PackedColorImage;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Junit test file for IoPipeline class.
+ */
+public class IoPipelineTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private IoPipeline io;
+
+  @Before
+  public void setUp() {
+    io = new IoPipeline(2);
+  }
+
+  @After
+  public void tearDown() {
+    io.close();
+  }
+
+  private static PackedColorImage image(int seed) {
+    int[] data = new int[9 * 7];
+    for (int i = 0; i < data.length; i++) {
+      data[i] = (i * 40503 + seed * 977) & 0xFFFFFF;
+    }
+    return new PackedColorImage(9, 7, data);
+  }
+
+  private static int[] rgb(Image image) {
+    return PackedColorImage.from(image).getRgbData();
+  }
+
+  @Test
+  public void testUsesVirtualThreadsWhenAvailable() {
+    boolean available;
+    try {
+      Thread.class.getMethod("ofVirtual");
+      available = true;
+    } catch (NoSuchMethodException e) {
+      available = false;
+    }
+    assertEquals(available, io.usesVirtualThreads());
+  }
+
+  @Test
+  public void testReadWaitsForPendingWrites() throws IOException {
+    String path = new File(folder.getRoot(), "image.ppm").getPath();
+    for (int n = 0; n < 20; n++) {
+      PackedColorImage written = image(n);
+      io.write(new LazyImage(written).getLuma(), "ppm", path, true);
+      io.write(written, "ppm", path, true);
+      assertArrayEquals(rgb(written), rgb(IoPipeline.await(io.read(path))));
+    }
+  }
+
+  @Test
+  public void testFailedWriteIsReported() throws IOException {
+    String path = new File(folder.getRoot(), "missing/image.ppm").getPath();
+    CompletableFuture<Void> write = io.write(image(1), "ppm", path, false);
+    try {
+      IoPipeline.await(write);
+      fail("Expected the write to fail");
+    } catch (IOException e) {
+      assertTrue(e.getMessage() != null);
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void testFailedReadIsReported() throws IOException {
+    IoPipeline.await(io.read(new File(folder.getRoot(), "missing.ppm").getPath()));
+  }
+
+  @Test
+  public void testControllerSavesThroughPipeline() throws IOException {
+    File input = new File(folder.getRoot(), "in.ppm");
+    ImageController.writeImage(image(5), "ppm", input.getPath(), false);
+    File direct = new File(folder.getRoot(), "direct.ppm");
+    File piped = new File(folder.getRoot(), "piped.ppm");
+
+    new ImageController().processCommands(Arrays.asList(
+            "load " + input + " a", "sepia a b", "save " + direct + " b"));
+    ImageController controller = new ImageController();
+    controller.setIoPipeline(io);
+    controller.preload(input.getPath());
+    controller.processCommands(Arrays.asList(
+            "load " + input + " a", "sepia a b", "save " + piped + " b"));
+    controller.whenWritten().join();
+
+    assertArrayEquals(rgb(ImageController.readImage(direct.getPath())),
+            rgb(ImageController.readImage(piped.getPath())));
+  }
+}
@@ -0,0 +1,129 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import model.Image;
+import model.LazyImage;
+import model.PackedColorImage;
+import model.PackedGreyscaleImage;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Junit test file for LazyImage class.
+ */
+public class LazyImageTest {
+
+  private static final float[][] SEPIA = {
+          {0.393F, 0.769F, 0.189F},
+          {0.349F, 0.686F, 0.186F},
+          {0.272F, 0.534F, 0.131F}
+  };
+
+  private static final float[][] BLUR = {
+          {0.0625F, 0.125F, 0.0625F},
+          {0.125F, 0.25F, 0.125F},
+          {0.0625F, 0.125F, 0.0625F}
+  };
+
+  private PackedColorImage eagerImage;
+  private LazyImage lazyImage;
+
+  @Before
+  public void setUp() {
+    Random random = new Random(5);
+    int[] data = new int[40 * 30];
+    for (int i = 0; i < data.length; i++) {
+      data[i] = random.nextInt(0x1000000);
+    }
+    eagerImage = new PackedColorImage(40, 30, data);
+    lazyImage = new LazyImage(eagerImage);
+  }
+
+  private static void assertSameImage(Image expected, Image actual) {
+    assertEquals(expected.getWidth(), actual.getWidth());
+    assertEquals(expected.getHeight(), actual.getHeight());
+    assertArrayEquals(PackedColorImage.from(expected).getRgbData(),
+            PackedColorImage.from(actual).getRgbData());
+  }
+
+  @Test
+  public void testNothingIsComputedBeforeUse() {
+    Image result = lazyImage.brighten(20).getLuma().filter(BLUR);
+    assertFalse(((LazyImage) result).isEvaluated());
+    assertEquals(40, result.getWidth());
+    assertEquals(30, result.getHeight());
+    assertFalse(((LazyImage) result).isEvaluated());
+  }
+
+  @Test
+  public void testFusedChainMatchesEager() {
+    Image eager = eagerImage.brighten(30).linearTransform(SEPIA).adjustLevels("20", "100", "230")
+            .brighten(-15).getLuma().brighten(10);
+    LazyImage step1 = (LazyImage) lazyImage.brighten(30);
+    LazyImage step2 = (LazyImage) step1.linearTransform(SEPIA);
+    Image lazy = step2.adjustLevels("20", "100", "230").brighten(-15).getLuma().brighten(10);
+    assertSameImage(eager, lazy);
+    assertFalse(step1.isEvaluated());
+    assertFalse(step2.isEvaluated());
+  }
+
+  @Test
+  public void testEveryOperationMatchesEager() {
+    assertSameImage(eagerImage.visualizeRedComponent(), lazyImage.visualizeRedComponent());
+    assertSameImage(eagerImage.visualizeGreenComponent(), lazyImage.visualizeGreenComponent());
+    assertSameImage(eagerImage.visualizeBlueComponent(), lazyImage.visualizeBlueComponent());
+    assertSameImage(eagerImage.getValue(), lazyImage.getValue());
+    assertSameImage(eagerImage.getIntensity(), lazyImage.getIntensity());
+    assertSameImage(eagerImage.horizontalFlip(), lazyImage.horizontalFlip());
+    assertSameImage(eagerImage.verticalFlip(), lazyImage.verticalFlip());
+    assertSameImage(eagerImage.filter(BLUR), lazyImage.filter(BLUR));
+    assertSameImage(eagerImage.getHistogram(), lazyImage.getHistogram());
+    assertSameImage(eagerImage.colorCorrect(), lazyImage.colorCorrect());
+    assertSameImage(eagerImage.compress(60), lazyImage.compress(60));
+    assertSameImage(eagerImage.filterSplit(BLUR, 30), lazyImage.filterSplit(BLUR, 30));
+    assertSameImage(eagerImage.linearTransformWithSplit(SEPIA, 40),
+            lazyImage.linearTransformWithSplit(SEPIA, 40));
+    assertSameImage(eagerImage.colorCorrectWithSplit(50), lazyImage.colorCorrectWithSplit(50));
+    assertSameImage(eagerImage.levelAdjustWithSplit("10", "128", "200", 70),
+            lazyImage.levelAdjustWithSplit("10", "128", "200", 70));
+    assertSameImage(eagerImage.lumaWithSplit(20), lazyImage.lumaWithSplit(20));
+  }
+
+  @Test
+  public void testChannelsAndCombine() {
+    Image red = lazyImage.brighten(10).getRedChannel();
+    Image green = lazyImage.brighten(10).getGreenChannel();
+    Image blue = lazyImage.brighten(10).getBlueChannel();
+    assertTrue(((LazyImage) red).isGreyscale());
+    assertTrue(PackedColorImage.from(red) instanceof PackedGreyscaleImage);
+    assertSameImage(eagerImage.brighten(10), red.combineChannel(red, green, blue));
+  }
+
+  @Test
+  public void testEvaluatedNodeIsReused() {
+    LazyImage blurred = (LazyImage) lazyImage.filter(BLUR);
+    PackedColorImage first = blurred.evaluate();
+    assertTrue(first == blurred.evaluate());
+    assertSameImage(eagerImage.filter(BLUR).brighten(5), blurred.brighten(5));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidLevelsFailImmediately() {
+    lazyImage.adjustLevels("100", "50", "200");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidSplitFailsImmediately() {
+    lazyImage.lumaWithSplit(100);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testCombineColorImagesFailsImmediately() {
+    lazyImage.combineChannel(lazyImage, lazyImage, lazyImage);
+  }
+}
@@ -0,0 +1,557 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import model.ColorImage;
+import model.ColorPixel;
+import model.EdgePolicy;
+import model.GreyscaleImage;
+import model.Image;
+import model.LazyImage;
+import model.PackedColorImage;
+import model.PackedGreyscaleImage;
+import model.Pixel;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Junit test file for PackedColorImage class.
+ */
+public class PackedColorImageTest {
+
+  private ColorPixel[][] samplePixels;
+  private PackedColorImage testImage;
+  private ColorImage referenceImage;
+
+  @Before
+  public void setUp() {
+    Random random = new Random(42);
+    samplePixels = new ColorPixel[13][17];
+    for (int i = 0; i < samplePixels.length; i++) {
+      for (int j = 0; j < samplePixels[i].length; j++) {
+        samplePixels[i][j] = new ColorPixel(random.nextInt(256), random.nextInt(256),
+                random.nextInt(256));
+      }
+    }
+    testImage = new PackedColorImage(samplePixels);
+    referenceImage = new ColorImage(samplePixels);
+  }
+
+  private static void assertSamePixels(Image expected, Image actual) {
+    Pixel[][] expectedPixels = expected.getPixels();
+    Pixel[][] actualPixels = actual.getPixels();
+    assertEquals(expectedPixels.length, actualPixels.length);
+    for (int i = 0; i < expectedPixels.length; i++) {
+      assertEquals(expectedPixels[i].length, actualPixels[i].length);
+      for (int j = 0; j < expectedPixels[i].length; j++) {
+        assertEquals(clamp(expectedPixels[i][j].getRedValue()),
+                actualPixels[i][j].getRedValue());
+        assertEquals(clamp(expectedPixels[i][j].getGreenValue()),
+                actualPixels[i][j].getGreenValue());
+        assertEquals(clamp(expectedPixels[i][j].getBlueValue()),
+                actualPixels[i][j].getBlueValue());
+      }
+    }
+  }
+
+  private static int clamp(int value) {
+    return Math.min(255, Math.max(0, value));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNullPixels() {
+    new PackedColorImage(null);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testDataSmallerThanSize() {
+    new PackedColorImage(4, 4, new int[15]);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSizeOverflowingInt() {
+    new PackedColorImage(65536, 65536, new int[1]);
+  }
+
+  @Test
+  public void testPackedLayout() {
+    int[] data = testImage.getRgbData();
+    assertEquals(17, testImage.getWidth());
+    assertEquals(13, testImage.getHeight());
+    ColorPixel pixel = samplePixels[2][5];
+    int expected = (pixel.getRedValue() << 16) | (pixel.getGreenValue() << 8)
+            | pixel.getBlueValue();
+    assertEquals(expected, data[2 * 17 + 5]);
+  }
+
+  @Test
+  public void testPixelViewIsCached() {
+    assertTrue(testImage.getPixels() == testImage.getPixels());
+  }
+
+  @Test
+  public void testComponents() {
+    assertSamePixels(referenceImage.visualizeRedComponent(), testImage.visualizeRedComponent());
+    assertSamePixels(referenceImage.visualizeGreenComponent(),
+            testImage.visualizeGreenComponent());
+    assertSamePixels(referenceImage.visualizeBlueComponent(),
+            testImage.visualizeBlueComponent());
+  }
+
+  @Test
+  public void testGreyscaleOperations() {
+    assertTrue(testImage.getValue() instanceof PackedGreyscaleImage);
+    assertSamePixels(referenceImage.getValue(), testImage.getValue());
+    assertSamePixels(referenceImage.getIntensity(), testImage.getIntensity());
+    assertSamePixels(referenceImage.getLuma(), testImage.getLuma());
+  }
+
+  @Test
+  public void testChannelsAndCombine() {
+    Image red = testImage.getRedChannel();
+    Image green = testImage.getGreenChannel();
+    Image blue = testImage.getBlueChannel();
+    assertSamePixels(referenceImage.getRedChannel(), red);
+    assertSamePixels(referenceImage.getGreenChannel(), green);
+    assertSamePixels(referenceImage.getBlueChannel(), blue);
+    assertArrayEquals(testImage.getRgbData(),
+            ((PackedColorImage) red.combineChannel(red, green, blue)).getRgbData());
+  }
+
+  @Test
+  public void testCombineLegacyChannels() {
+    GreyscaleImage red = (GreyscaleImage) referenceImage.getRedChannel();
+    GreyscaleImage green = (GreyscaleImage) referenceImage.getGreenChannel();
+    GreyscaleImage blue = (GreyscaleImage) referenceImage.getBlueChannel();
+    assertSamePixels(referenceImage, testImage.combineChannel(red, green, blue));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testCombineChannelWithInvalidInput() {
+    testImage.combineChannel(testImage, testImage, testImage);
+  }
+
+  @Test
+  public void testFlips() {
+    assertSamePixels(referenceImage.verticalFlip(), testImage.verticalFlip());
+    assertSamePixels(referenceImage.horizontalFlip(), testImage.horizontalFlip());
+  }
+
+  @Test
+  public void testBrighten() {
+    assertSamePixels(referenceImage.brighten(50), testImage.brighten(50));
+    assertSamePixels(referenceImage.brighten(-70), testImage.brighten(-70));
+  }
+
+  private int[] referenceFilter(float[][] kernel) {
+    int height = samplePixels.length;
+    int width = samplePixels[0].length;
+    int[] expected = new int[width * height];
+    for (int i = 0; i < height; i++) {
+      for (int j = 0; j < width; j++) {
+        double[] sum = new double[3];
+        for (int x = 0; x < kernel.length; x++) {
+          for (int y = 0; y < kernel[x].length; y++) {
+            int row = i - kernel.length / 2 + x;
+            int col = j - kernel[x].length / 2 + y;
+            if (row >= 0 && row < height && col >= 0 && col < width) {
+              sum[0] += samplePixels[row][col].getRedValue() * kernel[x][y];
+              sum[1] += samplePixels[row][col].getGreenValue() * kernel[x][y];
+              sum[2] += samplePixels[row][col].getBlueValue() * kernel[x][y];
+            }
+          }
+        }
+        expected[i * width + j] = (clamp((int) sum[0]) << 16) | (clamp((int) sum[1]) << 8)
+                | clamp((int) sum[2]);
+      }
+    }
+    return expected;
+  }
+
+  @Test
+  public void testFilterWithBlurKernel() {
+    float[][] blurKernel = {
+            {0.0625F, 0.125F, 0.0625F},
+            {0.125F, 0.25F, 0.125F},
+            {0.0625F, 0.125F, 0.0625F}
+    };
+    assertArrayEquals(referenceFilter(blurKernel),
+            ((PackedColorImage) testImage.filter(blurKernel)).getRgbData());
+  }
+
+  @Test
+  public void testFilterWithSharpenKernel() {
+    float[][] sharpenKernel = {
+            {-0.125F, -0.125F, -0.125F, -0.125F, -0.125F},
+            {-0.125F, 0.25F, 0.25F, 0.25F, -0.125F},
+            {-0.125F, 0.25F, 1F, 0.25F, -0.125F},
+            {-0.125F, 0.25F, 0.25F, 0.25F, -0.125F},
+            {-0.125F, -0.125F, -0.125F, -0.125F, -0.125F}
+    };
+    assertArrayEquals(referenceFilter(sharpenKernel),
+            ((PackedColorImage) testImage.filter(sharpenKernel)).getRgbData());
+  }
+
+  @Test
+  public void testFilterWithNonSquareKernel() {
+    float[][] kernel = {
+            {0.5F, 0, 0.25F, 0, 0.5F}
+    };
+    assertArrayEquals(referenceFilter(kernel),
+            ((PackedColorImage) testImage.filter(kernel)).getRgbData());
+  }
+
+  @Test
+  public void testFilterKeepsFlatImageWithClampEdges() {
+    int[] white = new int[8 * 5];
+    Arrays.fill(white, 0xFFFFFF);
+    PackedColorImage flat = new PackedColorImage(8, 5, white);
+    float[][] blurKernel = {
+            {0.0625F, 0.125F, 0.0625F},
+            {0.125F, 0.25F, 0.125F},
+            {0.0625F, 0.125F, 0.0625F}
+    };
+    assertArrayEquals(white,
+            ((PackedColorImage) flat.filter(blurKernel, EdgePolicy.CLAMP)).getRgbData());
+    assertArrayEquals(white,
+            ((PackedColorImage) flat.filter(blurKernel, EdgePolicy.MIRROR)).getRgbData());
+    int[] zeroEdges = ((PackedColorImage) flat.filter(blurKernel)).getRgbData();
+    assertEquals(0xFFFFFF, zeroEdges[2 * 8 + 3]);
+    assertEquals(0xBFBFBF, zeroEdges[2 * 8]);
+  }
+
+  @Test
+  public void testFilterMirrorEdges() {
+    int[] data = {10, 20, 30};
+    PackedColorImage row = new PackedColorImage(3, 1, data);
+    float[][] shiftRight = {{1, 0, 0, 0, 0}};
+    int[] shifted = ((PackedColorImage) row.filter(shiftRight, EdgePolicy.MIRROR)).getRgbData();
+    assertArrayEquals(new int[]{20, 10, 10}, shifted);
+  }
+
+  @Test
+  public void testLargeKernelMatchesDirectSumsWithinOne() {
+    Random random = new Random(11);
+    int width = 300;
+    int height = 200;
+    int[] data = new int[width * height];
+    for (int i = 0; i < data.length; i++) {
+      data[i] = random.nextInt(0x1000000);
+    }
+    PackedColorImage image = new PackedColorImage(width, height, data);
+    for (int size : new int[]{9, 15, 31}) {
+      float[][] kernel = new float[size][size];
+      for (float[] row : kernel) {
+        for (int j = 0; j < size; j++) {
+          row[j] = (random.nextFloat() - 0.3F) / (size * size / 2F);
+        }
+      }
+      for (EdgePolicy edge : EdgePolicy.values()) {
+        int[] expected = referenceConvolution(data, width, height, kernel, edge);
+        int[] actual = ((PackedColorImage) image.filter(kernel, edge)).getRgbData();
+        int different = 0;
+        for (int i = 0; i < expected.length; i++) {
+          for (int shift = 0; shift <= 16; shift += 8) {
+            int difference = ((expected[i] >> shift) & 0xFF) - ((actual[i] >> shift) & 0xFF);
+            assertTrue(Math.abs(difference) <= 1);
+            different += difference == 0 ? 0 : 1;
+          }
+        }
+        assertTrue(size + " " + edge + " " + different, different < expected.length / 1000);
+      }
+    }
+  }
+
+  /**
+   * Convolves every channel with sums in double arithmetic, truncated once and clamped.
+   */
+  private static int[] referenceConvolution(int[] data, int width, int height,
+                                            float[][] kernel, EdgePolicy edge) {
+    int[] result = new int[data.length];
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        double[] sum = new double[3];
+        for (int a = 0; a < kernel.length; a++) {
+          int row = edgeIndex(y - kernel.length / 2 + a, height, edge);
+          for (int b = 0; b < kernel[a].length; b++) {
+            int col = edgeIndex(x - kernel[a].length / 2 + b, width, edge);
+            int p = row < 0 || col < 0 ? 0 : data[row * width + col];
+            sum[0] += ((p >> 16) & 0xFF) * kernel[a][b];
+            sum[1] += ((p >> 8) & 0xFF) * kernel[a][b];
+            sum[2] += (p & 0xFF) * kernel[a][b];
+          }
+        }
+        result[y * width + x] = (clamp((int) sum[0]) << 16) | (clamp((int) sum[1]) << 8)
+                | clamp((int) sum[2]);
+      }
+    }
+    return result;
+  }
+
+  @Test
+  public void testLargeKernelKeepsFlatImageWithClampEdges() {
+    float[][] disc = new float[21][21];
+    int taps = 0;
+    for (int a = 0; a < 21; a++) {
+      for (int b = 0; b < 21; b++) {
+        if ((a - 10) * (a - 10) + (b - 10) * (b - 10) <= 100) {
+          disc[a][b] = 1;
+          taps++;
+        }
+      }
+    }
+    for (float[] row : disc) {
+      for (int b = 0; b < 21; b++) {
+        row[b] /= taps;
+      }
+    }
+    int[] grey = new int[90 * 70];
+    Arrays.fill(grey, 0x80C040);
+    PackedColorImage flat = new PackedColorImage(90, 70, grey);
+    assertArrayEquals(grey, ((PackedColorImage) flat.filter(disc, EdgePolicy.CLAMP)).getRgbData());
+    assertArrayEquals(grey,
+            ((PackedColorImage) flat.filter(disc, EdgePolicy.MIRROR)).getRgbData());
+    int[] zeroEdges = ((PackedColorImage) flat.filter(disc)).getRgbData();
+    assertEquals(0x80C040, zeroEdges[35 * 90 + 45]);
+    assertTrue((zeroEdges[0] & 0xFF) < 0x40 / 2);
+  }
+
+  @Test
+  public void testBlurMatchesBoxAverages() {
+    Random random = new Random(5);
+    int width = 300;
+    int height = 23;
+    int[] data = new int[width * height];
+    for (int i = 0; i < data.length; i++) {
+      data[i] = random.nextInt(0x1000000);
+    }
+    PackedColorImage image = new PackedColorImage(width, height, data);
+    for (EdgePolicy edge : EdgePolicy.values()) {
+      for (int radius : new int[]{0, 1, 2, 7, 30, 400}) {
+        assertArrayEquals(edge + " " + radius, referenceBoxBlur(data, width, height, radius, edge),
+                ((PackedColorImage) image.blur(radius, false, edge)).getRgbData());
+      }
+    }
+    assertArrayEquals(referenceBoxBlur(data, width, height, 4, EdgePolicy.CLAMP),
+            ((PackedColorImage) image.blur(4, false)).getRgbData());
+  }
+
+  /**
+   * Blurs every channel with a horizontal and then a vertical average over 2 radius + 1 pixels,
+   * rounding each pass to the nearest integer.
+   */
+  private static int[] referenceBoxBlur(int[] data, int width, int height, int radius,
+                                        EdgePolicy edge) {
+    int n = 2 * radius + 1;
+    int[] across = new int[data.length];
+    int[] result = new int[data.length];
+    for (int shift = 0; shift <= 16; shift += 8) {
+      for (int y = 0; y < height; y++) {
+        for (int x = 0; x < width; x++) {
+          int sum = 0;
+          for (int k = -radius; k <= radius; k++) {
+            int col = edgeIndex(x + k, width, edge);
+            sum += col < 0 ? 0 : (data[y * width + col] >> shift) & 0xFF;
+          }
+          across[y * width + x] |= ((sum + radius) / n) << shift;
+        }
+      }
+      for (int y = 0; y < height; y++) {
+        for (int x = 0; x < width; x++) {
+          int sum = 0;
+          for (int k = -radius; k <= radius; k++) {
+            int row = edgeIndex(y + k, height, edge);
+            sum += row < 0 ? 0 : (across[row * width + x] >> shift) & 0xFF;
+          }
+          result[y * width + x] |= ((sum + radius) / n) << shift;
+        }
+      }
+    }
+    return result;
+  }
+
+  private static int edgeIndex(int index, int length, EdgePolicy edge) {
+    if (index >= 0 && index < length) {
+      return index;
+    }
+    switch (edge) {
+      case CLAMP:
+        return index < 0 ? 0 : length - 1;
+      case MIRROR:
+        int folded = Math.floorMod(index, 2 * length);
+        return folded < length ? folded : 2 * length - 1 - folded;
+      default:
+        return -1;
+    }
+  }
+
+  @Test
+  public void testBlurKeepsFlatImage() {
+    int[] grey = new int[40 * 9];
+    Arrays.fill(grey, 0x7F3AC0);
+    PackedColorImage flat = new PackedColorImage(40, 9, grey);
+    for (int radius : new int[]{1, 12, 100}) {
+      assertArrayEquals(grey, ((PackedColorImage) flat.blur(radius, false)).getRgbData());
+      assertArrayEquals(grey, ((PackedColorImage) flat.blur(radius, true)).getRgbData());
+      assertArrayEquals(grey,
+              ((PackedColorImage) flat.blur(radius, true, EdgePolicy.MIRROR)).getRgbData());
+    }
+  }
+
+  @Test
+  public void testGaussianBlurOfStep() {
+    int width = 101;
+    int[] step = new int[width * 3];
+    for (int i = 0; i < step.length; i++) {
+      step[i] = i % width > 50 ? 0xFFFFFF : 0;
+    }
+    PackedColorImage image = new PackedColorImage(width, 3, step);
+    int[] box = ((PackedColorImage) image.blur(10, false)).getRgbData();
+    int[] gaussian = ((PackedColorImage) image.blur(10, true)).getRgbData();
+    assertArrayEquals(step, ((PackedColorImage) image.blur(0, true)).getRgbData());
+    for (int x = 1; x < width; x++) {
+      assertTrue(gaussian[width + x] >= gaussian[width + x - 1]);
+      assertEquals(gaussian[x], gaussian[width + x]);
+    }
+    assertEquals(0, gaussian[width + 20]);
+    assertEquals(0xFFFFFF, gaussian[width + 80]);
+    assertEquals(255, (gaussian[width + 50] & 0xFF) + (gaussian[width + 51] & 0xFF), 2);
+    // The box ends 10 pixels from the step; the gaussian fades out further away.
+    assertEquals(0, box[width + 40] & 0xFF);
+    assertTrue((gaussian[width + 40] & 0xFF) > 0);
+    assertTrue((gaussian[width + 50] & 0xFF) > (box[width + 50] & 0xFF) - 10);
+  }
+
+  @Test
+  public void testBlurOfPixelImages() {
+    assertSamePixels(testImage.blur(3, true), referenceImage.blur(3, true));
+    assertSamePixels(testImage.blur(2, false), new LazyImage(testImage).blur(2, false));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testBlurWithNegativeRadius() {
+    testImage.blur(-1, false);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testFilterWithEvenKernel() {
+    testImage.filter(new float[][]{{1, 1}, {1, 1}});
+  }
+
+  @Test
+  public void testLinearTransform() {
+    float[][] sepia = {
+            {0.393F, 0.769F, 0.189F},
+            {0.349F, 0.686F, 0.186F},
+            {0.272F, 0.534F, 0.131F}
+    };
+    assertSamePixels(referenceImage.linearTransform(sepia), testImage.linearTransform(sepia));
+  }
+
+  @Test
+  public void testColorCorrectAndLevels() {
+    assertSamePixels(referenceImage.colorCorrect(), testImage.colorCorrect());
+    assertSamePixels(referenceImage.adjustLevels("10", "128", "200"),
+            testImage.adjustLevels("10", "128", "200"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testAdjustLevelsInvalidInput() {
+    testImage.adjustLevels("100", "50", "200");
+  }
+
+  @Test
+  public void testHistogram() {
+    assertSamePixels(referenceImage.getHistogram(), testImage.getHistogram());
+  }
+
+  @Test
+  public void testCompress() {
+    assertSamePixels(referenceImage.compress(50), testImage.compress(50));
+    assertSamePixels(referenceImage.compress(90), testImage.compress(90));
+  }
+
+  @Test
+  public void testCompressKeepsLegacyResult() {
+    Random random = new Random(42);
+    ColorPixel[][] pixels = new ColorPixel[5][7];
+    for (int i = 0; i < 5; i++) {
+      for (int j = 0; j < 7; j++) {
+        pixels[i][j] = new ColorPixel(random.nextInt(256), random.nextInt(256),
+                random.nextInt(256));
+      }
+    }
+    int[] expected = {
+            0xAB3E9A, 0x083E9A, 0x18C545, 0x18C545, 0x5A7F7D, 0x5A7F7D, 0x9DEEC5,
+            0x08BF9A, 0xABBF9A, 0x9B3845, 0x9B3845, 0x5A7F7D, 0x5A7F7D, 0x9DEEC5,
+            0x9F239A, 0x14DA9A, 0x5A7F45, 0x5A7F45, 0x5A7FBA, 0x5A7FBA, 0x9BEB24,
+            0x14DA9A, 0x9F239A, 0x5A7F45, 0x5A7F45, 0x5A7FBA, 0x5A7FBA, 0x9BEB24,
+            0x1C17B1, 0x1C17B1, 0x1C1795, 0x1C1795, 0x97171F, 0x97171F, 0x3D171F
+    };
+    assertArrayEquals(expected,
+            ((PackedColorImage) new PackedColorImage(pixels).compress(80)).getRgbData());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testCompressWithInvalidPercentage() {
+    testImage.compress(100);
+  }
+
+  @Test
+  public void testSplits() {
+    float[][] sepia = {
+            {0.393F, 0.769F, 0.189F},
+            {0.349F, 0.686F, 0.186F},
+            {0.272F, 0.534F, 0.131F}
+    };
+    assertSamePixels(referenceImage.linearTransformWithSplit(sepia, 40),
+            testImage.linearTransformWithSplit(sepia, 40));
+    assertSamePixels(referenceImage.colorCorrectWithSplit(60),
+            testImage.colorCorrectWithSplit(60));
+    assertSamePixels(referenceImage.lumaWithSplit(1), testImage.lumaWithSplit(1));
+    assertSamePixels(referenceImage.levelAdjustWithSplit("10", "128", "200", 99),
+            testImage.levelAdjustWithSplit("10", "128", "200", 99));
+  }
+
+  @Test
+  public void testFilterSplitOnlyFiltersLeftPart() {
+    Random random = new Random(9);
+    int[] data = new int[37 * 23];
+    for (int i = 0; i < data.length; i++) {
+      data[i] = random.nextInt(0x1000000);
+    }
+    PackedColorImage image = new PackedColorImage(37, 23, data);
+    float[][] sharpen = new float[5][5];
+    for (float[] row : sharpen) {
+      Arrays.fill(row, -0.125F);
+    }
+    sharpen[2][2] = 1F;
+    float[][] blur = {
+            {0.0625F, 0.125F, 0.0625F},
+            {0.125F, 0.25F, 0.125F},
+            {0.0625F, 0.125F, 0.0625F}
+    };
+    for (float[][] kernel : new float[][][]{blur, sharpen}) {
+      int[] filtered = ((PackedColorImage) image.filter(kernel)).getRgbData();
+      for (int percentage : new int[]{1, 3, 50, 97, 99}) {
+        int splitColumn = (int) (37 * (percentage / 100.0));
+        int[] expected = data.clone();
+        for (int i = 0; i < 23; i++) {
+          System.arraycopy(filtered, i * 37, expected, i * 37, splitColumn);
+          expected[i * 37 + splitColumn] = 0xFF0000;
+        }
+        assertArrayEquals(expected,
+                ((PackedColorImage) image.filterSplit(kernel, percentage)).getRgbData());
+      }
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSplitWithInvalidPercentage() {
+    testImage.lumaWithSplit(0);
+  }
+}
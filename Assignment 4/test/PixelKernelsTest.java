@@ -0,0 +1,104 @@
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import model.PixelKernels;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Junit test file for PixelKernels class. The kernels in use, vector ones when the Vector API
+ * is available, must match the scalar ones on every color.
+ */
+public class PixelKernelsTest {
+
+  private static int[] colors;
+
+  private final PixelKernels kernels = PixelKernels.get();
+  private final PixelKernels scalar = PixelKernels.scalar();
+
+  @BeforeClass
+  public static void setUpColors() {
+    colors = new int[1 << 24];
+    for (int i = 0; i < colors.length; i++) {
+      colors[i] = i;
+    }
+  }
+
+  @Test
+  public void testLumaMatchesScalarOnEveryColor() {
+    int[] expected = new int[colors.length];
+    int[] actual = new int[colors.length];
+    scalar.luma(colors, expected, 0, colors.length);
+    kernels.luma(colors, actual, 0, colors.length);
+    assertArrayEquals(expected, actual);
+  }
+
+  @Test
+  public void testIntensityMatchesScalarOnEveryColor() {
+    int[] expected = new int[colors.length];
+    int[] actual = new int[colors.length];
+    scalar.intensity(colors, expected, 0, colors.length);
+    kernels.intensity(colors, actual, 0, colors.length);
+    assertArrayEquals(expected, actual);
+  }
+
+  @Test
+  public void testValueMatchesScalarOnEveryColor() {
+    int[] expected = new int[colors.length];
+    int[] actual = new int[colors.length];
+    scalar.value(colors, expected, 0, colors.length);
+    kernels.value(colors, actual, 0, colors.length);
+    assertArrayEquals(expected, actual);
+  }
+
+  @Test
+  public void testBrightenMatchesScalarOnEveryColor() {
+    int[] expected = new int[colors.length];
+    int[] actual = new int[colors.length];
+    for (int alpha : new int[]{-300, -45, 0, 1, 77, 300}) {
+      scalar.brighten(alpha, colors, expected, 0, colors.length);
+      kernels.brighten(alpha, colors, actual, 0, colors.length);
+      assertArrayEquals("alpha " + alpha, expected, actual);
+    }
+  }
+
+  @Test
+  public void testTransformMatchesScalarOnEveryColor() {
+    float[][][] matrices = {
+        {{0.393F, 0.769F, 0.189F}, {0.349F, 0.686F, 0.168F}, {0.272F, 0.534F, 0.131F}},
+        {{0.2126F, 0.7152F, 0.0722F}, {0.2126F, 0.7152F, 0.0722F},
+            {0.2126F, 0.7152F, 0.0722F}},
+        {{-1.5F, 0.3F, 2.7F}, {1e10F, -1e10F, 0}, {Float.NaN, 1, 1}}
+    };
+    int[] expected = new int[colors.length];
+    int[] actual = new int[colors.length];
+    for (float[][] matrix : matrices) {
+      scalar.transform(matrix, colors, expected, 0, colors.length);
+      kernels.transform(matrix, colors, actual, 0, colors.length);
+      assertArrayEquals(expected, actual);
+    }
+  }
+
+  @Test
+  public void testMapsOnlyTheRangeAndInPlace() {
+    int[] pixels = new int[101];
+    for (int i = 0; i < pixels.length; i++) {
+      pixels[i] = i * 166111;
+    }
+    int[] expected = pixels.clone();
+    scalar.luma(expected, expected, 3, 98);
+    kernels.luma(pixels, pixels, 3, 98);
+    assertArrayEquals(expected, pixels);
+    assertEquals(2 * 166111, pixels[2]);
+    assertEquals(98 * 166111, pixels[98]);
+  }
+
+  @Test
+  public void testFallsBackWithoutTheVectorModule() {
+    if (!ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+      assertEquals("scalar", kernels.getName());
+    }
+    assertEquals("scalar", scalar.getName());
+  }
+}
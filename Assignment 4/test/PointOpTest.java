@@ -0,0 +1,107 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import model.ColorImage;
+import model.ColorPixel;
+import model.PackedColorImage;
+import model.Pixel;
+import model.PointOp;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Junit test file for PointOp class.
+ */
+public class PointOpTest {
+
+  private PackedColorImage testImage;
+  private ColorImage referenceImage;
+
+  @Before
+  public void setUp() {
+    Random random = new Random(11);
+    ColorPixel[][] pixels = new ColorPixel[16][16];
+    for (int i = 0; i < 16; i++) {
+      for (int j = 0; j < 16; j++) {
+        pixels[i][j] = new ColorPixel(random.nextInt(256), random.nextInt(256),
+                random.nextInt(256));
+      }
+    }
+    testImage = new PackedColorImage(pixels);
+    referenceImage = new ColorImage(pixels);
+  }
+
+  private static int[] packed(Pixel[][] pixels) {
+    return new PackedColorImage(pixels).getRgbData();
+  }
+
+  @Test
+  public void testCurveIsClamped() {
+    PointOp op = PointOp.of(value -> value * 2 - 100);
+    assertEquals(0x000000, op.applyAsInt(0x000000));
+    assertEquals(0x00FF40, op.applyAsInt(0x32B452));
+  }
+
+  @Test
+  public void testPerChannelCurves() {
+    PointOp op = PointOp.offsets(10, -10, 300);
+    assertEquals(0x0A00FF, op.applyAsInt(0x000500));
+  }
+
+  @Test
+  public void testIdentity() {
+    assertArrayEquals(testImage.getRgbData(),
+            PointOp.identity().apply(testImage).getRgbData());
+  }
+
+  @Test
+  public void testBrightenMatchesColorImage() {
+    assertArrayEquals(packed(referenceImage.brighten(40).getPixels()),
+            PointOp.brighten(40).apply(testImage).getRgbData());
+    assertArrayEquals(packed(referenceImage.brighten(-90).getPixels()),
+            ((PackedColorImage) testImage.brighten(-90)).getRgbData());
+  }
+
+  @Test
+  public void testLevelsMatchesColorImage() {
+    assertArrayEquals(packed(referenceImage.adjustLevels("20", "100", "230").getPixels()),
+            PointOp.levels(20, 100, 230).apply(testImage).getRgbData());
+  }
+
+  @Test
+  public void testColorCorrectMatchesColorImage() {
+    assertArrayEquals(packed(referenceImage.colorCorrect().getPixels()),
+            ((PackedColorImage) testImage.colorCorrect()).getRgbData());
+  }
+
+  @Test
+  public void testColorCorrectionFromHistogram() {
+    assertArrayEquals(((PackedColorImage) testImage.colorCorrect()).getRgbData(),
+            PointOp.colorCorrection(testImage.getChannelHistogram()).apply(testImage)
+                    .getRgbData());
+  }
+
+  @Test
+  public void testComposition() {
+    PointOp levels = PointOp.levels(20, 100, 230);
+    PointOp brighten = PointOp.brighten(-30);
+    PointOp composed = levels.andThen(brighten);
+    assertArrayEquals(brighten.apply(levels.apply(testImage)).getRgbData(),
+            composed.apply(testImage).getRgbData());
+  }
+
+  @Test
+  public void testApplyInPlace() {
+    int[] data = testImage.getRgbData().clone();
+    PointOp.brighten(25).apply(data, data, 0, data.length);
+    assertArrayEquals(PointOp.brighten(25).apply(testImage).getRgbData(), data);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidLevels() {
+    PointOp.levels(100, 50, 200);
+  }
+}
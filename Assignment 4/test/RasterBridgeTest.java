@@ -0,0 +1,108 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Random;
+
+import controller.ImageController;
+import controller.RasterBridge;
+import model.ColorPixel;
+import model.PackedColorImage;
+import model.Pixel;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Junit test file for RasterBridge class.
+ */
+public class RasterBridgeTest {
+
+  private int[] expected;
+
+  @Before
+  public void setUp() {
+    Random random = new Random(3);
+    expected = new int[12 * 9];
+    for (int i = 0; i < expected.length; i++) {
+      expected[i] = random.nextInt(0x1000000);
+    }
+  }
+
+  private BufferedImage imageOfType(int type) {
+    BufferedImage image = new BufferedImage(12, 9, type);
+    image.setRGB(0, 0, 12, 9, expected, 0, 12);
+    return image;
+  }
+
+  private static int[] rgbOf(BufferedImage image) {
+    int[] rgb = image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0,
+            image.getWidth());
+    for (int i = 0; i < rgb.length; i++) {
+      rgb[i] &= 0xFFFFFF;
+    }
+    return rgb;
+  }
+
+  @Test
+  public void testIntRgbIsShared() {
+    BufferedImage image = imageOfType(BufferedImage.TYPE_INT_RGB);
+    PackedColorImage packed = RasterBridge.toImage(image);
+    assertSame(((DataBufferInt) image.getRaster().getDataBuffer()).getData(),
+            packed.getRgbData());
+    assertArrayEquals(expected, packed.getRgbData());
+  }
+
+  @Test
+  public void testModelIsShared() {
+    PackedColorImage packed = new PackedColorImage(12, 9, expected);
+    BufferedImage image = RasterBridge.toBufferedImage(packed);
+    assertEquals(BufferedImage.TYPE_INT_RGB, image.getType());
+    assertSame(expected, ((DataBufferInt) image.getRaster().getDataBuffer()).getData());
+    assertArrayEquals(expected, rgbOf(image));
+    assertSame(expected, RasterBridge.toImage(image).getRgbData());
+  }
+
+  @Test
+  public void testThreeByteBgr() {
+    BufferedImage image = imageOfType(BufferedImage.TYPE_3BYTE_BGR);
+    assertArrayEquals(expected, RasterBridge.toImage(image).getRgbData());
+  }
+
+  @Test
+  public void testOtherTypesAreCopied() {
+    assertArrayEquals(expected,
+            RasterBridge.toImage(imageOfType(BufferedImage.TYPE_INT_ARGB)).getRgbData());
+    assertArrayEquals(expected,
+            RasterBridge.toImage(imageOfType(BufferedImage.TYPE_INT_BGR)).getRgbData());
+    BufferedImage grey = imageOfType(BufferedImage.TYPE_BYTE_GRAY);
+    assertArrayEquals(rgbOf(grey), RasterBridge.toImage(grey).getRgbData());
+  }
+
+  @Test
+  public void testSubimageIsCopied() {
+    BufferedImage image = imageOfType(BufferedImage.TYPE_INT_RGB).getSubimage(2, 3, 5, 4);
+    PackedColorImage packed = RasterBridge.toImage(image);
+    assertEquals(5, packed.getWidth());
+    assertEquals(4, packed.getHeight());
+    assertArrayEquals(rgbOf(image), packed.getRgbData());
+
+    BufferedImage bgr = imageOfType(BufferedImage.TYPE_3BYTE_BGR).getSubimage(1, 1, 6, 6);
+    assertArrayEquals(rgbOf(bgr), RasterBridge.toImage(bgr).getRgbData());
+  }
+
+  @Test
+  public void testPixelConversionsClamp() {
+    Pixel[][] pixels = {
+            {new ColorPixel(300, -20, 128), new ColorPixel(1, 2, 3)}
+    };
+    BufferedImage image = ImageController.convertToBufferedImage(pixels);
+    assertArrayEquals(new int[]{0xFF0080, 0x010203}, rgbOf(image));
+    Pixel[][] back = ImageController.convertToPixels(image);
+    assertEquals(255, back[0][0].getRedValue());
+    assertEquals(0, back[0][0].getGreenValue());
+    assertEquals(3, back[0][1].getBlueValue());
+  }
+}
@@ -0,0 +1,136 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import model.EdgePolicy;
+import model.Image;
+import model.PackedColorImage;
+import model.RowScheduler;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Junit test file for RowScheduler class.
+ */
+public class RowSchedulerTest {
+
+  private int originalParallelism;
+  private PackedColorImage testImage;
+
+  @Before
+  public void setUp() {
+    originalParallelism = RowScheduler.getParallelism();
+    Random random = new Random(7);
+    int[] data = new int[512 * 384];
+    for (int i = 0; i < data.length; i++) {
+      data[i] = random.nextInt(0x1000000);
+    }
+    testImage = new PackedColorImage(512, 384, data);
+  }
+
+  @After
+  public void tearDown() {
+    RowScheduler.setParallelism(originalParallelism);
+  }
+
+  private void assertSameForAnyThreadCount(Function<PackedColorImage, Image> operation) {
+    RowScheduler.setParallelism(1);
+    int[] sequential = ((PackedColorImage) operation.apply(testImage)).getRgbData();
+    RowScheduler.setParallelism(4);
+    int[] parallel = ((PackedColorImage) operation.apply(testImage)).getRgbData();
+    assertArrayEquals(sequential, parallel);
+  }
+
+  @Test
+  public void testSetParallelism() {
+    RowScheduler.setParallelism(3);
+    assertEquals(3, RowScheduler.getParallelism());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidParallelism() {
+    RowScheduler.setParallelism(0);
+  }
+
+  @Test
+  public void testBandsCoverEveryRowOnce() {
+    RowScheduler.setParallelism(4);
+    int[] visits = new int[1000];
+    RowScheduler.forEachBand(visits.length, 64, (startRow, endRow) -> {
+      for (int i = startRow; i < endRow; i++) {
+        visits[i]++;
+      }
+    });
+    for (int count : visits) {
+      assertEquals(1, count);
+    }
+  }
+
+  @Test
+  public void testPerPixelOperations() {
+    float[][] sepia = {
+            {0.393F, 0.769F, 0.189F},
+            {0.349F, 0.686F, 0.186F},
+            {0.272F, 0.534F, 0.131F}
+    };
+    assertSameForAnyThreadCount(image -> image.brighten(40));
+    assertSameForAnyThreadCount(image -> image.linearTransform(sepia));
+    assertSameForAnyThreadCount(PackedColorImage::getLuma);
+    assertSameForAnyThreadCount(PackedColorImage::getValue);
+    assertSameForAnyThreadCount(PackedColorImage::getIntensity);
+    assertSameForAnyThreadCount(PackedColorImage::verticalFlip);
+    assertSameForAnyThreadCount(PackedColorImage::horizontalFlip);
+    assertSameForAnyThreadCount(PackedColorImage::colorCorrect);
+    assertSameForAnyThreadCount(image -> image.adjustLevels("20", "100", "230"));
+    assertSameForAnyThreadCount(image -> image.lumaWithSplit(50));
+  }
+
+  @Test
+  public void testFilters() {
+    float[][] blurKernel = {
+            {0.0625F, 0.125F, 0.0625F},
+            {0.125F, 0.25F, 0.125F},
+            {0.0625F, 0.125F, 0.0625F}
+    };
+    float[][] sharpenKernel = {
+            {-0.125F, -0.125F, -0.125F, -0.125F, -0.125F},
+            {-0.125F, 0.25F, 0.25F, 0.25F, -0.125F},
+            {-0.125F, 0.25F, 1F, 0.25F, -0.125F},
+            {-0.125F, 0.25F, 0.25F, 0.25F, -0.125F},
+            {-0.125F, -0.125F, -0.125F, -0.125F, -0.125F}
+    };
+    assertSameForAnyThreadCount(image -> image.filter(blurKernel));
+    assertSameForAnyThreadCount(image -> image.filter(sharpenKernel, EdgePolicy.MIRROR));
+  }
+
+  private void assertInterruptCancels(int threads) {
+    RowScheduler.setParallelism(threads);
+    AtomicInteger bands = new AtomicInteger();
+    Thread.currentThread().interrupt();
+    try {
+      RowScheduler.forEachBand(4096, 512, (startRow, endRow) -> bands.incrementAndGet());
+      fail("Interrupted operation should be cancelled");
+    } catch (CancellationException e) {
+      assertEquals(0, bands.get());
+    } finally {
+      Thread.interrupted();
+    }
+  }
+
+  @Test
+  public void testInterruptCancelsSequentialBands() {
+    assertInterruptCancels(1);
+  }
+
+  @Test
+  public void testInterruptCancelsParallelBands() {
+    assertInterruptCancels(4);
+  }
+}
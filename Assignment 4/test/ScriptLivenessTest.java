@@ -0,0 +1,118 @@
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import controller.Command;
+import controller.ImageController;
+import controller.ScriptLiveness;
+import model.Image;
+import model.PackedColorImage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Junit test file for ScriptLiveness class.
+ */
+public class ScriptLivenessTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private final ImageController controller = new ImageController();
+
+  private ScriptLiveness analyze(String... lines) {
+    List<Command> script = new ArrayList<>();
+    for (String line : lines) {
+      script.add(controller.parseCommand(line));
+    }
+    return ScriptLiveness.analyze(script);
+  }
+
+  @Test
+  public void testUnsavedCommandsAreDead() {
+    ScriptLiveness liveness = analyze(
+            "load in.ppm a",
+            "blur a b",
+            "sharpen a c",
+            "sepia c d",
+            "save out.ppm b");
+    assertTrue(liveness.isLive(0));
+    assertTrue(liveness.isLive(1));
+    assertFalse(liveness.isLive(2));
+    assertFalse(liveness.isLive(3));
+    assertTrue(liveness.isLive(4));
+  }
+
+  @Test
+  public void testKeysDieAfterLastRead() {
+    ScriptLiveness liveness = analyze(
+            "load in.ppm a",
+            "blur a b",
+            "luma a c",
+            "save out.ppm b",
+            "save out.png c");
+    assertEquals(Collections.emptyList(), liveness.getDeadAfter(0));
+    assertEquals(Collections.emptyList(), liveness.getDeadAfter(1));
+    assertEquals(Collections.singletonList("a"), liveness.getDeadAfter(2));
+    assertEquals(Collections.singletonList("b"), liveness.getDeadAfter(3));
+    assertEquals(Collections.singletonList("c"), liveness.getDeadAfter(4));
+  }
+
+  @Test
+  public void testUnusedOutputsDieAtOnce() {
+    ScriptLiveness liveness = analyze(
+            "load in.ppm a",
+            "rgb-split a r g b",
+            "save out.ppm r");
+    assertTrue(liveness.isLive(1));
+    assertEquals(Arrays.asList("a", "g", "b"), liveness.getDeadAfter(1));
+  }
+
+  @Test
+  public void testOverwrittenKeys() {
+    ScriptLiveness liveness = analyze(
+            "load in.ppm a",
+            "blur a a",
+            "load other.ppm a",
+            "sharpen a a",
+            "save out.ppm a");
+    assertFalse(liveness.isLive(0));
+    assertFalse(liveness.isLive(1));
+    assertTrue(liveness.isLive(2));
+    assertTrue(liveness.isLive(3));
+    assertEquals(Collections.emptyList(), liveness.getDeadAfter(3));
+    assertEquals(Collections.singletonList("a"), liveness.getDeadAfter(4));
+  }
+
+  @Test
+  public void testProcessCommandsSkipsAndDrops() throws IOException {
+    File input = folder.newFile("in.ppm");
+    File output = new File(folder.getRoot(), "out.ppm");
+    int[] data = new int[12 * 8];
+    for (int i = 0; i < data.length; i++) {
+      data[i] = i * 0x010203;
+    }
+    ImageController.writeImage(new PackedColorImage(12, 8, data), "ppm", input.getPath(), false);
+    Map<String, Image> images = new HashMap<>();
+    controller.setImageStore(images);
+
+    controller.processCommands(Arrays.asList(
+            "load " + input.getPath() + " a",
+            "load " + new File(folder.getRoot(), "missing.ppm").getPath() + " unused",
+            "blur a b",
+            "save " + output.getPath() + " b"));
+    assertTrue(output.exists());
+    assertTrue(images.isEmpty());
+  }
+}
@@ -0,0 +1,177 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import controller.ImageController;
+import controller.ScriptClient;
+import controller.ScriptServer;
+import model.PackedColorImage;
+import model.Pixel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Junit test file for ScriptServer and ScriptClient classes.
+ */
+public class ScriptServerTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private ScriptServer server;
+  private Thread serving;
+  private Path directory;
+
+  @Before
+  public void setUp() throws IOException {
+    server = new ScriptServer(0, 1 << 20, 2, folder.newFolder("tokens").toPath());
+    serving = new Thread(() -> {
+      try {
+        server.serve();
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    });
+    serving.start();
+    directory = folder.getRoot().toPath();
+    int[] data = new int[8 * 6];
+    for (int i = 0; i < data.length; i++) {
+      data[i] = (i * 4099) & 0xFFFFFF;
+    }
+    ImageController.writeImage(new PackedColorImage(8, 6, data), "ppm",
+            directory.resolve("in.ppm").toString(), false);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    server.close();
+    serving.join(5000);
+  }
+
+  private ScriptClient client() throws IOException {
+    return new ScriptClient(server.getPort(), directory, server.getTokenFile());
+  }
+
+  @Test
+  public void testRunsScriptsWithRelativePaths() throws IOException {
+    try (ScriptClient client = client()) {
+      String answer = client.submit(Arrays.asList(
+              "load in.ppm a",
+              "horizontal-flip a b",
+              "save flipped.ppm b"));
+      assertTrue(answer, answer.startsWith("OK "));
+    }
+    Pixel[][] expected = ImageController.readImage(directory.resolve("in.ppm").toString())
+            .horizontalFlip().getPixels();
+    Pixel[][] actual = ImageController.readImage(directory.resolve("flipped.ppm").toString())
+            .getPixels();
+    assertEquals(expected.length, actual.length);
+    for (int i = 0; i < expected.length; i++) {
+      for (int j = 0; j < expected[i].length; j++) {
+        assertEquals(expected[i][j].getRedValue(), actual[i][j].getRedValue());
+        assertEquals(expected[i][j].getGreenValue(), actual[i][j].getGreenValue());
+        assertEquals(expected[i][j].getBlueValue(), actual[i][j].getBlueValue());
+      }
+    }
+  }
+
+  @Test
+  public void testReportsErrorsAndKeepsServing() throws IOException {
+    try (ScriptClient client = client()) {
+      String answer = client.submit(Arrays.asList("load missing.ppm a", "save out.ppm a"));
+      assertTrue(answer, answer.startsWith("ERROR "));
+      answer = client.submit(Arrays.asList("load in.ppm a", "save copy.ppm a"));
+      assertTrue(answer, answer.startsWith("OK "));
+    }
+    assertTrue(new File(folder.getRoot(), "copy.ppm").exists());
+  }
+
+  @Test
+  public void testServesClientsAtTheSameTime() throws IOException {
+    try (ScriptClient first = client();
+         ScriptClient second = client()) {
+      String answer = second.submit(Arrays.asList("load in.ppm a", "save second.ppm a"));
+      assertTrue(answer, answer.startsWith("OK "));
+      answer = first.submit(Arrays.asList("load in.ppm a", "save first.ppm a"));
+      assertTrue(answer, answer.startsWith("OK "));
+    }
+    assertTrue(new File(folder.getRoot(), "first.ppm").exists());
+    assertTrue(new File(folder.getRoot(), "second.ppm").exists());
+  }
+
+  @Test
+  public void testInvalidCommandIsAnError() throws IOException {
+    try (ScriptClient client = client()) {
+      String answer = client.submit(Arrays.asList("sharpen-everything a b"));
+      assertTrue(answer, answer.startsWith("ERROR "));
+    }
+  }
+
+  @Test
+  public void testRejectsClientWithoutToken() throws IOException {
+    Path forged = folder.newFile("forged.token").toPath();
+    Files.write(forged, "0123456789abcdef".getBytes());
+    try (ScriptClient client = new ScriptClient(server.getPort(), directory, forged)) {
+      String answer = client.submit(Arrays.asList("load in.ppm a", "save stolen.ppm a"));
+      assertTrue(answer, answer.startsWith("ERROR "));
+    }
+    assertFalse(new File(folder.getRoot(), "stolen.ppm").exists());
+  }
+
+  @Test
+  public void testTokenFileIsPrivateAndDeletedOnClose() throws IOException {
+    Path tokenFile = server.getTokenFile();
+    assumeTrue(Files.getFileStore(tokenFile).supportsFileAttributeView("posix"));
+    assertEquals("rw-------",
+            PosixFilePermissions.toString(Files.getPosixFilePermissions(tokenFile)));
+    server.close();
+    assertFalse(Files.exists(tokenFile));
+  }
+
+  @Test
+  public void testExtraClientsWaitForAFreeConnection() throws Exception {
+    ScriptClient first = client();
+    try (ScriptClient second = client();
+         ScriptClient third = client()) {
+      assertTrue(first.submit(Arrays.asList("load in.ppm a")).startsWith("OK "));
+      assertTrue(second.submit(Arrays.asList("load in.ppm a")).startsWith("OK "));
+      CountDownLatch submitting = new CountDownLatch(1);
+      CompletableFuture<String> waiting = CompletableFuture.supplyAsync(() -> {
+        submitting.countDown();
+        try {
+          return third.submit(Arrays.asList("load in.ppm a"));
+        } catch (IOException e) {
+          throw new RuntimeException(e);
+        }
+      });
+      assertTrue(submitting.await(5, TimeUnit.SECONDS));
+      try {
+        waiting.get(500, TimeUnit.MILLISECONDS);
+        fail("third client was served while both connections were busy");
+      } catch (TimeoutException e) {
+        // Expected: the server has no free connection until the first client leaves.
+      }
+      first.close();
+      assertTrue(waiting.get(5, TimeUnit.SECONDS).startsWith("OK "));
+    } finally {
+      first.close();
+    }
+  }
+}
@@ -0,0 +1,74 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import controller.RasterBridge;
+import controller.SplitPreview;
+import model.Image;
+import model.PackedColorImage;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Junit test file for SplitPreview class.
+ */
+public class SplitPreviewTest {
+
+  private final float[][] blurKernel = {
+          {0.0625F, 0.125F, 0.0625F},
+          {0.125F, 0.25F, 0.125F},
+          {0.0625F, 0.125F, 0.0625F}
+  };
+
+  private PackedColorImage testImage;
+
+  @Before
+  public void setUp() {
+    Random random = new Random(5);
+    int[] data = new int[97 * 40];
+    for (int i = 0; i < data.length; i++) {
+      data[i] = random.nextInt(0x1000000);
+    }
+    testImage = new PackedColorImage(97, 40, data);
+  }
+
+  private static int[] rgb(BufferedImage image) {
+    return RasterBridge.toImage(image).getRgbData();
+  }
+
+  private static int[] rgb(Image image) {
+    return PackedColorImage.from(image).getRgbData();
+  }
+
+  @Test
+  public void testMatchesSplitOperation() {
+    SplitPreview preview = new SplitPreview(testImage, testImage.filter(blurKernel), 50);
+    assertArrayEquals(rgb(testImage.filterSplit(blurKernel, 50)), rgb(preview.getImage()));
+  }
+
+  @Test
+  public void testMovingSplitMatchesSplitOperation() {
+    SplitPreview preview = new SplitPreview(testImage, testImage.getLuma(), 50);
+    BufferedImage image = preview.getImage();
+    for (int percentage : new int[]{51, 80, 99, 1, 33, 34, 34, 12, 70}) {
+      preview.setSplitPercentage(percentage);
+      assertSame(image, preview.getImage());
+      assertArrayEquals("split at " + percentage, rgb(testImage.lumaWithSplit(percentage)),
+              rgb(image));
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidPercentage() {
+    SplitPreview preview = new SplitPreview(testImage, testImage.getLuma(), 50);
+    preview.setSplitPercentage(100);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testDifferentSizes() {
+    new SplitPreview(testImage, testImage.getHistogram(), 50);
+  }
+}
@@ -0,0 +1,116 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import controller.TaskRunner;
+import model.PackedColorImage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Junit test file for TaskRunner class.
+ */
+public class TaskRunnerTest {
+
+  private ExecutorService publisher;
+  private List<String> published;
+
+  @Before
+  public void setUp() {
+    publisher = Executors.newSingleThreadExecutor();
+    published = new ArrayList<>();
+  }
+
+  private void drainPublisher() throws InterruptedException {
+    CountDownLatch drained = new CountDownLatch(1);
+    publisher.execute(drained::countDown);
+    assertTrue(drained.await(10, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void testDirectRunsInline() {
+    TaskRunner runner = TaskRunner.direct();
+    runner.submit(() -> "result", published::add, () -> published.add("done"));
+    assertEquals(List.of("result", "done"), published);
+  }
+
+  @Test
+  public void testResultIsPublished() throws InterruptedException {
+    TaskRunner runner = TaskRunner.background(publisher);
+    CountDownLatch done = new CountDownLatch(1);
+    runner.submit(() -> "result", published::add, done::countDown);
+    assertTrue(done.await(10, TimeUnit.SECONDS));
+    drainPublisher();
+    assertEquals(List.of("result"), published);
+    assertFalse(runner.isBusy());
+  }
+
+  @Test
+  public void testNewerRequestSupersedesOlder() throws InterruptedException {
+    TaskRunner runner = TaskRunner.background(publisher);
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch done = new CountDownLatch(1);
+    runner.submit(() -> {
+      started.countDown();
+      Thread.sleep(10_000);
+      return "old";
+    }, published::add, () -> published.add("old done"));
+    assertTrue(started.await(10, TimeUnit.SECONDS));
+    runner.submit(() -> "new", published::add, done::countDown);
+    assertTrue(done.await(10, TimeUnit.SECONDS));
+    drainPublisher();
+    assertEquals(List.of("new"), published);
+  }
+
+  @Test
+  public void testErrorRunsDoneAndIsRethrown() throws InterruptedException {
+    List<Throwable> thrown = new ArrayList<>();
+    TaskRunner runner = TaskRunner.background(runnable -> publisher.execute(() -> {
+      try {
+        runnable.run();
+      } catch (Throwable e) {
+        thrown.add(e);
+      }
+    }));
+    CountDownLatch done = new CountDownLatch(1);
+    runner.<String>submit(() -> {
+      throw new OutOfMemoryError("Java heap space");
+    }, published::add, done::countDown);
+    assertTrue(done.await(10, TimeUnit.SECONDS));
+    drainPublisher();
+    assertTrue(published.isEmpty());
+    assertEquals(1, thrown.size());
+    assertTrue(thrown.get(0) instanceof OutOfMemoryError);
+    assertFalse(runner.isBusy());
+  }
+
+  @Test
+  public void testCancelStopsImageOperation() throws InterruptedException {
+    int[] data = new int[2048 * 2048];
+    PackedColorImage image = new PackedColorImage(2048, 2048, data);
+    TaskRunner runner = TaskRunner.background(publisher);
+    CountDownLatch finished = new CountDownLatch(1);
+    runner.<String>submit(() -> {
+      try {
+        while (true) {
+          image.brighten(1);
+        }
+      } finally {
+        finished.countDown();
+      }
+    }, published::add, () -> published.add("done"));
+    Thread.sleep(50);
+    assertTrue(runner.cancel());
+    assertTrue(finished.await(10, TimeUnit.SECONDS));
+    drainPublisher();
+    assertTrue(published.isEmpty());
+  }
+}
@@ -0,0 +1,96 @@
+package model;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Junit test file for the threshold selection of WaveletCompressor class, which is package
+ * private and so tested from its own package.
+ */
+public class WaveletCompressorTest {
+
+  private static final float[] PERCENTAGES = {0.5F, 10, 33.3F, 50, 90, 100};
+
+  /**
+   * The threshold as first written: every magnitude boxed into a HashSet, then sorted.
+   */
+  private static double referenceThreshold(float percentage, double[]... channels) {
+    Set<Double> unique = new HashSet<>();
+    for (double[] channel : channels) {
+      for (double value : channel) {
+        unique.add(Math.abs(value));
+      }
+    }
+    List<Double> sorted = new ArrayList<>(unique);
+    sorted.sort(null);
+    return sorted.get((int) ((percentage / 100) * sorted.size()) - 1);
+  }
+
+  private static void assertMatchesReference(double[]... channels) {
+    for (float percentage : PERCENTAGES) {
+      assertEquals("percentage " + percentage, referenceThreshold(percentage, channels),
+              WaveletCompressor.threshold(percentage, channels), 0);
+    }
+  }
+
+  private static double[] randomCoefficients(Random random, int length) {
+    double[] values = new double[length];
+    for (int i = 0; i < length; i++) {
+      values[i] = Math.round(random.nextGaussian() * 1e5) / 1000.0;
+    }
+    return values;
+  }
+
+  @Test
+  public void testManyDistinctMagnitudes() {
+    Random random = new Random(21);
+    double[] red = randomCoefficients(random, 200_000);
+    double[] green = randomCoefficients(random, 200_000);
+    double[] blue = randomCoefficients(random, 200_000);
+    // Far more distinct magnitudes than the initial table holds, so it grows many times.
+    assertMatchesReference(red, green, blue);
+  }
+
+  @Test
+  public void testSortedAndReversedMagnitudes() {
+    double[] ascending = new double[300_000];
+    double[] descending = new double[300_000];
+    double[] alternating = new double[300_000];
+    for (int i = 0; i < ascending.length; i++) {
+      ascending[i] = i / 1000.0;
+      descending[i] = (ascending.length - i) / 1000.0;
+      alternating[i] = (i % 2 == 0 ? -i : i) / 1000.0;
+    }
+    assertMatchesReference(ascending, ascending, ascending);
+    assertMatchesReference(descending, alternating, ascending);
+  }
+
+  @Test
+  public void testSelectMatchesSortWhenFallingBack() {
+    Random random = new Random(5);
+    long[][] inputs = new long[4][5000];
+    for (int i = 0; i < 5000; i++) {
+      inputs[0][i] = i;
+      inputs[1][i] = 5000 - i;
+      inputs[2][i] = i % 7;
+      inputs[3][i] = random.nextLong() >>> 1;
+    }
+    for (long[] input : inputs) {
+      long[] sorted = input.clone();
+      Arrays.sort(sorted);
+      for (int budget : new int[]{0, 1, 3, 26}) {
+        for (int k : new int[]{0, 1, 2499, 4998, 4999}) {
+          assertEquals(sorted[k], WaveletCompressor.select(input.clone(), k, budget));
+        }
+      }
+    }
+  }
+}
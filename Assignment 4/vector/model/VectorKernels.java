@@ -0,0 +1,172 @@
+package model;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * This class computes the per-pixel kernels on as many pixels at once as the widest vector
+ * register holds, with the Vector API. Each lane holds one packed pixel, and its channels are
+ * taken apart with shifts and masks, so the pixels are read and written once and no planar
+ * copy of the image is made. The leftover pixels of a range run through the scalar kernels.
+ *
+ * <p>The results are exactly those of the scalar kernels. The color matrix is applied in float
+ * arithmetic in the same order, and floats are truncated and clamped like a Java cast. Luma
+ * and intensity divide by constants with multiplications and shifts that give the truncated
+ * quotient for every channel value; luma's weights truncate each term as the scalar double
+ * arithmetic does.
+ *
+ * <p>This class is compiled only on Java 17 or later, from the vector source folder, and
+ * {@link PixelKernels#get()} creates it only when jdk.incubator.vector is present.
+ */
+final class VectorKernels extends PixelKernels {
+
+  private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+  private static final VectorSpecies<Float> FLOATS = FloatVector.SPECIES_PREFERRED;
+
+  // (c * LUMA_X) >>> LUMA_X_SHIFT == (int) (c * 0.2126) and so on for every c in 0-255.
+  private static final int LUMA_RED = 6967;
+  private static final int LUMA_RED_SHIFT = 15;
+  private static final int LUMA_GREEN = 5859;
+  private static final int LUMA_GREEN_SHIFT = 13;
+  private static final int LUMA_BLUE = 1183;
+  private static final int LUMA_BLUE_SHIFT = 14;
+  // (s * THIRD) >>> THIRD_SHIFT == s / 3 for every sum s of three channels.
+  private static final int THIRD = 0xAAAB;
+  private static final int THIRD_SHIFT = 17;
+  // Adding 2^23 to a float in 0-255 leaves its nearest integer in the low bits of the sum.
+  private static final float ROUNDING = 8388608f;
+  private static final int ROUNDING_BITS = Float.floatToIntBits(ROUNDING);
+
+  /**
+   * Creates the vector kernels.
+   *
+   * @throws UnsupportedOperationException if the processor has no vector registers wider than
+   *                                       two ints, where the Vector API is slower than a loop.
+   */
+  VectorKernels() {
+    if (INTS.length() < 4 || FLOATS.length() != INTS.length()) {
+      throw new UnsupportedOperationException("No vector registers to use");
+    }
+  }
+
+  @Override
+  public String getName() {
+    return "vector x" + INTS.length();
+  }
+
+  @Override
+  public void transform(float[][] mat, int[] src, int[] dst, int from, int to) {
+    float m00 = mat[0][0];
+    float m01 = mat[0][1];
+    float m02 = mat[0][2];
+    float m10 = mat[1][0];
+    float m11 = mat[1][1];
+    float m12 = mat[1][2];
+    float m20 = mat[2][0];
+    float m21 = mat[2][1];
+    float m22 = mat[2][2];
+    int i = from;
+    for (int bound = from + INTS.loopBound(to - from); i < bound; i += INTS.length()) {
+      IntVector p = IntVector.fromArray(INTS, src, i);
+      FloatVector r = toFloat(channel(p, 16));
+      FloatVector g = toFloat(channel(p, 8));
+      FloatVector b = toFloat(channel(p, 0));
+      IntVector red = toClampedInt(r.mul(m00).add(g.mul(m01)).add(b.mul(m02)));
+      IntVector green = toClampedInt(r.mul(m10).add(g.mul(m11)).add(b.mul(m12)));
+      IntVector blue = toClampedInt(r.mul(m20).add(g.mul(m21)).add(b.mul(m22)));
+      pack(red, green, blue).intoArray(dst, i);
+    }
+    super.transform(mat, src, dst, i, to);
+  }
+
+  @Override
+  public void luma(int[] src, int[] dst, int from, int to) {
+    int i = from;
+    for (int bound = from + INTS.loopBound(to - from); i < bound; i += INTS.length()) {
+      IntVector p = IntVector.fromArray(INTS, src, i);
+      IntVector sum = scale(channel(p, 16), LUMA_RED, LUMA_RED_SHIFT)
+              .add(scale(channel(p, 8), LUMA_GREEN, LUMA_GREEN_SHIFT))
+              .add(scale(channel(p, 0), LUMA_BLUE, LUMA_BLUE_SHIFT));
+      grey(sum).intoArray(dst, i);
+    }
+    super.luma(src, dst, i, to);
+  }
+
+  @Override
+  public void intensity(int[] src, int[] dst, int from, int to) {
+    int i = from;
+    for (int bound = from + INTS.loopBound(to - from); i < bound; i += INTS.length()) {
+      IntVector p = IntVector.fromArray(INTS, src, i);
+      IntVector sum = channel(p, 16).add(channel(p, 8)).add(channel(p, 0));
+      grey(scale(sum, THIRD, THIRD_SHIFT)).intoArray(dst, i);
+    }
+    super.intensity(src, dst, i, to);
+  }
+
+  @Override
+  public void value(int[] src, int[] dst, int from, int to) {
+    int i = from;
+    for (int bound = from + INTS.loopBound(to - from); i < bound; i += INTS.length()) {
+      IntVector p = IntVector.fromArray(INTS, src, i);
+      grey(channel(p, 16).max(channel(p, 8)).max(channel(p, 0))).intoArray(dst, i);
+    }
+    super.value(src, dst, i, to);
+  }
+
+  @Override
+  public void brighten(int alpha, int[] src, int[] dst, int from, int to) {
+    int i = from;
+    for (int bound = from + INTS.loopBound(to - from); i < bound; i += INTS.length()) {
+      IntVector p = IntVector.fromArray(INTS, src, i);
+      pack(clamp(channel(p, 16).add(alpha)), clamp(channel(p, 8).add(alpha)),
+              clamp(channel(p, 0).add(alpha))).intoArray(dst, i);
+    }
+    super.brighten(alpha, src, dst, i, to);
+  }
+
+  private static IntVector channel(IntVector pixels, int shift) {
+    return pixels.lanewise(VectorOperators.ASHR, shift).and(0xFF);
+  }
+
+  private static IntVector scale(IntVector values, int multiplier, int shift) {
+    return values.mul(multiplier).lanewise(VectorOperators.LSHR, shift);
+  }
+
+  private static FloatVector toFloat(IntVector values) {
+    return (FloatVector) values.convert(VectorOperators.I2F, 0);
+  }
+
+  /**
+   * Truncates and clamps floats to 0-255 as (int) followed by a clamp does, NaN giving 0.
+   * Converting with F2I is not compiled to vector instructions on every Java version, so the
+   * floats are clamped first and truncated by adding 2^23, which rounds them to the nearest
+   * integer in the low bits of the float, and subtracting one where that rounded up.
+   */
+  private static IntVector toClampedInt(FloatVector values) {
+    FloatVector clamped = values.max(0f).min(255f);
+    FloatVector rounded = clamped.add(ROUNDING);
+    VectorMask<Integer> roundedUp = rounded.sub(ROUNDING)
+            .compare(VectorOperators.GT, clamped).cast(INTS);
+    VectorMask<Integer> notANumber = clamped.compare(VectorOperators.NE, clamped).cast(INTS);
+    return rounded.reinterpretAsInts().sub(ROUNDING_BITS)
+            .sub(IntVector.broadcast(INTS, 1), roundedUp)
+            .blend(0, notANumber);
+  }
+
+  private static IntVector clamp(IntVector values) {
+    return values.max(0).min(255);
+  }
+
+  private static IntVector pack(IntVector red, IntVector green, IntVector blue) {
+    return red.lanewise(VectorOperators.LSHL, 16)
+            .or(green.lanewise(VectorOperators.LSHL, 8))
+            .or(blue);
+  }
+
+  private static IntVector grey(IntVector value) {
+    return pack(value, value, value);
+  }
+}